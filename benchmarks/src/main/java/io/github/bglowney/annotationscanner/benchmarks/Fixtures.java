@@ -0,0 +1,86 @@
+package io.github.bglowney.annotationscanner.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Annotation types and annotated classes to benchmark against
+ */
+final class Fixtures {
+
+    @Retention(RetentionPolicy.RUNTIME) @interface A00 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A01 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A02 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A03 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A04 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A05 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A06 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A07 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A08 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A09 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A10 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A11 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A12 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A13 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A14 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A15 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A16 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A17 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A18 {}
+    @Retention(RetentionPolicy.RUNTIME) @interface A19 {}
+
+    static final List<Class<? extends Annotation>> ANNOTATIONS = Arrays.<Class<? extends Annotation>>asList(
+        A00.class, A01.class, A02.class, A03.class, A04.class,
+        A05.class, A06.class, A07.class, A08.class, A09.class,
+        A10.class, A11.class, A12.class, A13.class, A14.class,
+        A15.class, A16.class, A17.class, A18.class, A19.class);
+
+    private Fixtures() {}
+
+    public static class Base {
+        @A00 public void inherited0() {}
+        @A01 public void inherited1() {}
+        @A02 public void inherited2() {}
+        @A03 public void inherited3() {}
+        @A00 public void inherited4() {}
+        @A00 public String inheritedField;
+    }
+
+    @A00
+    public static class Target extends Base {
+        @A00 public String field0;
+        @A01 public String field1;
+        @A02 public String field2;
+        @A03 public String field3;
+        @A00 public String field4;
+        @A01 public String field5;
+        @A02 public String field6;
+        @A03 public String field7;
+        @A00 public String field8;
+        @A01 public String field9;
+
+        @A00 public Target(int value) {}
+        @A01 public Target(long value) {}
+        @A02 public Target(String value) {}
+
+        @A00 public void method0(String value) {}
+        @A01 public void method1(String value) {}
+        @A02 public void method2(String value) {}
+        @A03 public void method3(String value) {}
+        @A00 public void method4(String value) {}
+        @A01 public void method5(String value) {}
+        @A02 public void method6(String value) {}
+        @A03 public void method7(String value) {}
+        @A00 public void method8(String value) {}
+        @A01 public void method9(String value) {}
+
+        private void helper0() {}
+        private void helper1() {}
+        private void helper2() {}
+        private void helper3() {}
+        private void helper4() {}
+    }
+}
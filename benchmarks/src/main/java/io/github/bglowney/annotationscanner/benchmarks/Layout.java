@@ -0,0 +1,13 @@
+package io.github.bglowney.annotationscanner.benchmarks;
+
+/**
+ * The kinds of classpath root generated by {@link SyntheticClasspath}
+ */
+public enum Layout {
+    /** a directory containing only the target package */
+    DIRECTORY,
+    /** a jar containing only the target package */
+    JAR,
+    /** a jar of many packages in which the target package is a small slice */
+    FAT_JAR
+}
@@ -0,0 +1,82 @@
+package io.github.bglowney.annotationscanner.benchmarks;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.bglowney.annotationscanner.benchmarks.SyntheticClasspath.TARGET_PACKAGE;
+
+/**
+ * Measures enumerating the classes of the target package of a generated classpath root, without loading them.
+ * Run with "-prof gc" to also report allocation rates
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingBenchmark {
+
+    @Param({"DIRECTORY", "JAR", "FAT_JAR"})
+    Layout layout;
+
+    @Param({"1000", "10000", "100000"})
+    int classCount;
+
+    private Path directory;
+    private URLClassLoader classLoader;
+
+    /**
+     * Exposes the enumeration of a single package
+     */
+    static class ListingScanner extends AnnotationScanner {
+        ListingScanner(ClassLoader classLoader) {
+            super(Collections.singleton(TARGET_PACKAGE));
+            withClassLoader(classLoader);
+        }
+
+        Set<String> listClassNames() throws Exception {
+            return getClassNamesFromPackage(TARGET_PACKAGE);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("annotation-scanner-benchmark");
+        val root = SyntheticClasspath.generate(directory, layout, classCount, 0).toUri().toURL();
+        classLoader = new URLClassLoader(new URL[] {root}, ListingBenchmark.class.getClassLoader());
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        classLoader.close();
+        SyntheticClasspath.delete(directory);
+    }
+
+    @Benchmark
+    public Set<String> getClassNamesFromPackage() throws Exception {
+        return new ListingScanner(classLoader).listClassNames();
+    }
+}
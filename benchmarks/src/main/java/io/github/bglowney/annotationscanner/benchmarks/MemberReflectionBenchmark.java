@@ -0,0 +1,126 @@
+package io.github.bglowney.annotationscanner.benchmarks;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Compares matching the members of a loaded class with a single pass over each member array against the former
+ * approach of fetching every member array once per requested annotation. Run with "-prof gc" to compare the bytes
+ * allocated per operation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemberReflectionBenchmark {
+
+    @Param({"1", "5", "20"})
+    int annotationCount;
+
+    private MatchingScanner scanner;
+    private Set<Class<? extends Annotation>> annotations;
+
+    /**
+     * Exposes the matching of a single loaded class
+     */
+    static class MatchingScanner extends AnnotationScanner {
+        MatchingScanner(Set<Class<? extends Annotation>> annotations) {
+            super(Collections.emptySet());
+            methodAnnotations.addAll(annotations);
+            fieldAnnotations.addAll(annotations);
+            constructorAnnotations.addAll(annotations);
+        }
+
+        boolean match(Class<?> clazz, Collection<ScannerResult<?,?>> results) {
+            return scanClass(clazz, results);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        annotations = new HashSet<>(Fixtures.ANNOTATIONS.subList(0, annotationCount));
+        scanner = new MatchingScanner(annotations);
+    }
+
+    @Benchmark
+    public Collection<AnnotationScanner.ScannerResult<?,?>> singlePass() {
+        val results = new ArrayList<AnnotationScanner.ScannerResult<?,?>>();
+        scanner.match(Fixtures.Target.class, results);
+        return results;
+    }
+
+    @Benchmark
+    public Collection<AnnotationScanner.ScannerResult<?,?>> perAnnotation() {
+        val results = new ArrayList<AnnotationScanner.ScannerResult<?,?>>();
+        perAnnotation(Fixtures.Target.class, annotations, results);
+        return results;
+    }
+
+    /**
+     * The member matching of AnnotationScanner before it was reworked, as a baseline
+     */
+    private static void perAnnotation(Class<?> clazz, Set<Class<? extends Annotation>> annotations,
+                                      Collection<AnnotationScanner.ScannerResult<?,?>> results) {
+        for (val annotationClass: annotations) {
+            val allMethods = new HashSet<Method>();
+            allMethods.addAll(asList(clazz.getMethods()));
+            allMethods.addAll(asList(clazz.getDeclaredMethods()));
+
+            for (val method: allMethods) {
+                val annotationInstance = method.getAnnotation(annotationClass);
+                if (annotationInstance != null)
+                    results.add(new AnnotationScanner.ScannerResult<>(clazz, method, annotationInstance));
+            }
+        }
+
+        for (val annotationClass: annotations) {
+            val allFields = new HashSet<Field>();
+            allFields.addAll(asList(clazz.getFields()));
+            allFields.addAll(asList(clazz.getDeclaredFields()));
+
+            for (val field : allFields) {
+                val annotationInstance = field.getAnnotation(annotationClass);
+                if (annotationInstance != null)
+                    results.add(new AnnotationScanner.ScannerResult<>(clazz, field, annotationInstance));
+            }
+        }
+
+        for (val annotationClass: annotations) {
+            val allConstructors = new HashSet<Constructor<?>>();
+            allConstructors.addAll(asList(clazz.getConstructors()));
+            allConstructors.addAll(asList(clazz.getDeclaredConstructors()));
+
+            for (val constructor: allConstructors) {
+                val annotationInstance = constructor.getAnnotation(annotationClass);
+                if (annotationInstance != null)
+                    results.add(new AnnotationScanner.ScannerResult<>(clazz, constructor, annotationInstance));
+            }
+        }
+    }
+}
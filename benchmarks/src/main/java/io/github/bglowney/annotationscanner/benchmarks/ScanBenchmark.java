@@ -0,0 +1,94 @@
+package io.github.bglowney.annotationscanner.benchmarks;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.bglowney.annotationscanner.benchmarks.SyntheticClasspath.TARGET_PACKAGE;
+
+/**
+ * Measures scanning a generated classpath root for classes annotated with {@link Marker}, reporting throughput and
+ * the distribution of scan times. Run with "-prof gc" to also report allocation rates, and restrict the parameters
+ * with "-p", for example
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar ScanBenchmark -prof gc -p layout=FAT_JAR -p classCount=10000
+ * </pre>
+ *
+ * A new class loader is created for every invocation, so each scan loads its classes from scratch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"DIRECTORY", "JAR", "FAT_JAR"})
+    Layout layout;
+
+    @Param({"1000", "10000", "100000"})
+    int classCount;
+
+    @Param({"0.01", "0.1", "1"})
+    double annotationDensity;
+
+    @Param({"false", "true"})
+    boolean classFileFiltering;
+
+    private Path directory;
+    private URL root;
+    private URLClassLoader classLoader;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("annotation-scanner-benchmark");
+        root = SyntheticClasspath.generate(directory, layout, classCount, annotationDensity).toUri().toURL();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        SyntheticClasspath.delete(directory);
+    }
+
+    @Setup(Level.Invocation)
+    public void newClassLoader() {
+        classLoader = new URLClassLoader(new URL[] {root}, ScanBenchmark.class.getClassLoader());
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @Benchmark
+    public Set<AnnotationScanner.ScannerResult<?,? extends Annotation>> scan() {
+        return AnnotationScanner.of(TARGET_PACKAGE)
+            .withClassLoader(classLoader)
+            .withTypeAnnotations(Marker.class)
+            .withClassFileFiltering(classFileFiltering)
+            .scan();
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.bglowney.annotationscanner.benchmarks;
+
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Generates classpath roots of empty classes, some of which are annotated with {@link Marker}. Class files are
+ * written directly rather than compiled, so that roots of hundreds of thousands of classes can be generated quickly
+ */
+final class SyntheticClasspath {
+
+    static final String TARGET_PACKAGE = "io.github.bglowney.synthetic.target";
+
+    /**
+     * The number of packages of a fat jar, one of which is the target package
+     */
+    static final int FAT_JAR_PACKAGES = 100;
+
+    private SyntheticClasspath() {}
+
+    /**
+     * @param directory - an empty directory to generate the root in
+     * @param layout - the kind of root to generate
+     * @param classCount - the number of classes in the root
+     * @param annotationDensity - the fraction of classes annotated with {@link Marker}, between 0 and 1
+     * @return the generated directory or jar
+     */
+    static Path generate(Path directory, Layout layout, int classCount, double annotationDensity) throws IOException {
+        val annotateEvery = annotationDensity <= 0 ? Integer.MAX_VALUE : (int) Math.round(1 / annotationDensity);
+        val packages = layout == Layout.FAT_JAR ? FAT_JAR_PACKAGES : 1;
+
+        if (layout == Layout.DIRECTORY) {
+            val root = Files.createDirectories(directory.resolve("classes"));
+            for (int i = 0; i < classCount; i++) {
+                val file = root.resolve(resourceName(className(i, packages)));
+                Files.createDirectories(file.getParent());
+                Files.write(file, classFile(className(i, packages), i % annotateEvery == 0));
+            }
+            return root;
+        }
+
+        val jar = directory.resolve("classes.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            val directories = new HashSet<String>();
+            for (int i = 0; i < classCount; i++) {
+                val resourceName = resourceName(className(i, packages));
+                for (int j = resourceName.indexOf('/'); j >= 0; j = resourceName.indexOf('/', j + 1)) {
+                    if (directories.add(resourceName.substring(0, j + 1))) {
+                        out.putNextEntry(new ZipEntry(resourceName.substring(0, j + 1)));
+                        out.closeEntry();
+                    }
+                }
+                out.putNextEntry(new ZipEntry(resourceName));
+                out.write(classFile(className(i, packages), i % annotateEvery == 0));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    /**
+     * Classes are spread evenly over the packages, the first of which is the target package
+     */
+    private static String className(int index, int packages) {
+        val packageIndex = index % packages;
+        val packageName = packageIndex == 0 ? TARGET_PACKAGE : String.format("io.github.bglowney.synthetic.p%03d", packageIndex);
+        return String.format("%s.C%06d", packageName, index);
+    }
+
+    private static String resourceName(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+
+    /**
+     * A public class extending Object with no members, optionally annotated with {@link Marker}
+     */
+    static byte[] classFile(String className, boolean annotated) throws IOException {
+        val bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+
+            out.writeShort(7);
+            out.writeByte(1);
+            out.writeUTF(className.replace('.', '/'));
+            out.writeByte(7);
+            out.writeShort(1);
+            out.writeByte(1);
+            out.writeUTF("java/lang/Object");
+            out.writeByte(7);
+            out.writeShort(3);
+            out.writeByte(1);
+            out.writeUTF("RuntimeVisibleAnnotations");
+            out.writeByte(1);
+            out.writeUTF("L" + Marker.class.getName().replace('.', '/') + ";");
+
+            // public super, this class, superclass, no interfaces, fields or methods
+            out.writeShort(0x21);
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(0);
+
+            if (annotated) {
+                out.writeShort(1);
+                out.writeShort(5);
+                out.writeInt(6);
+                out.writeShort(1);
+                out.writeShort(6);
+                out.writeShort(0);
+            } else {
+                out.writeShort(0);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static void delete(Path path) throws IOException {
+        if (!Files.exists(path))
+            return;
+        Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) throws IOException {
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
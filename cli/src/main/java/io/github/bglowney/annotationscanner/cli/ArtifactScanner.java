@@ -0,0 +1,151 @@
+package io.github.bglowney.annotationscanner.cli;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.AnnotationDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileReader;
+import lombok.Getter;
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Matches the class files of a single jar or class directory against annotation names. Class files are read with
+ * {@link ClassFileReader} rather than loaded, so the classes they depend on need not be available
+ */
+final class ArtifactScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final Set<String> packages;
+    private final boolean includeSubpackages;
+    private final Set<String> annotationNames;
+
+    /**
+     * @param packages - the packages to scan, or an empty set to scan every package
+     * @param includeSubpackages - true if the subpackages of the packages should also be scanned
+     * @param annotationNames - the binary names of the annotations to find, or an empty set to find every annotation
+     */
+    ArtifactScanner(Set<String> packages, boolean includeSubpackages, Set<String> annotationNames) {
+        this.packages = packages;
+        this.includeSubpackages = includeSubpackages;
+        this.annotationNames = annotationNames;
+    }
+
+    /**
+     * The matches and counters of a single input
+     */
+    @Getter
+    static class Result {
+        private final String source;
+        private final List<Match> matches = new ArrayList<>();
+        private long classes;
+        private long bytes;
+        private int unreadable;
+
+        Result(String source) {
+            this.source = source;
+        }
+    }
+
+    /**
+     * @param input - a jar or a directory of class files
+     * @return the matches of the input
+     */
+    Result scan(Path input) throws IOException {
+        val result = new Result(input.toString());
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> files = Files.walk(input)) {
+                for (val file : (Iterable<Path>) files::iterator) {
+                    val entryName = input.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                    if (Files.isRegularFile(file) && accepts(entryName))
+                        match(Files.readAllBytes(file), result);
+                }
+            }
+            return result;
+        }
+
+        try (ZipFile zip = new ZipFile(input.toFile())) {
+            val entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                val entry = entries.nextElement();
+                if (entry.isDirectory() || !accepts(entry.getName()))
+                    continue;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    match(readFully(in, entry.getSize()), result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Select class files by their entry name, so that the class files of other packages are not read at all
+     */
+    private boolean accepts(String entryName) {
+        if (!entryName.endsWith(CLASS_SUFFIX) || entryName.startsWith("META-INF/") || entryName.endsWith("module-info.class"))
+            return false;
+        if (packages.isEmpty())
+            return true;
+        val index = entryName.lastIndexOf('/');
+        val packageName = index < 0 ? "" : entryName.substring(0, index).replace('/', '.');
+        if (packages.contains(packageName))
+            return true;
+        if (includeSubpackages) {
+            for (val candidate : packages) {
+                if (packageName.startsWith(candidate + "."))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private void match(byte[] bytes, Result result) {
+        result.classes++;
+        result.bytes += bytes.length;
+        final ClassFileDescriptor classFile;
+        try {
+            classFile = ClassFileReader.read(bytes);
+        } catch (IOException e) {
+            result.unreadable++;
+            return;
+        }
+
+        val className = classFile.getClassName();
+        add(result, className, ElementType.TYPE, null, null, classFile.getAnnotations());
+        for (val field : classFile.getFields())
+            add(result, className, ElementType.FIELD, field.getName(), field.getDescriptor(), field.getAnnotations());
+        for (val method : classFile.getMethods()) {
+            if (method.isStaticInitializer())
+                continue;
+            val elementType = method.isConstructor() ? ElementType.CONSTRUCTOR : ElementType.METHOD;
+            add(result, className, elementType, method.getName(), method.getDescriptor(), method.getAnnotations());
+        }
+    }
+
+    private void add(Result result, String className, ElementType elementType, String memberName, String memberDescriptor,
+                     List<AnnotationDescriptor> annotations) {
+        for (val annotation : annotations) {
+            if (annotationNames.isEmpty() || annotationNames.contains(annotation.getTypeName()))
+                result.matches.add(new Match(result.source, className, elementType, memberName, memberDescriptor, annotation.getTypeName()));
+        }
+    }
+
+    private static byte[] readFully(InputStream in, long size) throws IOException {
+        val out = new ByteArrayOutputStream(size > 0 ? (int) size : 4096);
+        val buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.bglowney.annotationscanner.cli;
+
+/**
+ * The output formats of {@link Main}
+ */
+enum Format {
+    /**
+     * A JSON array with one object per match
+     */
+    JSON,
+    /**
+     * A CSV file with a header line and one line per match
+     */
+    CSV,
+    /**
+     * A compact binary index, see {@link ResultWriter}
+     */
+    BINARY
+}
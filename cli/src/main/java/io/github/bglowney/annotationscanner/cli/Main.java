@@ -0,0 +1,179 @@
+package io.github.bglowney.annotationscanner.cli;
+
+import lombok.val;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scans jars and class directories for annotations and writes the matches as a report or index, without loading any
+ * class or starting the application the classes belong to.
+ *
+ * <pre>
+ * java -jar annotation-scanner-cli.jar [options] &lt;jar or directory&gt;...
+ * </pre>
+ *
+ * Inputs are scanned in parallel, and the matches are written in the order of the inputs. A throughput summary is
+ * written to standard error, so that standard output can be redirected to a file
+ */
+public final class Main {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: java -jar annotation-scanner-cli.jar [options] <jar or directory>...",
+            "",
+            "Options:",
+            "  -package <name>      scan only this package, may be repeated (default: every package)",
+            "  -subpackages         also scan the subpackages of each -package",
+            "  -annotation <name>   match only this annotation by binary name, may be repeated (default: every annotation)",
+            "  -format <format>     json, csv or binary (default: json)",
+            "  -output <file>       write to this file rather than standard output",
+            "  -threads <n>         the number of inputs to scan at once (default: the number of processors)",
+            "  -quiet               do not write the summary to standard error");
+
+    private Main() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * @param args - the command line arguments
+     * @param out - receives the matches, unless an output file is given
+     * @param err - receives usage, errors and the summary
+     * @return the exit status, {@link #EXIT_OK} if every input was scanned
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Set<String> packages = new LinkedHashSet<>();
+        Set<String> annotationNames = new LinkedHashSet<>();
+        List<Path> inputs = new ArrayList<>();
+        boolean includeSubpackages = false;
+        boolean quiet = false;
+        Format format = Format.JSON;
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-package": packages.add(value(args, ++i)); break;
+                    case "-subpackages": includeSubpackages = true; break;
+                    case "-annotation": annotationNames.add(value(args, ++i)); break;
+                    case "-format": format = Format.valueOf(value(args, ++i).toUpperCase(Locale.ROOT)); break;
+                    case "-output": output = Paths.get(value(args, ++i)); break;
+                    case "-threads": threads = Integer.parseInt(value(args, ++i)); break;
+                    case "-quiet": quiet = true; break;
+                    case "-help":
+                        err.println(USAGE);
+                        return EXIT_OK;
+                    default:
+                        if (args[i].startsWith("-"))
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        inputs.add(Paths.get(args[i]));
+                }
+            }
+            if (inputs.isEmpty())
+                throw new IllegalArgumentException("No jar or directory to scan");
+            if (threads < 1)
+                throw new IllegalArgumentException("-threads must be at least 1");
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        for (val input : inputs) {
+            if (!Files.exists(input)) {
+                err.println("No such jar or directory: " + input);
+                return EXIT_USAGE;
+            }
+        }
+
+        val scanner = new ArtifactScanner(packages, includeSubpackages, annotationNames);
+        val start = System.nanoTime();
+        val results = new ArrayList<ArtifactScanner.Result>();
+        int status = EXIT_OK;
+        val pool = Executors.newFixedThreadPool(Math.min(threads, inputs.size()));
+        try {
+            val futures = new ArrayList<Future<ArtifactScanner.Result>>();
+            for (val input : inputs)
+                futures.add(pool.submit(() -> scanner.scan(input)));
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    err.println("Could not scan " + inputs.get(i) + ": " + e.getCause());
+                    status = EXIT_FAILED;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    err.println("Interrupted");
+                    return EXIT_FAILED;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        val elapsed = System.nanoTime() - start;
+
+        val matches = new ArrayList<Match>();
+        for (val result : results)
+            matches.addAll(result.getMatches());
+        try {
+            if (output == null) {
+                ResultWriter.write(format, matches, out);
+                out.flush();
+            } else {
+                try (OutputStream file = new FileOutputStream(output.toFile())) {
+                    ResultWriter.write(format, matches, file);
+                }
+            }
+        } catch (IOException e) {
+            err.println("Could not write " + (output == null ? "the results" : output) + ": " + e);
+            return EXIT_FAILED;
+        }
+
+        if (!quiet)
+            summarize(results, matches.size(), elapsed, err);
+        return status;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length)
+            throw new IllegalArgumentException(args[index - 1] + " requires a value");
+        return args[index];
+    }
+
+    private static void summarize(List<ArtifactScanner.Result> results, int matches, long elapsed, PrintStream err) {
+        long classes = 0;
+        long bytes = 0;
+        int unreadable = 0;
+        for (val result : results) {
+            classes += result.getClasses();
+            bytes += result.getBytes();
+            unreadable += result.getUnreadable();
+        }
+        val seconds = Math.max(elapsed, 1) / 1e9;
+        val megabytes = bytes / (1024.0 * 1024.0);
+        err.println(String.format(Locale.ROOT, "Scanned %d classes (%.1f MB) in %d inputs in %.3f s: %.0f classes/s, %.1f MB/s, %d matches",
+                classes, megabytes, results.size(), seconds, classes / seconds, megabytes / seconds, matches));
+        if (unreadable > 0)
+            err.println(unreadable + " class files could not be read");
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.bglowney.annotationscanner.cli;
+
+import lombok.Value;
+
+import java.lang.annotation.ElementType;
+
+/**
+ * An annotation found on a class or member of an input. For results of type {@link ElementType#TYPE} the member name
+ * and descriptor are null
+ */
+@Value
+class Match {
+    String source;
+    String className;
+    ElementType elementType;
+    String memberName;
+    String memberDescriptor;
+    String annotationTypeName;
+}
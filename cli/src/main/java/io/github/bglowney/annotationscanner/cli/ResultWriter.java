@@ -0,0 +1,173 @@
+package io.github.bglowney.annotationscanner.cli;
+
+import lombok.val;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.annotation.ElementType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes matches as a JSON report, a CSV report or a compact binary index.
+ *
+ * The binary index starts with {@link #BINARY_MAGIC}, followed by a table of the distinct strings of the matches and
+ * then one record per match, which refers to its strings by their position in the table. Since the source, class and
+ * annotation names repeat across matches, the index is much smaller than the reports and is quick to read back with
+ * {@link #readBinary(InputStream)}
+ */
+final class ResultWriter {
+
+    static final int BINARY_MAGIC = 0x41534331;
+
+    private static final String[] COLUMNS = {"source", "class", "element", "member", "descriptor", "annotation"};
+
+    private ResultWriter() {
+    }
+
+    static void write(Format format, List<Match> matches, OutputStream out) throws IOException {
+        switch (format) {
+            case JSON: writeJson(matches, out); break;
+            case CSV: writeCsv(matches, out); break;
+            default: writeBinary(matches, out);
+        }
+    }
+
+    private static String[] fields(Match match) {
+        return new String[] {match.getSource(), match.getClassName(), match.getElementType().name(),
+                match.getMemberName(), match.getMemberDescriptor(), match.getAnnotationTypeName()};
+    }
+
+    static void writeJson(List<Match> matches, OutputStream out) {
+        val writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.print('[');
+        for (int i = 0; i < matches.size(); i++) {
+            writer.print(i == 0 ? "\n  {" : ",\n  {");
+            val fields = fields(matches.get(i));
+            for (int j = 0; j < COLUMNS.length; j++) {
+                if (j > 0)
+                    writer.print(", ");
+                writer.print('"');
+                writer.print(COLUMNS[j]);
+                writer.print("\": ");
+                writer.print(fields[j] == null ? "null" : jsonString(fields[j]));
+            }
+            writer.print('}');
+        }
+        writer.print(matches.isEmpty() ? "]\n" : "\n]\n");
+        writer.flush();
+    }
+
+    private static String jsonString(String value) {
+        val builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            val c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                builder.append('\\').append(c);
+            else if (c < 0x20)
+                builder.append(String.format("\\u%04x", (int) c));
+            else
+                builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+
+    static void writeCsv(List<Match> matches, OutputStream out) {
+        val writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.print(String.join(",", COLUMNS));
+        writer.print('\n');
+        for (val match : matches) {
+            val fields = fields(match);
+            for (int j = 0; j < fields.length; j++) {
+                if (j > 0)
+                    writer.print(',');
+                if (fields[j] != null)
+                    writer.print(csvString(fields[j]));
+            }
+            writer.print('\n');
+        }
+        writer.flush();
+    }
+
+    private static String csvString(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    static void writeBinary(List<Match> matches, OutputStream out) throws IOException {
+        val strings = new ArrayList<String>();
+        val indexes = new HashMap<String, Integer>();
+        val records = new int[matches.size()][];
+        for (int i = 0; i < matches.size(); i++) {
+            val fields = fields(matches.get(i));
+            val record = new int[fields.length];
+            for (int j = 0; j < fields.length; j++)
+                record[j] = j == 2 ? matches.get(i).getElementType().ordinal() : intern(fields[j], strings, indexes);
+            records[i] = record;
+        }
+
+        val data = new DataOutputStream(out);
+        data.writeInt(BINARY_MAGIC);
+        data.writeInt(strings.size());
+        for (val string : strings)
+            data.writeUTF(string);
+        data.writeInt(records.length);
+        for (val record : records) {
+            for (val value : record)
+                data.writeInt(value);
+        }
+        data.flush();
+    }
+
+    private static int intern(String value, List<String> strings, Map<String, Integer> indexes) {
+        if (value == null)
+            return -1;
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            indexes.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param in - a binary index, as written by {@link #writeBinary(List, OutputStream)}
+     * @return the matches of the index
+     */
+    static List<Match> readBinary(InputStream in) throws IOException {
+        val data = new DataInputStream(in);
+        if (data.readInt() != BINARY_MAGIC)
+            throw new IOException("Not a binary index");
+        val strings = new String[data.readInt()];
+        for (int i = 0; i < strings.length; i++)
+            strings[i] = data.readUTF();
+
+        val count = data.readInt();
+        val matches = new ArrayList<Match>(count);
+        val elementTypes = ElementType.values();
+        for (int i = 0; i < count; i++) {
+            val source = string(strings, data.readInt());
+            val className = string(strings, data.readInt());
+            val elementType = elementTypes[data.readInt()];
+            val memberName = string(strings, data.readInt());
+            val memberDescriptor = string(strings, data.readInt());
+            val annotationTypeName = string(strings, data.readInt());
+            matches.add(new Match(source, className, elementType, memberName, memberDescriptor, annotationTypeName));
+        }
+        return matches;
+    }
+
+    private static String string(String[] strings, int index) {
+        return index < 0 ? null : strings[index];
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.bglowney.annotationscanner.cli;
+
+import io.github.bglowney.annotationscanner.cli.fixture.MarkedClass;
+import io.github.bglowney.annotationscanner.cli.fixture.Marker;
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.annotation.ElementType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MainTest {
+
+    private static final String FIXTURE_PACKAGE = MarkedClass.class.getPackage().getName();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return Main.run(args, new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private static Path classesDirectory() throws Exception {
+        return Paths.get(MarkedClass.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private Path fixtureJar() throws Exception {
+        val jar = folder.newFile("fixture.jar").toPath();
+        val resourceName = MarkedClass.class.getName().replace('.', '/') + ".class";
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar.toFile()))) {
+            zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zip.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry(resourceName));
+            zip.write(Files.readAllBytes(classesDirectory().resolve(resourceName)));
+        }
+        return jar;
+    }
+
+    @Test
+    public void testCsvReportOfDirectory() throws Exception {
+        val status = run("-package", FIXTURE_PACKAGE, "-annotation", Marker.class.getName(), "-format", "csv",
+                classesDirectory().toString());
+        assertEquals(Main.EXIT_OK, status);
+
+        val lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals("source,class,element,member,descriptor,annotation", lines[0]);
+        val source = classesDirectory().toString();
+        val className = MarkedClass.class.getName();
+        val annotation = Marker.class.getName();
+        assertEquals(new HashSet<>(asList(
+                source + "," + className + ",TYPE,,," + annotation,
+                source + "," + className + ",FIELD,field,Ljava/lang/String;," + annotation,
+                source + "," + className + ",CONSTRUCTOR,<init>,()V," + annotation,
+                source + "," + className + ",METHOD,method,(Ljava/lang/String;)V," + annotation)),
+                new HashSet<>(asList(lines).subList(1, lines.length)));
+        assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).startsWith("Scanned 2 classes"));
+    }
+
+    @Test
+    public void testJsonReportOfJar() throws Exception {
+        val jar = fixtureJar();
+        val status = run("-annotation", Deprecated.class.getName(), "-quiet", jar.toString());
+        assertEquals(Main.EXIT_OK, status);
+
+        val json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("[\n  {\"source\": \"" + jar + "\", \"class\": \"" + MarkedClass.class.getName()
+                + "\", \"element\": \"METHOD\", \"member\": \"unmarked\", \"descriptor\": \"()V\", \"annotation\": \"java.lang.Deprecated\"}\n]\n", json);
+        assertEquals(0, err.size());
+    }
+
+    @Test
+    public void testBinaryIndexRoundTrip() throws Exception {
+        val jar = fixtureJar();
+        val index = folder.getRoot().toPath().resolve("index.bin");
+        val directory = classesDirectory().toString();
+        val status = run("-format", "binary", "-output", index.toString(), "-threads", "2", jar.toString(), directory);
+        assertEquals(Main.EXIT_OK, status);
+        assertEquals(0, out.size());
+
+        final List<Match> matches;
+        try (InputStream in = new FileInputStream(index.toFile())) {
+            matches = ResultWriter.readBinary(in);
+        }
+        // every annotation is matched when none is given, and the matches of the jar come first
+        assertEquals(new Match(jar.toString(), MarkedClass.class.getName(), ElementType.TYPE, null, null, Marker.class.getName()),
+                matches.get(0));
+        assertEquals(5, matches.stream().filter(match -> match.getSource().equals(jar.toString())).count());
+        assertTrue(matches.stream().anyMatch(match -> match.getSource().equals(directory)
+                && match.getClassName().equals(MainTest.class.getName()) && match.getMemberName().equals("testBinaryIndexRoundTrip")));
+    }
+
+    @Test
+    public void testUsageErrors() {
+        assertEquals(Main.EXIT_USAGE, run("-format", "yaml", "app.jar"));
+        assertEquals(Main.EXIT_USAGE, run("-package"));
+        assertEquals(Main.EXIT_USAGE, run("-quiet"));
+        assertEquals(Main.EXIT_USAGE, run(folder.getRoot().toPath().resolve("missing.jar").toString()));
+        assertEquals(0, out.size());
+    }
+}
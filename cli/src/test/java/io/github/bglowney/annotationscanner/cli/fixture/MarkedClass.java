@@ -0,0 +1,20 @@
+package io.github.bglowney.annotationscanner.cli.fixture;
+
+@Marker
+public class MarkedClass {
+
+    @Marker
+    private String field;
+
+    @Marker
+    public MarkedClass() {
+    }
+
+    @Marker
+    public void method(String value) {
+    }
+
+    @Deprecated
+    public void unmarked() {
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.bglowney.annotationscanner.cli.fixture;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Marker {
+}
@@ -0,0 +1,273 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.AnnotationDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.val;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An annotation processor which records every compiled class, its members and their runtime visible annotations in
+ * the resource "META-INF/annotation-scanner/index". An {@link AnnotationScanner} invoked with
+ * {@link AnnotationScanner#withBuildIndexes(boolean)} answers queries for the classpath roots containing this
+ * resource from the index, without enumerating or reflecting over their classes.
+ *
+ * The processor is not registered as a service, so it must be enabled explicitly, for example
+ *
+ * <pre>
+ *     &lt;plugin&gt;
+ *         &lt;groupId&gt;org.apache.maven.plugins&lt;/groupId&gt;
+ *         &lt;artifactId&gt;maven-compiler-plugin&lt;/artifactId&gt;
+ *         &lt;configuration&gt;
+ *             &lt;annotationProcessors&gt;
+ *                 &lt;annotationProcessor&gt;io.github.bglowney.annotationscanner.AnnotationIndexProcessor&lt;/annotationProcessor&gt;
+ *             &lt;/annotationProcessors&gt;
+ *         &lt;/configuration&gt;
+ *     &lt;/plugin&gt;
+ * </pre>
+ *
+ * The index only describes the classes compiled together with it, so it should not be used with incremental
+ * compilation which only recompiles some of the classes of a root
+ */
+@SupportedAnnotationTypes("*")
+public class AnnotationIndexProcessor extends AbstractProcessor {
+
+    private static final int ACC_BRIDGE = 0x0040;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private final Map<String, ClassFileDescriptor> classFiles = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (val element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement)
+                addType((TypeElement) element);
+        }
+
+        if (roundEnv.processingOver() && !classFiles.isEmpty())
+            writeIndex();
+
+        // never claim annotations, other processors may be interested in them
+        return false;
+    }
+
+    private void addType(TypeElement type) {
+        val className = binaryName(type);
+        val fields = new ArrayList<MemberDescriptor>();
+        val methods = new ArrayList<MemberDescriptor>();
+
+        for (val enclosed : type.getEnclosedElements()) {
+            switch (enclosed.getKind()) {
+                case FIELD:
+                case ENUM_CONSTANT:
+                    val field = (VariableElement) enclosed;
+                    fields.add(new MemberDescriptor(accessFlags(field), field.getSimpleName().toString(),
+                        descriptor(field.asType()), runtimeAnnotations(field)));
+                    break;
+                case METHOD:
+                case CONSTRUCTOR:
+                    val method = (ExecutableElement) enclosed;
+                    val isConstructor = enclosed.getKind() == ElementKind.CONSTRUCTOR;
+                    methods.add(new MemberDescriptor(accessFlags(method),
+                        isConstructor ? ClassFileDescriptor.CONSTRUCTOR_NAME : method.getSimpleName().toString(),
+                        methodDescriptor(type, method, isConstructor), runtimeAnnotations(method)));
+                    break;
+                case CLASS:
+                case INTERFACE:
+                case ENUM:
+                case ANNOTATION_TYPE:
+                    addType((TypeElement) enclosed);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        addBridges(type, methods);
+
+        val superclass = type.getSuperclass().getKind() == TypeKind.NONE ? null : binaryName(type.getSuperclass());
+        val interfaceNames = new ArrayList<String>();
+        for (val interfaceType : type.getInterfaces())
+            interfaceNames.add(binaryName(interfaceType));
+
+        classFiles.put(className, new ClassFileDescriptor(className, accessFlags(type), superclass, interfaceNames,
+            runtimeAnnotations(type), fields, methods));
+    }
+
+    private void writeIndex() {
+        try {
+            val resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", BuildIndex.RESOURCE);
+            try (Writer out = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                BuildIndex.write(classFiles.values(), out);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + BuildIndex.RESOURCE + ": " + e);
+        }
+    }
+
+    /**
+     * Add the bridge methods the compiler generates for the methods of a class which override a method whose erased
+     * descriptor differs, such as an implementation of a generic interface method or an override with a covariant
+     * return type. The compiler copies the annotations of the method to its bridges, which reflection then reports
+     * as declared methods of the class. Bridges the compiler adds for methods a class inherits rather than declares
+     * are not recorded
+     */
+    private void addBridges(TypeElement type, List<MemberDescriptor> methods) {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.ENUM)
+            return;
+        val descriptors = new HashSet<String>();
+        for (val method : methods)
+            descriptors.add(method.getName() + method.getDescriptor());
+
+        val supertypes = supertypesOf(type);
+        for (val method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.STATIC) || method.getModifiers().contains(Modifier.PRIVATE))
+                continue;
+            val name = method.getSimpleName().toString();
+            val flags = accessFlags(method) & (java.lang.reflect.Modifier.PUBLIC | java.lang.reflect.Modifier.PROTECTED);
+            for (val supertype : supertypes) {
+                for (val overridden : ElementFilter.methodsIn(supertype.getEnclosedElements())) {
+                    if (!overridden.getSimpleName().contentEquals(name) || !processingEnv.getElementUtils().overrides(method, overridden, type))
+                        continue;
+                    val descriptor = methodDescriptor(supertype, overridden, false);
+                    if (descriptors.add(name + descriptor))
+                        methods.add(new MemberDescriptor(flags | ACC_BRIDGE | ACC_SYNTHETIC, name, descriptor, runtimeAnnotations(method)));
+                }
+            }
+        }
+    }
+
+    private Set<TypeElement> supertypesOf(TypeElement type) {
+        val supertypes = new LinkedHashSet<TypeElement>();
+        val queue = new ArrayDeque<TypeMirror>(processingEnv.getTypeUtils().directSupertypes(type.asType()));
+        while (!queue.isEmpty()) {
+            val supertype = queue.poll();
+            if (supertype.getKind() == TypeKind.DECLARED && supertypes.add((TypeElement) ((DeclaredType) supertype).asElement()))
+                queue.addAll(processingEnv.getTypeUtils().directSupertypes(supertype));
+        }
+        return supertypes;
+    }
+
+    private List<AnnotationDescriptor> runtimeAnnotations(Element element) {
+        val annotations = new ArrayList<AnnotationDescriptor>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            val annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            val retention = annotationType.getAnnotation(Retention.class);
+            if (retention != null && retention.value() == RetentionPolicy.RUNTIME)
+                annotations.add(AnnotationDescriptor.withoutValues(binaryName(annotationType)));
+        }
+        return annotations;
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private String binaryName(TypeMirror type) {
+        return binaryName((TypeElement) ((DeclaredType) type).asElement());
+    }
+
+    /**
+     * The descriptor of a constructor includes the parameters the compiler adds implicitly: the enclosing instance
+     * of an inner class, or the name and ordinal of an enum constant
+     */
+    private String methodDescriptor(TypeElement type, ExecutableElement method, boolean isConstructor) {
+        val descriptor = new StringBuilder("(");
+        if (isConstructor && type.getKind() == ElementKind.ENUM)
+            descriptor.append("Ljava/lang/String;I");
+        else if (isConstructor && type.getNestingKind() == NestingKind.MEMBER && type.getKind() == ElementKind.CLASS
+            && !type.getModifiers().contains(Modifier.STATIC))
+            descriptor.append(descriptor(type.getEnclosingElement().asType()));
+
+        for (val parameter : method.getParameters())
+            descriptor.append(descriptor(parameter.asType()));
+        descriptor.append(')');
+        descriptor.append(isConstructor ? "V" : descriptor(method.getReturnType()));
+        return descriptor.toString();
+    }
+
+    private String descriptor(TypeMirror type) {
+        val erased = processingEnv.getTypeUtils().erasure(type);
+        switch (erased.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case CHAR: return "C";
+            case SHORT: return "S";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case VOID: return "V";
+            case ARRAY: return "[" + descriptor(((ArrayType) erased).getComponentType());
+            case DECLARED: return "L" + binaryName(erased).replace('.', '/') + ";";
+            default: throw new IllegalArgumentException("Unsupported type " + type);
+        }
+    }
+
+    private static int accessFlags(Element element) {
+        int flags = 0;
+        val modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) flags |= java.lang.reflect.Modifier.PUBLIC;
+        if (modifiers.contains(Modifier.PRIVATE)) flags |= java.lang.reflect.Modifier.PRIVATE;
+        if (modifiers.contains(Modifier.PROTECTED)) flags |= java.lang.reflect.Modifier.PROTECTED;
+        if (modifiers.contains(Modifier.STATIC)) flags |= java.lang.reflect.Modifier.STATIC;
+        if (modifiers.contains(Modifier.FINAL)) flags |= java.lang.reflect.Modifier.FINAL;
+        if (modifiers.contains(Modifier.ABSTRACT)) flags |= java.lang.reflect.Modifier.ABSTRACT;
+
+        switch (element.getKind()) {
+            case INTERFACE:
+                flags |= java.lang.reflect.Modifier.INTERFACE | java.lang.reflect.Modifier.ABSTRACT;
+                break;
+            case ANNOTATION_TYPE:
+                flags |= java.lang.reflect.Modifier.INTERFACE | java.lang.reflect.Modifier.ABSTRACT | 0x2000;
+                break;
+            case ENUM:
+                flags |= 0x4000;
+                break;
+            default:
+                break;
+        }
+        // members of interfaces are implicitly public
+        if (element.getEnclosingElement() != null && element.getEnclosingElement().getKind().isInterface()
+            && !modifiers.contains(Modifier.PRIVATE))
+            flags |= java.lang.reflect.Modifier.PUBLIC;
+        return flags;
+    }
+}
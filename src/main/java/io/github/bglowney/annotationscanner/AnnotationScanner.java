@@ -1,36 +1,66 @@
 package io.github.bglowney.annotationscanner;
 
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.SneakyThrows;
+import lombok.ToString;
 import lombok.val;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.net.URLDecoder;
-import java.util.Enumeration;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Arrays.asList;
 
 /**
- * A utility class for scanning annotated types on the classpath
+ * A utility class for scanning annotated types on the classpath.
+ *
+ * The state of each scan is held by a copy of the AnnotationScanner made when the scan starts, so scans of the same
+ * AnnotationScanner may overlap, for example from several threads or while a {@link ScanWatcher} is watching. The
+ * search criteria and settings should not be changed while a scan is running
  */
-public class AnnotationScanner {
+public class AnnotationScanner implements Cloneable {
 
     protected boolean includePackageContentsByDefault = false;
     protected final Set<String> packages;
@@ -39,7 +69,35 @@ public class AnnotationScanner {
     protected final Set<Class<? extends Annotation>> methodAnnotations = new HashSet<>();
     protected final Set<Class<? extends Annotation>> fieldAnnotations = new HashSet<>();
     protected final Set<Class<? extends Annotation>> constructorAnnotations = new HashSet<>();
+    protected final List<ElementQuery> queries = new ArrayList<>();
     protected ClassLoader classLoaderToUse;
+    protected final List<ClassLoader> classLoaders = new ArrayList<>();
+    protected boolean classFileFiltering = false;
+    protected boolean includeSubpackages = false;
+    protected Path indexFile;
+    protected boolean buildIndexes = false;
+    protected int parallelism = 1;
+    protected ExecutorService executor;
+    protected ScanCache cache;
+    protected final List<ScanListener> listeners = new ArrayList<>();
+    protected boolean initializeClasses = true;
+    protected boolean metaAnnotations = false;
+    protected boolean inheritedMethodAnnotations = false;
+    protected LinkageErrorPolicy linkageErrorPolicy = LinkageErrorPolicy.FAIL;
+    protected long memoryLimit = 0;
+    protected boolean throwawayClassLoaders = false;
+    protected boolean lazyMemberReflection = false;
+    private ReflectiveMatcher reflectiveMatcher;
+    private ClassFileMatcher classFileMatcher;
+    private ScanMetrics metrics;
+    private Queue<ScanFailure> failures;
+    private Semaphore outstandingBatches;
+    private Set<String> criteriaClassNames;
+
+    /**
+     * The number of candidates loaded by a throwaway class loader before it is replaced by a new one
+     */
+    private static final int THROWAWAY_CLASSES = 1024;
 
     @Data
     @EqualsAndHashCode
@@ -65,6 +123,21 @@ public class AnnotationScanner {
         return this;
     }
 
+    /**
+     * Indicate if the subpackages of the packages to scan should also be scanned. By default only the classes
+     * directly within each package are scanned
+     *
+     * Directory roots are walked recursively and jar roots are matched by package prefix, each root being visited
+     * once for all of the packages it contains
+     *
+     * @param includeSubpackages - set to true if all subpackages should be scanned
+     * @return this AnnotationScanner for method chaining
+     */
+    public final AnnotationScanner includeSubpackages(boolean includeSubpackages) {
+        this.includeSubpackages = includeSubpackages;
+        return this;
+    }
+
     /**
      * Optionally set any type and annotation to scan for. Classes that both extend from this type
      * and include the supplied annotation will be returned as a match in the scanned results
@@ -134,6 +207,59 @@ public class AnnotationScanner {
         return this;
     }
 
+    /**
+     * Optionally add a query classes must match. Matching classes will be returned in the scanned results, holding
+     * the first annotation of the query present on the class, if any
+     *
+     * @see ScanQuery
+     *
+     * @param query - the query to scan for
+     * @return this AnnotationScanner for method chaining
+     */
+    public final AnnotationScanner withTypeQuery(ScanQuery query) {
+        queries.add(new ElementQuery(ElementType.TYPE, query));
+        return this;
+    }
+
+    /**
+     * Optionally add a query methods must match. Classes with at least one declared method matching the query will
+     * be returned as a match in the scanned results, once for each such method
+     *
+     * This generalizes {@link #annotatedMethodWithReturnType(Class, Class, Class)}: methods may be matched by any
+     * combination of annotations, annotation values, modifiers, names and return types
+     *
+     * @param query - the query to scan for
+     * @return this AnnotationScanner for method chaining
+     */
+    public final AnnotationScanner withMethodQuery(ScanQuery query) {
+        queries.add(new ElementQuery(ElementType.METHOD, query));
+        return this;
+    }
+
+    /**
+     * Optionally add a query fields must match. Classes with at least one declared field matching the query will be
+     * returned as a match in the scanned results, once for each such field
+     *
+     * @param query - the query to scan for
+     * @return this AnnotationScanner for method chaining
+     */
+    public final AnnotationScanner withFieldQuery(ScanQuery query) {
+        queries.add(new ElementQuery(ElementType.FIELD, query));
+        return this;
+    }
+
+    /**
+     * Optionally add a query constructors must match. Classes with at least one declared constructor matching the
+     * query will be returned as a match in the scanned results, once for each such constructor
+     *
+     * @param query - the query to scan for
+     * @return this AnnotationScanner for method chaining
+     */
+    public final AnnotationScanner withConstructorQuery(ScanQuery query) {
+        queries.add(new ElementQuery(ElementType.CONSTRUCTOR, query));
+        return this;
+    }
+
     /**
      * Optionally set the classloader to use for scanning classes. If this method is not set, then the Thread context class loader
      * will be used.
@@ -148,23 +274,292 @@ public class AnnotationScanner {
         return this;
     }
 
+    /**
+     * Optionally scan several class loaders at once, such as the class loader of each plugin of an application
+     * server, along with their parents. Roots shared by several class loaders, such as the jars of a common parent,
+     * are recognized by their canonical path and are listed and matched once, by the class loader which owns them,
+     * so the classes of a shared root are defined by, and reported once for, the shared class loader. The roots of
+     * different class loaders are scanned concurrently when scanning with multiple threads.
+     *
+     * The annotation types searched for should be visible to every class loader, usually through a common parent.
+     * Applies to {@link #scan()}, {@link #scan(Consumer)} and {@link #scanReport()}, which then take precedence over
+     * {@link #withClassLoader(ClassLoader)}. Index files and build time indexes are not used
+     *
+     * @param classLoaders - the class loaders to scan
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withClassLoaders(Collection<? extends ClassLoader> classLoaders) {
+        this.classLoaders.addAll(classLoaders);
+        return this;
+    }
+
+    /**
+     * @see #withClassLoaders(Collection)
+     *
+     * @param classLoaders - the class loaders to scan
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withClassLoaders(ClassLoader... classLoaders) {
+        return withClassLoaders(asList(classLoaders));
+    }
+
+    /**
+     * Optionally pre-filter candidate classes by reading their class files before loading them. When enabled, the
+     * RuntimeVisibleAnnotations of each class, its members and its supertypes are read directly from the .class
+     * resource and only classes which may match the search criteria are loaded and initialized via {@link Class#forName(String)}.
+     *
+     * Has no effect when {@link #includePackageContentByDefault(boolean)} is invoked with true, because every class
+     * in the package must then be loaded regardless. Always enabled when a {@link ScanQuery} is added, as with
+     * {@link #withMethodQuery(ScanQuery)}
+     *
+     * @see #scanDescriptors()
+     *
+     * @param classFileFiltering - set to true to pre-filter classes by their class files
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withClassFileFiltering(boolean classFileFiltering) {
+        this.classFileFiltering = classFileFiltering;
+        return this;
+    }
+
+    /**
+     * Optionally scan using multiple threads. Packages are enumerated concurrently and the enumerated classes are then
+     * loaded and matched concurrently on a {@link ForkJoinPool} with the given parallelism, which is shut down once
+     * the scan completes. The results are identical to those of a single threaded scan.
+     *
+     * A parallelism of 1, the default, scans on the calling thread
+     *
+     * @see #withExecutor(ExecutorService)
+     *
+     * @param parallelism - the number of threads to scan with
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Optionally scan using the threads of the supplied executor, in the same manner as {@link #withParallelism(int)}.
+     * The executor is not shut down by this AnnotationScanner. Tasks submitted to the executor must not be rejected,
+     * so a bounded executor should not also be used to invoke {@link #scan()}
+     *
+     * @param executor - the executor to scan with, or null to use {@link #withParallelism(int)}
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Optionally persist the results of each scan to an index file, and reuse the results recorded for any classpath
+     * root which has not changed since the file was written. Jar roots are considered unchanged if their size and
+     * modification time are unchanged, directory roots if the same class files exist with the same sizes and
+     * modification times. Only changed roots are rescanned, then the index file is rewritten.
+     *
+     * An index file is only reused by an AnnotationScanner with the same packages and search criteria. Reused results
+     * are materialized by loading only the matching classes, members and annotations
+     *
+     * @param indexFile - the file to read and write the index to, or null to scan without an index
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withIndexFile(Path indexFile) {
+        this.indexFile = indexFile;
+        return this;
+    }
+
+    /**
+     * Optionally answer queries from the indexes generated at build time by {@link AnnotationIndexProcessor}. Classpath
+     * roots containing a "META-INF/annotation-scanner/index" resource are not enumerated, instead their classes are
+     * matched from the index and only the matching classes are loaded. Roots without an index are scanned as usual
+     *
+     * @param buildIndexes - set to true to use build time indexes where available
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withBuildIndexes(boolean buildIndexes) {
+        this.buildIndexes = buildIndexes;
+        return this;
+    }
+
+    /**
+     * Optionally share the classes enumerated within each package and their class files with other AnnotationScanners
+     * through the supplied cache. Later scans of the same packages with the same class loader, whatever their search
+     * criteria, are then served from memory rather than re-enumerating the classpath.
+     *
+     * Cached class files are used to pre-filter classes as with {@link #withClassFileFiltering(boolean)}, so only the
+     * classes which may match are loaded and reflected over
+     *
+     * @param cache - the cache to share, or null to scan without a cache
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withCache(ScanCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Optionally receive callbacks as each root is enumerated and each class is loaded and matched, and once each scan
+     * completes with its {@link ScanStatistics}
+     *
+     * @see JfrScanListener
+     *
+     * @param listener - the listener to add
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withListener(ScanListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Optionally load classes without initializing them, so that scanning does not run their static initializers.
+     * By default every class scanned is initialized, as with {@link Class#forName(String)}. Classes which are not
+     * initialized by the scan are initialized as usual on first use
+     *
+     * @param initializeClasses - set to false to load classes without initializing them
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withClassInitialization(boolean initializeClasses) {
+        this.initializeClasses = initializeClasses;
+        return this;
+    }
+
+    /**
+     * Optionally tolerate classes which can not be loaded or reflected over, such as classes whose dependencies are
+     * missing from the classpath, or whose static initializer fails. By default the scan is aborted by the first
+     * {@link ClassNotFoundException}, {@link LinkageError} or {@link TypeNotPresentException}
+     *
+     * @see #scanReport()
+     *
+     * @param linkageErrorPolicy - what to do with classes which can not be scanned
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withLinkageErrorPolicy(LinkageErrorPolicy linkageErrorPolicy) {
+        if (linkageErrorPolicy == null)
+            throw new IllegalArgumentException("A linkage error policy is required");
+        this.linkageErrorPolicy = linkageErrorPolicy;
+        return this;
+    }
+
+    /**
+     * Optionally match annotations which are meta-annotated, directly or transitively, with a requested annotation,
+     * such as a stereotype annotation which is itself annotated with the requested annotation. The result of such a
+     * match holds the requested annotation as declared on the nearest annotation type, rather than the annotation
+     * present on the class or member.
+     *
+     * Classes can not be pre-filtered by their class files when matching meta-annotations, so
+     * {@link #withClassFileFiltering(boolean)} has no effect, and build time indexes are only used to enumerate classes
+     *
+     * @param metaAnnotations - set to true to match meta-annotations
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withMetaAnnotations(boolean metaAnnotations) {
+        this.metaAnnotations = metaAnnotations;
+        return this;
+    }
+
+    /**
+     * Optionally match methods which override or implement a method of a superclass or interface annotated with a
+     * requested method annotation, as if the annotation were present on the overriding method. An annotation present
+     * on the overriding method takes precedence over an annotation of the same type on an overridden method.
+     *
+     * As with {@link #withMetaAnnotations(boolean)}, classes can not then be pre-filtered by their class files
+     *
+     * @param inheritedMethodAnnotations - set to true to inherit the annotations of overridden methods
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withInheritedMethodAnnotations(boolean inheritedMethodAnnotations) {
+        this.inheritedMethodAnnotations = inheritedMethodAnnotations;
+        return this;
+    }
+
+    /**
+     * Optionally bound the memory a scan holds, for classpaths too large to keep every class in memory. Candidates
+     * are pre-filtered by their class files, as with {@link #withClassFileFiltering(boolean)}, and the least recently
+     * used class file descriptors are discarded once their estimated size exceeds the limit. When scanning with
+     * multiple threads only the next root is enumerated ahead of the root being matched, and the scanning threads
+     * wait for the consumer of {@link #scan(Consumer)} once a few batches of classes are pending, so a slow consumer
+     * holds back the scan rather than results piling up.
+     *
+     * Results are still collected in memory by {@link #scan()}, so {@link #scan(Consumer)} or {@link #scanStream()}
+     * should be used for bounded memory. See also {@link #withThrowawayClassLoaders(boolean)}
+     *
+     * @param memoryLimit - the estimated size in bytes of the class file descriptors to retain, or 0 for no limit
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withMemoryLimit(long memoryLimit) {
+        if (memoryLimit < 0)
+            throw new IllegalArgumentException("Memory limit must not be negative");
+        this.memoryLimit = memoryLimit;
+        return this;
+    }
+
+    /**
+     * Optionally load candidates in throwaway class loaders, which are discarded after matching a batch of classes,
+     * so that classes which turn out not to match can be unloaded. Only the classes of matches are then loaded by the
+     * class loader of the scan, and initialized if {@link #withClassInitialization(boolean)} allows it, while
+     * candidates are never initialized.
+     *
+     * The annotations and types of the search criteria are always loaded by the class loader of the scan. Applies to
+     * {@link #scan()}, {@link #scan(Consumer)} and {@link #scanReport()}
+     *
+     * @param throwawayClassLoaders - set to true to match candidates in throwaway class loaders
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withThrowawayClassLoaders(boolean throwawayClassLoaders) {
+        this.throwawayClassLoaders = throwawayClassLoaders;
+        return this;
+    }
+
+    /**
+     * Optionally match members by the member tables of class files rather than by reflection. The names, descriptors
+     * and annotations of the fields, methods and constructors of each candidate are read from its class file, and
+     * only the members which match are then resolved reflectively by name and parameter types, so
+     * {@link Class#getMethods()} and {@link Class#getDeclaredMethods()} are never called and classes with many
+     * unannotated members cost little more than parsing their class files. Classes without a match are not loaded.
+     *
+     * Classes are matched by reflection as usual when their class files, or those of their supertypes, can not be
+     * read, and when matching meta-annotations or inherited method annotations
+     *
+     * @param lazyMemberReflection - set to true to reflect over matching members only
+     * @return this AnnotationScanner for method chaining
+     */
+    public AnnotationScanner withLazyMemberReflection(boolean lazyMemberReflection) {
+        this.lazyMemberReflection = lazyMemberReflection;
+        return this;
+    }
+
     @Getter
-    @EqualsAndHashCode
+    @EqualsAndHashCode(exclude = "annotationSource")
     public static class ScannerResult<T,A extends Annotation> {
         private final Class<?> clazz;
         private final T annotatedElement;
         private final A annotation;
         private final boolean isMatch;
+        /**
+         * The element declaring the annotation when it is not present on the annotated element itself: the annotation
+         * type declaring a meta-annotation, or the overridden method declaring an inherited method annotation
+         */
+        @Getter(AccessLevel.NONE)
+        final AnnotatedElement annotationSource;
 
         public ScannerResult(Class<?> clazz, T annotatedElement, A annotation) {
             this(clazz, annotatedElement, annotation, true);
         }
 
         public ScannerResult(Class<?> clazz, T annotatedElement, A annotation, boolean isMatch) {
+            this(clazz, annotatedElement, annotation, isMatch, null);
+        }
+
+        ScannerResult(Class<?> clazz, T annotatedElement, A annotation, boolean isMatch, AnnotatedElement annotationSource) {
             this.clazz = clazz;
             this.annotatedElement = annotatedElement;
             this.annotation = annotation;
             this.isMatch = isMatch;
+            this.annotationSource = annotationSource;
         }
 
         /**
@@ -185,29 +580,48 @@ public class AnnotationScanner {
         }
     }
 
+    /**
+     * A scan result described by class file names and descriptors rather than by reflective objects. Returned by
+     * {@link AnnotationScanner#scanDescriptors()}
+     *
+     * For results of type {@link ElementType#TYPE} the member name and descriptor are null. For non matching results
+     * (see {@link AnnotationScanner#includePackageContentByDefault(boolean)}) the annotation type name is null
+     */
+    @Getter
+    @EqualsAndHashCode
+    @ToString
+    public static class DescriptorResult {
+        private final String className;
+        private final ElementType elementType;
+        private final String memberName;
+        private final String memberDescriptor;
+        private final String annotationTypeName;
+        private final boolean isMatch;
+
+        public DescriptorResult(String className, ElementType elementType, String memberName, String memberDescriptor,
+                                String annotationTypeName, boolean isMatch) {
+            this.className = className;
+            this.elementType = elementType;
+            this.memberName = memberName;
+            this.memberDescriptor = memberDescriptor;
+            this.annotationTypeName = annotationTypeName;
+            this.isMatch = isMatch;
+        }
+
+        /**
+         * @see ScannerResult#isMatch()
+         *
+         * @return true if this result represents a match
+         */
+        public boolean isMatch() {
+            return isMatch;
+        }
+    }
+
     protected AnnotationScanner(Set<String> packages) {
         this.packages = packages;
     }
 
-    /**
-     * If no class from a package has ever been loaded then that package will not be
-     * returned by the classloader
-     */
-    // TODO: find a way to scan all sub packages, this will require scanning all jars
-//    @SneakyThrows({NoSuchMethodException.class, IllegalAccessException.class, InvocationTargetException.class})
-//    protected Set<String> subPackages(String packaj) {
-//        val subPackages = new HashSet<String>();
-//        if (!(classLoaderToUse instanceof URLClassLoader)) {
-//            throw new IllegalStateException("Cannot scan for subpackages. Classloader is not an instance of URLClassloader");
-//        }
-//        URL[] urls = ((URLClassLoader) classLoaderToUse).getURLs();
-//        for (val p: Package.getPackages()) {
-//            if (!p.getName().equals(packaj) && p.getName().startsWith(packaj + "."))
-//                subPackages.add(p.getName());
-//        }
-//        return subPackages;
-//    }
-
     /**
      * Scan for results matching the criteria of this AnnotationScanner
      *
@@ -218,121 +632,1079 @@ public class AnnotationScanner {
      *
      * @return a Set containing the results (if any)
      */
-    @SneakyThrows({IOException.class, URISyntaxException.class, ClassNotFoundException.class})
     public Set<ScannerResult<?,? extends Annotation>> scan() {
-        if (this.classLoaderToUse == null)
-            this.classLoaderToUse = Thread.currentThread().getContextClassLoader();
-
-        val classNames = new HashSet<String>();
-
-        for (val packaj : packages) {
-            classNames.addAll(getClassNamesFromPackage(packaj));
-            // TODO: support scanning subpackages
-//            for (val subPackage: subPackages(packaj))
-//                classNames.addAll(getClassNamesFromPackage(subPackage));
-        }
+        val results = new HashSet<ScannerResult<?,? extends Annotation>>();
+        scan(results::add);
+        return results;
+    }
 
-        val results = new HashSet<ScannerResult<?,?>>();
-        for (val className : classNames) {
-            boolean matched = false;
-            val clazz = Class.forName(className, true, classLoaderToUse);
-
-            for (val annotatedType: annotatedTypes) {
-                val annotationInstance = clazz.getAnnotation(annotatedType.getAnnotation());
-                if (annotationInstance != null && annotatedType.getType().isAssignableFrom(clazz)) {
-                    results.add(new ScannerResult<>(clazz, clazz, annotationInstance));
-                    matched = true;
-                }
-            }
+    /**
+     * Scan for results matching the criteria of this AnnotationScanner, passing each result to the consumer as soon
+     * as its class has been matched rather than collecting every result first. Each root is matched as soon as it
+     * has been enumerated, and a class found in more than one root is only matched once.
+     *
+     * When scanning with multiple threads the consumer is invoked from the scanning threads, but never concurrently
+     *
+     * @see #scan()
+     *
+     * @param consumer - receives each result
+     * @return the statistics of the scan
+     */
+    public ScanStatistics scan(Consumer<? super ScannerResult<?,? extends Annotation>> consumer) {
+        return newScan().scanPrepared(consumer);
+    }
 
-            // scan for annotated types
-            for (val annotationClass: typeAnnotations) {
-                val annotationInstance = clazz.getAnnotation(annotationClass);
-                if (annotationInstance != null) {
-                    results.add(new ScannerResult<>(clazz, clazz, annotationInstance));
-                    matched = true;
-                }
-            }
-            // scan for annotated methods
-            for (val annotationClass: methodAnnotations) {
-                val allMethods = new HashSet<Method>();
-                allMethods.addAll(asList(clazz.getMethods()));
-                allMethods.addAll(asList(clazz.getDeclaredMethods()));
-
-                for (val method: allMethods) {
-                    val annotationInstance = method.getAnnotation(annotationClass);
-                    if (annotationInstance != null) {
-                        results.add(new ScannerResult<>(clazz, method, annotationInstance));
-                        matched = true;
-                    }
-                }
+    @SneakyThrows({IOException.class, URISyntaxException.class})
+    private ScanStatistics scanPrepared(Consumer<? super ScannerResult<?,? extends Annotation>> consumer) {
+        val ownedPool = parallelism > 1 && executor == null ? new ForkJoinPool(parallelism) : null;
+        val pool = ownedPool != null ? ownedPool : executor;
+        try {
+            Consumer<ScannerResult<?,?>> sink = countingConsumer(pool == null ? consumer::accept : synchronizedConsumer(consumer));
+            if (!classLoaders.isEmpty()) {
+                scanClassLoaders(pool, sink);
+                return metrics.complete();
             }
 
-            // scan for annotated fields
-            for (val annotationClass: fieldAnnotations) {
-                val allFields = new HashSet<Field>();
-                allFields.addAll(asList(clazz.getFields()));
-                allFields.addAll(asList(clazz.getDeclaredFields()));
-
-                for (val field : allFields) {
-                    val annotationInstance = field.getAnnotation(annotationClass);
-                    if (annotationInstance != null) {
-                        results.add(new ScannerResult<>(clazz, field, annotationInstance));
-                        matched = true;
-                    }
-                }
-            }
-            // scan for annotated constructors
-            for (val annotationClass: constructorAnnotations) {
-                val allConstructors = new HashSet<Constructor>();
-                allConstructors.addAll(asList(clazz.getConstructors()));
-                allConstructors.addAll(asList(clazz.getDeclaredConstructors()));
-
-                for (val constructor: allConstructors) {
-                    val annotationInstance = constructor.getAnnotation(annotationClass);
-                    if (annotationInstance != null) {
-                        results.add(new ScannerResult<>(clazz, constructor, annotationInstance));
-                        matched = true;
-                    }
-                }
-            }
+            val roots = findRoots();
+            val matchedClassNames = new HashSet<String>();
+            if (buildIndexes)
+                scanBuildIndexes(roots, matchedClassNames, sink);
 
-            if (!matched && includePackageContentsByDefault)
-                results.add(new ScannerResult<>(clazz, clazz, null, false));
+            if (indexFile != null)
+                scanWithIndex(roots, pool, matchedClassNames, sink);
+            else
+                scanRoots(roots, pool, matchedClassNames, sink);
+            return metrics.complete();
+        } finally {
+            if (ownedPool != null)
+                ownedPool.shutdown();
         }
+    }
 
-        return results;
+    /**
+     * Scan for results matching the criteria of this AnnotationScanner, as with {@link #scan()}, and report the
+     * timings and counters of the scan along with its results, and with the classes which could not be scanned when
+     * scanning with {@link LinkageErrorPolicy#COLLECT}
+     *
+     * @return the results, statistics and failures of the scan
+     */
+    public ScanReport scanReport() {
+        val results = new HashSet<ScannerResult<?,? extends Annotation>>();
+        val scan = newScan();
+        val statistics = scan.scanPrepared(results::add);
+        return new ScanReport(results, statistics, new ArrayList<>(scan.failures));
     }
 
     /**
-     * Find the first such method of the target class (either declared or inherited) that is annotated with the provided annotation
-     * and that returns the provided return type. This search is greedy.
+     * Scan for results matching the criteria of this AnnotationScanner, as with {@link #scan()}, then keep watching
+     * the directory roots of the scanned packages and pass the results added and removed by each batch of changes to
+     * the listener. Results are loaded from the class loader of this AnnotationScanner
      *
-     * If no such method is found {@link Optional#empty()} is returned
+     * @see ScanWatcher
      *
-     * @param target - this class's methods will be scanned
-     * @param annotationClass - methods with this annotation will be considered
-     * @param returnType - methods returning this type will be considered
-     * @return a {@link Optional} maybe containing the first method found matching the search criteria
+     * @param listener - receives the results added and removed by each batch of changes
+     * @return the watcher, which should be closed to stop watching
      */
-    public static Optional<Method> annotatedMethodWithReturnType(Class<?> target, Class<? extends Annotation> annotationClass, Class<?> returnType) {
-        val allMethods = new HashSet<Method>();
-        allMethods.addAll(asList(target.getDeclaredMethods()));
-        allMethods.addAll(asList(target.getMethods()));
-        for (val method: allMethods) {
-            val annotationInstance = method.getAnnotation(annotationClass);
-            if (annotationInstance != null && method.getReturnType().equals(returnType))
-                return Optional.of(method);
-        }
+    public ScanWatcher watch(Consumer<? super ScanDelta> listener) {
+        return watch(ScanWatcher.DEFAULT_DEBOUNCE, null, listener);
+    }
 
-        return Optional.empty();
+    /**
+     * @see #watch(Consumer)
+     *
+     * @param debounce - how long to wait for further changes before re-examining the changed classes
+     * @param classLoaders - supplies the class loader to load the results of each batch of changes from, or null to
+     *                     use the class loader of this AnnotationScanner
+     * @param listener - receives the results added and removed by each batch of changes
+     * @return the watcher, which should be closed to stop watching
+     */
+    @SneakyThrows(IOException.class)
+    public ScanWatcher watch(Duration debounce, Supplier<? extends ClassLoader> classLoaders, Consumer<? super ScanDelta> listener) {
+        if (debounce.isNegative())
+            throw new IllegalArgumentException("The debounce interval must not be negative");
+        if (this.classLoaderToUse == null)
+            this.classLoaderToUse = Thread.currentThread().getContextClassLoader();
+        val classLoader = this.classLoaderToUse;
+        return new ScanWatcher(copy(), debounce, classLoaders != null ? classLoaders : () -> classLoader, listener);
     }
 
     /**
-     * Create and return a new AnnotationScanner to scan the provided packages.
-     * Note: Subpackages must be listed explicitly.
+     * Scan for results matching the criteria of this AnnotationScanner, as with {@link #scan()}, but keep the results
+     * in a compact {@link ResultTable} of names rather than as reflective objects, for scans with very many results.
+     * The reflective objects of each result are only loaded again when requested from the table
      *
-     * Packages names should be formatted with '.' as the namespace delimiter rather thant '/'
+     * @return the results
+     */
+    public ResultTable scanTable() {
+        if (this.classLoaderToUse == null)
+            this.classLoaderToUse = Thread.currentThread().getContextClassLoader();
+        val table = new ResultTable(classLoaderToUse, initializeClasses);
+        scan(result -> table.add(ResultRecord.of(result)));
+        return table;
+    }
+
+    /**
+     * Build the superclass and interface graph of the classes in the packages to scan from the headers of their
+     * class files, without loading any classes, to find the subtypes and implementations of types
+     *
+     * @return the type graph of the packages
+     */
+    public TypeGraph scanTypes() {
+        return newScan().scanTypesPrepared();
+    }
+
+    @SneakyThrows({IOException.class, URISyntaxException.class})
+    private TypeGraph scanTypesPrepared() {
+        val graph = new TypeGraph(classLoaderToUse, initializeClasses, linkageErrorPolicy);
+        for (val root : findRoots().entrySet()) {
+            for (val className : listClassNames(root.getKey(), root.getValue()))
+                graph.add(className, metrics);
+        }
+        metrics.complete();
+        return graph;
+    }
+
+    /**
+     * Find the classes and interfaces in the packages to scan which extend or implement a type, loading only those
+     *
+     * @see TypeGraph#findSubtypes(Class)
+     *
+     * @param type - a class or interface
+     * @return the subtypes, excluding the type itself
+     */
+    public <T> Set<Class<? extends T>> findSubtypes(Class<T> type) {
+        return scanTypes().findSubtypes(type);
+    }
+
+    /**
+     * Find the concrete classes in the packages to scan which extend or implement a type, loading only those
+     *
+     * @see TypeGraph#findImplementations(Class)
+     *
+     * @param type - a class or interface
+     * @return the concrete subtypes
+     */
+    public <T> Set<Class<? extends T>> findImplementations(Class<T> type) {
+        return scanTypes().findImplementations(type);
+    }
+
+    /**
+     * Lazily scan for results matching the criteria of this AnnotationScanner. Nothing is scanned until the stream is
+     * consumed, then roots are enumerated and classes are loaded and matched one at a time as results are requested,
+     * so a short-circuiting operation such as {@link Stream#findFirst()} stops the scan early.
+     *
+     * The stream is sequential and consumed on the calling thread, so {@link #withParallelism(int)} and
+     * {@link #withExecutor(ExecutorService)} do not apply. Results reused from an index file are produced together
+     * when the stream is first consumed
+     *
+     * @see #scan()
+     *
+     * @return a stream of the results
+     */
+    public Stream<ScannerResult<?,? extends Annotation>> scanStream() {
+        return StreamSupport.stream(copy().new ResultSpliterator(), false);
+    }
+
+    /**
+     * Produces the results of {@link #scanStream()} one class at a time
+     */
+    private class ResultSpliterator extends Spliterators.AbstractSpliterator<ScannerResult<?,? extends Annotation>> {
+        private final Deque<ScannerResult<?,?>> buffer = new ArrayDeque<>();
+        private final Set<String> matchedClassNames = new HashSet<>();
+        private Iterator<Map.Entry<ClasspathRoot, Set<String>>> roots;
+        private Iterator<String> classNames = Collections.emptyIterator();
+        private ClassFileHierarchy classFiles;
+        private ScanMetrics metrics;
+
+        ResultSpliterator() {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+        }
+
+        @Override
+        @SneakyThrows({IOException.class, URISyntaxException.class})
+        public boolean tryAdvance(Consumer<? super ScannerResult<?,? extends Annotation>> action) {
+            if (roots == null)
+                start();
+
+            while (buffer.isEmpty()) {
+                if (classNames.hasNext()) {
+                    val className = classNames.next();
+                    if (matchedClassNames.add(className))
+                        scanClass(className, classFiles, buffer);
+                } else if (roots.hasNext()) {
+                    val root = roots.next();
+                    classNames = listClassNames(root.getKey(), root.getValue()).iterator();
+                } else {
+                    if (metrics != null) {
+                        metrics.complete();
+                        metrics = null;
+                    }
+                    return false;
+                }
+            }
+            val result = buffer.poll();
+            metrics.matched(result);
+            action.accept(result);
+            return true;
+        }
+
+        private void start() throws IOException, URISyntaxException {
+            prepareScan();
+            metrics = AnnotationScanner.this.metrics;
+            classFiles = newClassFileFilter();
+            val remaining = findRoots();
+            if (buildIndexes)
+                scanBuildIndexes(remaining, matchedClassNames, buffer::add);
+            if (indexFile != null) {
+                scanWithIndex(remaining, null, matchedClassNames, buffer::add);
+                remaining.clear();
+            }
+            roots = remaining.entrySet().iterator();
+        }
+    }
+
+    /**
+     * @return a copy of this AnnotationScanner, of the same class, which shares its criteria and settings but holds
+     * the state of its own scans
+     */
+    @SneakyThrows(CloneNotSupportedException.class)
+    protected AnnotationScanner copy() {
+        return (AnnotationScanner) clone();
+    }
+
+    /**
+     * @return a copy of this AnnotationScanner prepared for a single scan
+     */
+    AnnotationScanner newScan() {
+        val scan = copy();
+        scan.prepareScan();
+        return scan;
+    }
+
+    /**
+     * Resolve the class loader and the criteria to match loaded classes with, and start recording statistics,
+     * before each scan. Invoked on the copy made for the scan, see {@link #newScan()}
+     */
+    protected void prepareScan() {
+        if (this.classLoaderToUse == null)
+            this.classLoaderToUse = Thread.currentThread().getContextClassLoader();
+        reflectiveMatcher = new ReflectiveMatcher(this);
+        classFileMatcher = lazyMemberReflection ? new ClassFileMatcher(this) : null;
+        failures = new ConcurrentLinkedQueue<>();
+        outstandingBatches = memoryLimit > 0 ? new Semaphore(2 * threads()) : null;
+        criteriaClassNames = throwawayClassLoaders ? criteriaClassNames() : null;
+        metrics = new ScanMetrics(Collections.unmodifiableSet(new TreeSet<>(packages)), new ArrayList<>(listeners));
+    }
+
+    private Map<ClasspathRoot, Set<String>> findRoots() throws IOException, URISyntaxException {
+        val start = System.nanoTime();
+        val roots = findRoots(packages);
+        metrics.phase(ScanPhase.FIND_ROOTS, start);
+        return roots;
+    }
+
+    private Consumer<ScannerResult<?,?>> countingConsumer(Consumer<ScannerResult<?,?>> consumer) {
+        val metrics = this.metrics;
+        return result -> {
+            metrics.matched(result);
+            consumer.accept(result);
+        };
+    }
+
+    private static Consumer<ScannerResult<?,?>> synchronizedConsumer(Consumer<? super ScannerResult<?,? extends Annotation>> consumer) {
+        return result -> {
+            synchronized (consumer) {
+                consumer.accept(result);
+            }
+        };
+    }
+
+    /**
+     * Enumerate and match the classes of each root, skipping classes already matched. With an executor the roots
+     * are enumerated concurrently and each root's classes are matched as soon as it has been enumerated
+     *
+     * @param roots - the packages to scan in each root
+     * @param pool - the executor to scan with, or null to scan on the calling thread
+     * @param matchedClassNames - the classes already matched, to which the classes of each root are added
+     * @param sink - receives each result
+     */
+    protected void scanRoots(Map<ClasspathRoot, Set<String>> roots, ExecutorService pool, Set<String> matchedClassNames,
+                             Consumer<ScannerResult<?,?>> sink) throws IOException {
+        val classFiles = newClassFileFilter();
+        val matches = new ArrayList<Future<?>>();
+        if (pool == null) {
+            for (val root : roots.entrySet())
+                matchClasses(unmatched(listClassNames(root.getKey(), root.getValue()), matchedClassNames), null, classFiles, sink, matches);
+            return;
+        }
+
+        // with a memory limit only the next root is enumerated ahead of the root being matched
+        val entries = new ArrayList<Map.Entry<ClasspathRoot, Set<String>>>(roots.entrySet());
+        val lookahead = memoryLimit > 0 ? 1 : entries.size();
+        val enumerations = new ArrayList<Future<Set<String>>>();
+        for (int i = 0; i < entries.size(); i++) {
+            while (enumerations.size() < entries.size() && enumerations.size() <= i + lookahead) {
+                val root = entries.get(enumerations.size());
+                enumerations.add(pool.submit(() -> listClassNames(root.getKey(), root.getValue())));
+            }
+            matchClasses(unmatched(await(enumerations.get(i)), matchedClassNames), pool, classFiles, sink, matches);
+            enumerations.set(i, null);
+        }
+        for (val match : matches)
+            await(match);
+    }
+
+    /**
+     * Scan the roots of every class loader of {@link #withClassLoaders(Collection)} and of their parents, each unique
+     * root once with the class loader which owns it. With an executor the roots of every class loader are enumerated
+     * concurrently, and each root's classes are matched as soon as it has been enumerated
+     *
+     * @param pool - the executor to scan with, or null to scan on the calling thread
+     * @param sink - receives each result
+     */
+    protected void scanClassLoaders(ExecutorService pool, Consumer<ScannerResult<?,?>> sink) throws IOException, URISyntaxException {
+        val start = System.nanoTime();
+        val rootsByClassLoader = findClassLoaderRoots();
+        metrics.phase(ScanPhase.FIND_ROOTS, start);
+
+        if (pool == null) {
+            for (val classLoaderRoots : rootsByClassLoader.entrySet())
+                forClassLoader(classLoaderRoots.getKey()).scanRoots(classLoaderRoots.getValue(), null, new HashSet<>(), sink);
+            return;
+        }
+
+        val scanners = new ArrayList<AnnotationScanner>();
+        val enumerations = new ArrayList<Future<Set<String>>>();
+        for (val classLoaderRoots : rootsByClassLoader.entrySet()) {
+            val scanner = forClassLoader(classLoaderRoots.getKey());
+            for (val root : classLoaderRoots.getValue().entrySet()) {
+                scanners.add(scanner);
+                enumerations.add(pool.submit(() -> scanner.listClassNames(root.getKey(), root.getValue())));
+            }
+        }
+
+        // class names are only unique among the classes of a single class loader
+        val matchedClassNames = new IdentityHashMap<AnnotationScanner, Set<String>>();
+        val classFiles = new IdentityHashMap<AnnotationScanner, ClassFileHierarchy>();
+        val matches = new ArrayList<Future<?>>();
+        for (int i = 0; i < enumerations.size(); i++) {
+            val scanner = scanners.get(i);
+            if (!matchedClassNames.containsKey(scanner)) {
+                matchedClassNames.put(scanner, new HashSet<>());
+                classFiles.put(scanner, scanner.newClassFileFilter());
+            }
+            val classNames = unmatched(await(enumerations.get(i)), matchedClassNames.get(scanner));
+            scanner.matchClasses(classNames, pool, classFiles.get(scanner), sink, matches);
+        }
+        for (val match : matches)
+            await(match);
+    }
+
+    /**
+     * Find the unique roots of the class loaders to scan and of their parents, by canonical path. A root is owned by
+     * the first class loader found to contain it, parents before their children, which is the class loader that
+     * defines its classes under parent first delegation
+     *
+     * @return the packages which may be contained by each root, grouped by the class loader which owns the root
+     */
+    private Map<ClassLoader, Map<ClasspathRoot, Set<String>>> findClassLoaderRoots() throws IOException, URISyntaxException {
+        val visited = Collections.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>());
+        val owned = new HashSet<ClasspathRoot>();
+        val rootsByClassLoader = new LinkedHashMap<ClassLoader, Map<ClasspathRoot, Set<String>>>();
+        for (val classLoader : classLoaders) {
+            for (val loader : ClasspathDiscovery.hierarchy(classLoader)) {
+                if (!visited.add(loader))
+                    continue;
+                val found = new LinkedHashMap<ClasspathRoot, Set<String>>();
+                addRoots(loader, packages, found);
+
+                val roots = new LinkedHashMap<ClasspathRoot, Set<String>>();
+                for (val root : found.entrySet()) {
+                    val canonical = root.getKey().canonical();
+                    if (roots.containsKey(canonical))
+                        roots.get(canonical).addAll(root.getValue());
+                    else if (owned.add(canonical))
+                        roots.put(canonical, new HashSet<>(root.getValue()));
+                }
+                if (!roots.isEmpty())
+                    rootsByClassLoader.put(loader, roots);
+            }
+        }
+        return rootsByClassLoader;
+    }
+
+    /**
+     * @return an AnnotationScanner with the criteria and settings of this one which scans with another class loader,
+     * recording its statistics and failures with those of the current scan
+     */
+    protected AnnotationScanner forClassLoader(ClassLoader classLoader) {
+        // a copy of the scan, so that it keeps the class of this scanner and shares its metrics, failures and matchers
+        val scanner = copy();
+        scanner.classLoaderToUse = classLoader;
+        return scanner;
+    }
+
+    static List<String> unmatched(Set<String> classNames, Set<String> matchedClassNames) {
+        val unmatched = new ArrayList<String>(classNames.size());
+        for (val className : classNames) {
+            if (matchedClassNames.add(className))
+                unmatched.add(className);
+        }
+        return unmatched;
+    }
+
+    /**
+     * List the classes of some packages within a single root, from the cache if one is supplied
+     */
+    protected Set<String> listClassNames(ClasspathRoot root, Set<String> packageNames) throws IOException {
+        val start = System.nanoTime();
+        val entriesVisited = new LongAdder();
+        Set<String> classNames;
+        if (cache == null) {
+            classNames = root.listClassNames(packageNames, includeSubpackages, entriesVisited);
+        } else {
+            val listing = new ScanCache.Listing(root, new HashSet<>(packageNames), includeSubpackages);
+            classNames = cache.getClassNames(classLoaderToUse, listing);
+            if (classNames == null) {
+                classNames = root.listClassNames(packageNames, includeSubpackages, entriesVisited);
+                cache.putClassNames(classLoaderToUse, listing, classNames);
+            }
+        }
+        if (metrics != null)
+            metrics.rootListed(root, packageNames, entriesVisited.sum(), classNames.size(), start);
+        return classNames;
+    }
+
+    /**
+     * Load and match classes, concurrently in batches if an executor is supplied
+     *
+     * @param classNames - the classes to match
+     * @param pool - the executor to match classes with, or null to match them on the calling thread
+     * @param sink - receives each result, from the executor's threads if an executor is supplied
+     */
+    protected void matchClasses(Collection<String> classNames, ExecutorService pool, Consumer<ScannerResult<?,?>> sink) {
+        val matches = new ArrayList<Future<?>>();
+        matchClasses(classNames, pool, newClassFileFilter(), sink, matches);
+        for (val match : matches)
+            await(match);
+    }
+
+    /**
+     * Match classes on the calling thread, or submit batches of them to the executor and add the pending matches to
+     * the given list
+     */
+    private void matchClasses(Collection<String> classNames, ExecutorService pool, ClassFileHierarchy classFiles,
+                              Consumer<ScannerResult<?,?>> sink, List<Future<?>> matches) {
+        if (pool == null) {
+            matchBatch(classNames, classFiles, sink);
+            return;
+        }
+
+        val threads = pool instanceof ForkJoinPool ? ((ForkJoinPool) pool).getParallelism() : Runtime.getRuntime().availableProcessors();
+        val outstandingBatches = this.outstandingBatches;
+        for (val batch : partition(new ArrayList<>(classNames), threads)) {
+            // with a memory limit, wait for earlier batches and their consumer rather than queueing every batch
+            if (outstandingBatches != null)
+                outstandingBatches.acquireUninterruptibly();
+            matches.add(pool.submit(() -> {
+                try {
+                    matchBatch(batch, classFiles, sink);
+                } finally {
+                    if (outstandingBatches != null)
+                        outstandingBatches.release();
+                }
+                return null;
+            }));
+        }
+    }
+
+    private void matchBatch(Collection<String> classNames, ClassFileHierarchy classFiles, Consumer<ScannerResult<?,?>> sink) {
+        val results = new ArrayList<ScannerResult<?,?>>();
+        ThrowawayClassLoader throwaway = null;
+        int count = 0;
+        for (val className : classNames) {
+            // a new throwaway loader every so often, so that the candidates matched before can be unloaded
+            if (throwawayClassLoaders && count++ % THROWAWAY_CLASSES == 0)
+                throwaway = newThrowawayClassLoader();
+            scanClass(className, classFiles, throwaway, results);
+            forward(results, sink);
+        }
+    }
+
+    private ThrowawayClassLoader newThrowawayClassLoader() {
+        return new ThrowawayClassLoader(classLoaderToUse, this::isThrowawayCandidate, new ReflectiveMatcher(this));
+    }
+
+    private boolean isThrowawayCandidate(String className) {
+        val index = className.lastIndexOf('.');
+        return !criteriaClassNames.contains(className) && isInPackages(index < 0 ? "" : className.substring(0, index), packages);
+    }
+
+    /**
+     * @return the names of the classes the search criteria compare loaded classes with
+     */
+    private Set<String> criteriaClassNames() {
+        val classNames = new HashSet<String>();
+        for (val annotatedType : annotatedTypes) {
+            classNames.add(annotatedType.getType().getName());
+            classNames.add(annotatedType.getAnnotation().getName());
+        }
+        classNames.addAll(annotationNames(typeAnnotations));
+        classNames.addAll(annotationNames(methodAnnotations));
+        classNames.addAll(annotationNames(fieldAnnotations));
+        classNames.addAll(annotationNames(constructorAnnotations));
+        for (val query : queries)
+            query.getQuery().referencedClassNames(classNames);
+        return classNames;
+    }
+
+    private int threads() {
+        if (executor instanceof ForkJoinPool)
+            return ((ForkJoinPool) executor).getParallelism();
+        return executor != null ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    private static void forward(List<ScannerResult<?,?>> results, Consumer<ScannerResult<?,?>> sink) {
+        for (val result : results)
+            sink.accept(result);
+        results.clear();
+    }
+
+    /**
+     * Scan, reusing the results recorded in the index file for every root which is unchanged since the index was
+     * written. Changed or new roots are scanned and the index file is rewritten. Only the classes not already matched
+     * in an earlier root are matched and recorded for a root, and a root is rescanned once a class it hid is no longer
+     * hidden by an earlier root
+     */
+    private void scanWithIndex(Map<ClasspathRoot, Set<String>> roots, ExecutorService pool, Set<String> matchedClassNames,
+                               Consumer<ScannerResult<?,?>> sink) throws IOException {
+        val configuration = indexConfiguration();
+        val start = System.nanoTime();
+        val previous = ScanIndex.read(indexFile, configuration);
+        metrics.phase(ScanPhase.READ_INDEXES, start);
+        val index = new ScanIndex(configuration);
+        boolean changed = previous == null || previous.getRoots().size() != roots.size();
+
+        for (val root : roots.entrySet()) {
+            val path = root.getKey().getLocation();
+            val fingerprint = root.getKey().fingerprint(root.getValue(), includeSubpackages);
+            val entry = previous == null ? null : previous.getRoots().get(path);
+            val rootClassNames = new HashSet<String>();
+
+            if (entry != null && entry.getFingerprint() == fingerprint && matchedClassNames.containsAll(entry.getShadowedClassNames())) {
+                for (val record : entry.getRecords()) {
+                    if (!matchedClassNames.contains(record.getClassName()))
+                        materialize(record, sink);
+                }
+                // classes without results must also be hidden from later roots
+                rootClassNames.addAll(entry.getClassNames());
+                index.getRoots().put(path, entry);
+            } else {
+                val classNames = listClassNames(root.getKey(), root.getValue());
+                // classes of an earlier root would resolve to that root, so they are neither matched nor recorded
+                val shadowedClassNames = new ArrayList<String>();
+                for (val className : classNames) {
+                    if (matchedClassNames.contains(className))
+                        shadowedClassNames.add(className);
+                }
+                val unmatchedClassNames = unmatched(classNames, matchedClassNames);
+                val rootResults = Collections.synchronizedList(new ArrayList<ScannerResult<?,?>>());
+                matchClasses(unmatchedClassNames, pool, result -> {
+                    rootResults.add(result);
+                    sink.accept(result);
+                });
+                rootClassNames.addAll(unmatchedClassNames);
+                index.getRoots().put(path, new ScanIndex.RootEntry(path, fingerprint, new ArrayList<>(unmatchedClassNames),
+                    shadowedClassNames, ResultRecord.of(rootResults)));
+                changed = true;
+            }
+            matchedClassNames.addAll(rootClassNames);
+        }
+
+        if (changed) {
+            try {
+                index.write(indexFile);
+            } catch (IOException e) {
+                // the index only saves work on the next scan, failing to write it does not affect these results
+            }
+        }
+    }
+
+    /**
+     * Answer the query for every root containing a build time index from its index, then remove those roots from
+     * the roots left to scan
+     */
+    private void scanBuildIndexes(Map<ClasspathRoot, Set<String>> roots, Set<String> matchedClassNames,
+                                  Consumer<ScannerResult<?,?>> sink) throws IOException, URISyntaxException {
+        val start = System.nanoTime();
+        val indexes = findBuildIndexes();
+        metrics.phase(ScanPhase.READ_INDEXES, start);
+        if (indexes.isEmpty())
+            return;
+
+        // supertypes may be described by the index of another root
+        val classFiles = new ClassFileHierarchy(classLoaderToUse);
+        for (val index : indexes.values()) {
+            for (val classFile : index)
+                classFiles.put(classFile);
+        }
+
+        val matcher = new ClassFileMatcher(this);
+        val results = new ArrayList<ScannerResult<?,?>>();
+        Iterator<Map.Entry<ClasspathRoot, Set<String>>> iterator = roots.entrySet().iterator();
+        while (iterator.hasNext()) {
+            val root = iterator.next();
+            val index = indexes.get(root.getKey());
+            if (index == null)
+                continue;
+            iterator.remove();
+
+            for (val classFile : index) {
+                if (!isInPackages(classFile.getPackageName(), root.getValue()) || !matchedClassNames.add(classFile.getClassName()))
+                    continue;
+                val records = matcher.match(classFile, classFiles);
+                if (records == null) {
+                    // a supertype is described by neither an index nor a class file, or the criteria require reflection
+                    scanClass(classFile.getClassName(), null, results);
+                    forward(results, sink);
+                    continue;
+                }
+                for (val record : records)
+                    materialize(record, sink);
+            }
+        }
+    }
+
+    /**
+     * @return the classes described by the build time index of each root which has one
+     */
+    protected Map<ClasspathRoot, List<ClassFileDescriptor>> findBuildIndexes() throws IOException, URISyntaxException {
+        val indexes = new HashMap<ClasspathRoot, List<ClassFileDescriptor>>();
+        val urls = classLoaderToUse.getResources(BuildIndex.RESOURCE);
+        while (urls.hasMoreElements()) {
+            val url = urls.nextElement();
+            val root = ClasspathRoot.ofResource(url, BuildIndex.RESOURCE);
+            if (indexes.containsKey(root))
+                continue;
+            try (InputStream in = url.openStream()) {
+                indexes.put(root, BuildIndex.read(in));
+            }
+        }
+        return indexes;
+    }
+
+    boolean isInPackages(String packageName, Set<String> packageNames) {
+        if (packageNames.contains(packageName))
+            return true;
+        if (includeSubpackages) {
+            for (val candidate : packageNames) {
+                if (packageName.startsWith(candidate + "."))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Load the class, member and annotation a record describes and pass the result on
+     */
+    private void materialize(ResultRecord record, Consumer<ScannerResult<?,?>> sink) {
+        final ScannerResult<?,?> result;
+        try {
+            result = record.toResult(classLoaderToUse, initializeClasses);
+        } catch (ReflectiveOperationException | LinkageError | TypeNotPresentException e) {
+            failed(record.getClassName(), e);
+            return;
+        }
+        sink.accept(result);
+    }
+
+    /**
+     * Apply the {@link LinkageErrorPolicy} to a class which could not be loaded or reflected over
+     */
+    @SneakyThrows
+    private void failed(String className, Throwable error) {
+        if (linkageErrorPolicy == LinkageErrorPolicy.FAIL)
+            throw error;
+        if (metrics != null)
+            metrics.classFailed(className, error);
+        if (linkageErrorPolicy == LinkageErrorPolicy.COLLECT && failures != null)
+            failures.add(new ScanFailure(className, error));
+    }
+
+    /**
+     * @return a description of every setting which affects the results of a scan, identifying the indexes this
+     * AnnotationScanner may reuse
+     */
+    protected String indexConfiguration() {
+        val annotatedTypeNames = new TreeSet<String>();
+        for (val annotatedType : annotatedTypes)
+            annotatedTypeNames.add(annotatedType.getType().getName() + "@" + annotatedType.getAnnotation().getName());
+
+        return "packages=" + new TreeSet<>(packages)
+            + ";subpackages=" + includeSubpackages
+            + ";contents=" + includePackageContentsByDefault
+            + ";annotatedTypes=" + annotatedTypeNames
+            + ";types=" + new TreeSet<>(annotationNames(typeAnnotations))
+            + ";methods=" + new TreeSet<>(annotationNames(methodAnnotations))
+            + ";fields=" + new TreeSet<>(annotationNames(fieldAnnotations))
+            + ";constructors=" + new TreeSet<>(annotationNames(constructorAnnotations))
+            + (metaAnnotations ? ";metaAnnotations=true" : "")
+            + (inheritedMethodAnnotations ? ";inheritedMethodAnnotations=true" : "")
+            + (queries.isEmpty() ? "" : ";queries=" + queries);
+    }
+
+    /**
+     * Split the class names into batches, several per thread so that threads which finish early can take more work
+     */
+    static List<List<String>> partition(List<String> classNames, int threads) {
+        val batchSize = Math.max(1, classNames.size() / (threads * 4));
+        val batches = new ArrayList<List<String>>();
+        for (int i = 0; i < classNames.size(); i += batchSize)
+            batches.add(classNames.subList(i, Math.min(i + batchSize, classNames.size())));
+        return batches;
+    }
+
+    @SneakyThrows
+    static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return a class file reader for pre-filtering classes, or null if classes should not be pre-filtered
+     */
+    protected ClassFileHierarchy newClassFileFilter() {
+        if (!readsClassFiles())
+            return null;
+        if (cache != null)
+            return cache.classFiles(classLoaderToUse, metrics, memoryLimit);
+        return new ClassFileHierarchy(classLoaderToUse, metrics, memoryLimit);
+    }
+
+    /**
+     * @return true if candidates are read from their class files before they are loaded
+     */
+    boolean readsClassFiles() {
+        return !includePackageContentsByDefault
+            && (cache != null || classFileFiltering || memoryLimit > 0 || lazyMemberReflection || !queries.isEmpty());
+    }
+
+    /**
+     * Count a result found for this AnnotationScanner by a {@link ScanBatch}
+     */
+    void matched(ScannerResult<?,?> result) {
+        metrics.matched(result);
+    }
+
+    /**
+     * Complete a scan performed for this AnnotationScanner by a {@link ScanBatch}, notifying its listeners
+     *
+     * @return the statistics of the scan
+     */
+    ScanStatistics completeScan() {
+        return metrics.complete();
+    }
+
+    /**
+     * Load and match a single class against the criteria of this AnnotationScanner, unless its class file shows it
+     * can not match
+     *
+     * @param className - the name of the class to match
+     * @param classFiles - used to pre-filter the class, or null
+     * @param results - matches are added to this collection
+     */
+    protected void scanClass(String className, ClassFileHierarchy classFiles, Collection<ScannerResult<?,?>> results) {
+        scanClass(className, classFiles, null, results);
+    }
+
+    /**
+     * @param throwaway - the class loader to match the class in, or null to load it with the class loader of the scan
+     */
+    private void scanClass(String className, ClassFileHierarchy classFiles, ThrowawayClassLoader throwaway,
+                           Collection<ScannerResult<?,?>> results) {
+        if (classFiles != null) {
+            val classFile = classFiles.get(className);
+            if (classFile != null && !mightMatch(classFile, classFiles))
+                return;
+            if (classFile != null && classFileMatcher != null && scanMembers(classFile, classFiles, results))
+                return;
+        }
+
+        // a class which fails part way through matching contributes no results
+        Collection<ScannerResult<?,?>> classResults = linkageErrorPolicy == LinkageErrorPolicy.FAIL && throwaway == null
+            ? results : new ArrayList<>();
+        try {
+            val start = System.nanoTime();
+            if (throwaway == null) {
+                val clazz = Class.forName(className, initializeClasses, classLoaderToUse);
+                if (metrics != null)
+                    metrics.classLoaded(className, start);
+                scanClass(clazz, classResults);
+            } else {
+                val clazz = Class.forName(className, false, throwaway);
+                if (metrics != null)
+                    metrics.classLoaded(className, start);
+                throwaway.getMatcher().match(clazz, classResults, metrics);
+                // only the matches are loaded by the class loader of the scan
+                val records = ResultRecord.of(classResults);
+                classResults.clear();
+                for (val record : records)
+                    classResults.add(record.toResult(classLoaderToUse, initializeClasses));
+            }
+        } catch (ReflectiveOperationException | LinkageError | TypeNotPresentException e) {
+            failed(className, e);
+            return;
+        }
+        if (classResults != results)
+            results.addAll(classResults);
+    }
+
+    /**
+     * Match a class by its class file, then load the class and resolve only the members which matched
+     *
+     * @return false if the class could not be matched by its class file and must be matched by reflection
+     */
+    private boolean scanMembers(ClassFileDescriptor classFile, ClassFileHierarchy classFiles, Collection<ScannerResult<?,?>> results) {
+        val records = classFileMatcher.match(classFile, classFiles);
+        if (records == null)
+            return false;
+        if (records.isEmpty())
+            return true;
+
+        val className = classFile.getClassName();
+        val classResults = new ArrayList<ScannerResult<?,?>>(records.size());
+        try {
+            val start = System.nanoTime();
+            val clazz = Class.forName(className, initializeClasses, classLoaderToUse);
+            if (metrics != null)
+                metrics.classLoaded(className, start);
+            val matchStart = System.nanoTime();
+            for (val record : records)
+                classResults.add(record.toResult(classLoaderToUse, initializeClasses));
+            if (metrics != null)
+                metrics.classMatched(clazz, records.size(), records.size(), matchStart);
+        } catch (ReflectiveOperationException | LinkageError | TypeNotPresentException e) {
+            failed(className, e);
+            return true;
+        }
+        results.addAll(classResults);
+        return true;
+    }
+
+    /**
+     * Match a single loaded class against the criteria of this AnnotationScanner
+     *
+     * @param clazz - the class to match
+     * @param results - matches are added to this collection
+     * @return true if the class matched
+     */
+    protected boolean scanClass(Class<?> clazz, Collection<ScannerResult<?,?>> results) {
+        if (reflectiveMatcher == null)
+            reflectiveMatcher = new ReflectiveMatcher(this);
+        return reflectiveMatcher.match(clazz, results, metrics);
+    }
+
+    /**
+     * Decide from class files alone whether a class may match the criteria of this AnnotationScanner. This errs
+     * on the side of caution: false is only returned if the class certainly does not match.
+     *
+     * Mirrors the reflective lookups of {@link #scanClass(Class, Collection)}, so inherited type annotations and the
+     * public methods and fields of supertypes are considered
+     *
+     * @param classFile - the class file of the candidate
+     * @param classFiles - used to read the class files of supertypes
+     * @return false if the class can not match
+     */
+    protected boolean mightMatch(ClassFileDescriptor classFile, ClassFileHierarchy classFiles) {
+        // the annotations a class may match through can not be told from its class file alone
+        if (metaAnnotations || inheritedMethodAnnotations)
+            return true;
+
+        for (val query : queries) {
+            if (query.mightMatch(classFile))
+                return true;
+        }
+
+        for (val annotationClass : typeAnnotations) {
+            if (mightHaveAnnotation(classFile, classFiles, annotationClass))
+                return true;
+        }
+        // the supertypes were read to find inherited annotations, so the type can be checked without loading the class
+        for (val annotatedType : annotatedTypes) {
+            if (mightHaveAnnotation(classFile, classFiles, annotatedType.getAnnotation())
+                && !Boolean.FALSE.equals(classFiles.isSubtype(classFile, annotatedType.getType().getName())))
+                return true;
+        }
+
+        if (!methodAnnotations.isEmpty() || !fieldAnnotations.isEmpty()) {
+            if (hasAnnotatedMember(classFile, false, classFile.getMethods(), methodAnnotations, false)
+                || hasAnnotatedMember(classFile, false, classFile.getFields(), fieldAnnotations, false))
+                return true;
+
+            val supertypes = classFiles.getSupertypes(classFile);
+            if (supertypes == null)
+                return true;
+            for (val supertype : supertypes) {
+                if (hasAnnotatedMember(supertype, true, supertype.getMethods(), methodAnnotations, false)
+                    || hasAnnotatedMember(supertype, true, supertype.getFields(), fieldAnnotations, false))
+                    return true;
+            }
+        }
+
+        return hasAnnotatedMember(classFile, false, classFile.getMethods(), constructorAnnotations, true);
+    }
+
+    private static boolean mightHaveAnnotation(ClassFileDescriptor classFile, ClassFileHierarchy classFiles,
+                                               Class<? extends Annotation> annotationClass) {
+        val name = annotationClass.getName();
+        if (classFile.hasAnnotation(name))
+            return true;
+        if (!annotationClass.isAnnotationPresent(Inherited.class))
+            return false;
+        val superclasses = classFiles.getSuperclasses(classFile);
+        if (superclasses == null)
+            return true;
+        for (val superclass : superclasses) {
+            if (superclass.hasAnnotation(name))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean hasAnnotatedMember(ClassFileDescriptor classFile, boolean publicOnly, List<MemberDescriptor> members,
+                                              Set<Class<? extends Annotation>> annotationClasses, boolean constructors) {
+        if (annotationClasses.isEmpty())
+            return false;
+        for (val member : members) {
+            if (member.isConstructor() != constructors || member.isStaticInitializer())
+                continue;
+            if (publicOnly && !member.isPublic())
+                continue;
+            for (val annotationClass : annotationClasses) {
+                if (member.hasAnnotation(annotationClass.getName()))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scan for results matching the criteria of this AnnotationScanner without loading any classes. Class files are
+     * read directly from the resources of the class loader and matches are described by name and descriptor.
+     *
+     * Only the annotations declared directly on each class and its members are considered, so unlike {@link #scan()}
+     * inherited type annotations and inherited public members are not included. Classes are only checked against
+     * {@link #withTypeAndAnnotation(Class, Class)} types by name, through their class file supertypes. Elements whose
+     * {@link ScanQuery} can not be decided from the class file, such as one testing the values of an annotation read
+     * from a build time index, are not included
+     *
+     * @return a Set containing the results (if any)
+     */
+    public Set<DescriptorResult> scanDescriptors() {
+        return newScan().scanDescriptorsPrepared();
+    }
+
+    @SneakyThrows({IOException.class, URISyntaxException.class})
+    private Set<DescriptorResult> scanDescriptorsPrepared() {
+        val classNames = getClassNames();
+        val classFiles = cache != null ? cache.classFiles(classLoaderToUse, metrics) : new ClassFileHierarchy(classLoaderToUse, metrics);
+        val typeAnnotationNames = annotationNames(typeAnnotations);
+        val methodAnnotationNames = annotationNames(methodAnnotations);
+        val fieldAnnotationNames = annotationNames(fieldAnnotations);
+        val constructorAnnotationNames = annotationNames(constructorAnnotations);
+
+        val results = new HashSet<DescriptorResult>();
+        for (val className : classNames) {
+            val classFile = classFiles.get(className);
+            if (classFile == null)
+                continue;
+
+            val before = results.size();
+            for (val annotatedType : annotatedTypes) {
+                val annotationName = annotatedType.getAnnotation().getName();
+                if (classFile.hasAnnotation(annotationName)
+                    && Boolean.TRUE.equals(classFiles.isSubtype(classFile, annotatedType.getType().getName())))
+                    results.add(new DescriptorResult(className, ElementType.TYPE, null, null, annotationName, true));
+            }
+            for (val annotation : classFile.getAnnotations()) {
+                if (typeAnnotationNames.contains(annotation.getTypeName()))
+                    results.add(new DescriptorResult(className, ElementType.TYPE, null, null, annotation.getTypeName(), true));
+            }
+            for (val method : classFile.getMethods()) {
+                if (method.isStaticInitializer())
+                    continue;
+                val names = method.isConstructor() ? constructorAnnotationNames : methodAnnotationNames;
+                val elementType = method.isConstructor() ? ElementType.CONSTRUCTOR : ElementType.METHOD;
+                for (val annotation : method.getAnnotations()) {
+                    if (names.contains(annotation.getTypeName()))
+                        results.add(new DescriptorResult(className, elementType, method.getName(), method.getDescriptor(), annotation.getTypeName(), true));
+                }
+            }
+            for (val field : classFile.getFields()) {
+                for (val annotation : field.getAnnotations()) {
+                    if (fieldAnnotationNames.contains(annotation.getTypeName()))
+                        results.add(new DescriptorResult(className, ElementType.FIELD, field.getName(), field.getDescriptor(), annotation.getTypeName(), true));
+                }
+            }
+
+            // elements which can only be decided by reflection are left out, as no class is loaded
+            val records = new ArrayList<ResultRecord>();
+            for (val query : queries)
+                query.match(classFile, records);
+            for (val record : records)
+                results.add(new DescriptorResult(className, record.getElementType(), record.getMemberName(),
+                    record.getMemberDescriptor(), record.getAnnotationTypeName(), true));
+
+            if (results.size() == before && includePackageContentsByDefault)
+                results.add(new DescriptorResult(className, ElementType.TYPE, null, null, null, false));
+        }
+
+        metrics.complete();
+        return results;
+    }
+
+    private static Set<String> annotationNames(Set<Class<? extends Annotation>> annotationClasses) {
+        val names = new HashSet<String>();
+        for (val annotationClass : annotationClasses)
+            names.add(annotationClass.getName());
+        return names;
+    }
+
+    /**
+     * Find the first such method of the target class (either declared or inherited) that is annotated with the provided annotation
+     * and that returns the provided return type. This search is greedy.
+     *
+     * If no such method is found {@link Optional#empty()} is returned
+     *
+     * @see #withMethodQuery(ScanQuery)
+     *
+     * @param target - this class's methods will be scanned
+     * @param annotationClass - methods with this annotation will be considered
+     * @param returnType - methods returning this type will be considered
+     * @return a {@link Optional} maybe containing the first method found matching the search criteria
+     */
+    public static Optional<Method> annotatedMethodWithReturnType(Class<?> target, Class<? extends Annotation> annotationClass, Class<?> returnType) {
+        val allMethods = new HashSet<Method>();
+        allMethods.addAll(asList(target.getDeclaredMethods()));
+        allMethods.addAll(asList(target.getMethods()));
+        for (val method: allMethods) {
+            val annotationInstance = method.getAnnotation(annotationClass);
+            if (annotationInstance != null && method.getReturnType().equals(returnType))
+                return Optional.of(method);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Create and return a new AnnotationScanner to scan the provided packages.
+     * Note: Subpackages must be listed explicitly, unless {@link #includeSubpackages(boolean)} is invoked with true.
+     *
+     * Packages names should be formatted with '.' as the namespace delimiter rather thant '/'
      *
      * For example
      *
@@ -351,52 +1723,70 @@ public class AnnotationScanner {
         return new AnnotationScanner(new HashSet<>(asList(packages)));
     }
 
+    /**
+     * @return the names of all classes in the packages to scan
+     */
+    protected Set<String> getClassNames() throws IOException, URISyntaxException {
+        val names = new HashSet<String>();
+        for (val root : findRoots(packages).entrySet())
+            names.addAll(listClassNames(root.getKey(), root.getValue()));
+        return names;
+    }
+
     // it appears that if no classes in a package are ever used
     // then the jvm may not know about the package
     // We must reference at least one class in the package
     protected Set<String> getClassNamesFromPackage(String packageName) throws IOException, URISyntaxException {
         val names = new HashSet<String>();
+        for (val root : findRoots(Collections.singleton(packageName)).keySet())
+            names.addAll(root.listClassNames(Collections.singleton(packageName), includeSubpackages));
+        return names;
+    }
 
-        val directoryPackageName = packageName.replace(".", File.separator);
-        val urls = classLoaderToUse.getResources(directoryPackageName);
-        while(urls.hasMoreElements()) {
-            val packageURL = urls.nextElement();
-
-            if ("jar".equals(packageURL.getProtocol())) {
-                Enumeration<JarEntry> jarEntries;
-                String entryName;
-
-                // build jar file name, then loop through zipped entries
-                String jarFileName = URLDecoder.decode(packageURL.getFile(), "UTF-8");
-                jarFileName = jarFileName.substring(5, jarFileName.indexOf("!"));
-
-                val jf = new JarFile(jarFileName);
-                jarEntries = jf.entries();
-                while (jarEntries.hasMoreElements()) {
-                    entryName = jarEntries.nextElement().getName();
-                    if (!entryName.endsWith(".class")) continue;
-                    entryName = entryName.substring(0, entryName.lastIndexOf('.'));
-                    entryName = entryName.replace('/', '.');
-                    names.add(entryName);
-                }
+    /**
+     * Find the classpath roots which may contain each package, so that every root can be opened once for all of its
+     * packages. The roots of class loaders which can be enumerated are discovered without looking up any package,
+     * and other class loaders, such as those of the Java runtime, are asked for the resources of each package
+     *
+     * @see ClasspathDiscovery
+     *
+     * @param packageNames - the packages to find
+     * @return the packages which may be contained by each root
+     */
+    protected Map<ClasspathRoot, Set<String>> findRoots(Collection<String> packageNames) throws IOException, URISyntaxException {
+        val roots = new LinkedHashMap<ClasspathRoot, Set<String>>();
+        for (val classLoader : ClasspathDiscovery.hierarchy(classLoaderToUse))
+            addRoots(classLoader, packageNames, roots);
+        return roots;
+    }
 
-                // loop through files in classpath
-            } else {
-                val uri = new URI(packageURL.toString());
-                val folder = new File(uri.getPath());
-                val files = folder.listFiles();
-                if (files == null) continue;
-                String entryName;
-                for (val file : files) {
-                    entryName = file.getName();
-                    if (!entryName.endsWith(".class")) continue;
-                    entryName = packageName + "." + entryName.substring(0, entryName.lastIndexOf('.'));
-                    entryName = entryName.replace('/', '.');
-                    names.add(entryName);
-                }
+    /**
+     * Add the roots of a single class loader, excluding those of its parents if it can be enumerated
+     */
+    private void addRoots(ClassLoader classLoader, Collection<String> packageNames, Map<ClasspathRoot, Set<String>> roots)
+        throws IOException, URISyntaxException {
+        if (ClasspathDiscovery.isEnumerable(classLoader)) {
+            for (val root : discoverRoots(classLoader))
+                roots.computeIfAbsent(root, r -> new HashSet<>()).addAll(packageNames);
+            return;
+        }
+        for (val packageName : packageNames) {
+            val urls = classLoader.getResources(packageName.replace('.', '/'));
+            while (urls.hasMoreElements()) {
+                val root = ClasspathRoot.of(urls.nextElement(), packageName);
+                roots.computeIfAbsent(root, r -> new HashSet<>()).add(packageName);
             }
         }
-        return names;
+    }
+
+    private List<ClasspathRoot> discoverRoots(ClassLoader classLoader) {
+        List<ClasspathRoot> roots = cache == null ? null : cache.getRoots(classLoader);
+        if (roots == null) {
+            roots = ClasspathDiscovery.roots(classLoader);
+            if (cache != null)
+                cache.putRoots(classLoader, roots);
+        }
+        return roots;
     }
 
 }
@@ -0,0 +1,135 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.AnnotationDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.val;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Reads and writes the class index generated at build time by {@link AnnotationIndexProcessor}.
+ *
+ * The index is a UTF-8 text resource with one tab separated entry per line. Each class is described by a line
+ * "C access name superclass interfaces", followed by a line "F access name descriptor" for each of its fields and
+ * "M access name descriptor" for each of its methods and constructors. Every "A annotation" line lists a runtime
+ * visible annotation of the preceding class, field or method. A "-" stands for no superclass or no interfaces, and
+ * interfaces are separated by commas. Annotation element values are not recorded
+ */
+final class BuildIndex {
+
+    static final String RESOURCE = "META-INF/annotation-scanner/index";
+    static final String HEADER = "# annotation-scanner index 1";
+
+    private BuildIndex() {}
+
+    static void write(Collection<ClassFileDescriptor> classFiles, Writer out) throws IOException {
+        out.write(HEADER);
+        out.write('\n');
+        for (val classFile : classFiles) {
+            val interfaces = classFile.getInterfaceNames().isEmpty() ? "-" : String.join(",", classFile.getInterfaceNames());
+            line(out, "C", Integer.toString(classFile.getAccessFlags()), classFile.getClassName(),
+                classFile.getSuperClassName() == null ? "-" : classFile.getSuperClassName(), interfaces);
+            writeAnnotations(classFile.getAnnotations(), out);
+            for (val field : classFile.getFields())
+                writeMember("F", field, out);
+            for (val method : classFile.getMethods())
+                writeMember("M", method, out);
+        }
+    }
+
+    private static void writeMember(String kind, MemberDescriptor member, Writer out) throws IOException {
+        line(out, kind, Integer.toString(member.getAccessFlags()), member.getName(), member.getDescriptor());
+        writeAnnotations(member.getAnnotations(), out);
+    }
+
+    private static void writeAnnotations(List<AnnotationDescriptor> annotations, Writer out) throws IOException {
+        for (val annotation : annotations)
+            line(out, "A", annotation.getTypeName());
+    }
+
+    private static void line(Writer out, String... columns) throws IOException {
+        out.write(String.join("\t", columns));
+        out.write('\n');
+    }
+
+    /**
+     * @param in - the index resource, which is not closed
+     * @return the classes described by the index
+     * @throws IOException if the index can not be read or is not a well formed index
+     */
+    static List<ClassFileDescriptor> read(InputStream in) throws IOException {
+        val reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (!HEADER.equals(reader.readLine()))
+            throw new IOException("Unsupported annotation index");
+
+        val classFiles = new ArrayList<ClassFileDescriptor>();
+        Entry classEntry = null;
+        Entry last = null;
+        List<Entry> members = new ArrayList<>();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+                val columns = line.split("\t");
+                switch (columns[0]) {
+                    case "C":
+                        if (classEntry != null)
+                            classFiles.add(classFile(classEntry, members));
+                        classEntry = last = new Entry(columns);
+                        members = new ArrayList<>();
+                        break;
+                    case "F":
+                    case "M":
+                        last = new Entry(columns);
+                        members.add(last);
+                        break;
+                    case "A":
+                        last.annotations.add(AnnotationDescriptor.withoutValues(columns[1]));
+                        break;
+                    default:
+                        throw new IOException("Unknown annotation index entry " + line);
+                }
+            }
+            if (classEntry != null)
+                classFiles.add(classFile(classEntry, members));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed annotation index", e);
+        }
+        return classFiles;
+    }
+
+    private static final class Entry {
+        final String[] columns;
+        final List<AnnotationDescriptor> annotations = new ArrayList<>();
+
+        Entry(String[] columns) {
+            this.columns = columns;
+        }
+    }
+
+    private static ClassFileDescriptor classFile(Entry classEntry, List<Entry> members) {
+        val fields = new ArrayList<MemberDescriptor>();
+        val methods = new ArrayList<MemberDescriptor>();
+        for (val member : members) {
+            val c = member.columns;
+            (c[0].equals("F") ? fields : methods).add(new MemberDescriptor(Integer.parseInt(c[1]), c[2], c[3], member.annotations));
+        }
+
+        val c = classEntry.columns;
+        val superClassName = "-".equals(c[3]) ? null : c[3];
+        val interfaceNames = "-".equals(c[4]) ? Collections.<String>emptyList() : asList(c[4].split(","));
+        return new ClassFileDescriptor(c[2], Integer.parseInt(c[1]), superClassName, interfaceNames, classEntry.annotations, fields, methods);
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+import lombok.val;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lightweight view of a class file, as read by {@link ClassFileReader}. Describes the class, its direct supertypes,
+ * its members and the runtime visible annotations present on each without loading the class into the JVM.
+ *
+ * All type names are formatted as returned by {@link Class#getName()}, for example "java.lang.String" or "a.b.Outer$Inner"
+ */
+@Getter
+@ToString(of = "className")
+public class ClassFileDescriptor {
+
+    public static final String CONSTRUCTOR_NAME = "<init>";
+    public static final String STATIC_INITIALIZER_NAME = "<clinit>";
+
+    private final String className;
+    private final int accessFlags;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final List<AnnotationDescriptor> annotations;
+    private final List<MemberDescriptor> fields;
+    private final List<MemberDescriptor> methods;
+
+    public ClassFileDescriptor(String className, int accessFlags, String superClassName, List<String> interfaceNames,
+                               List<AnnotationDescriptor> annotations, List<MemberDescriptor> fields, List<MemberDescriptor> methods) {
+        this.className = className;
+        this.accessFlags = accessFlags;
+        this.superClassName = superClassName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.annotations = Collections.unmodifiableList(annotations);
+        this.fields = Collections.unmodifiableList(fields);
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    public boolean isInterface() {
+        return Modifier.isInterface(accessFlags);
+    }
+
+    public boolean isAnnotation() {
+        return (accessFlags & 0x2000) != 0;
+    }
+
+    /**
+     * @return a rough estimate of the heap occupied by this descriptor, in bytes
+     */
+    long estimatedSize() {
+        long size = 64 + 2L * className.length() + (superClassName == null ? 0 : 2L * superClassName.length());
+        for (val interfaceName : interfaceNames)
+            size += 24 + 2L * interfaceName.length();
+        size += estimatedSize(annotations);
+        for (val member : fields)
+            size += 48 + 2L * (member.getName().length() + member.getDescriptor().length()) + estimatedSize(member.getAnnotations());
+        for (val member : methods)
+            size += 48 + 2L * (member.getName().length() + member.getDescriptor().length()) + estimatedSize(member.getAnnotations());
+        return size;
+    }
+
+    private static long estimatedSize(List<AnnotationDescriptor> annotations) {
+        long size = 0;
+        for (val annotation : annotations)
+            size += 48 + 2L * annotation.getTypeName().length() + 64L * annotation.getValues().size();
+        return size;
+    }
+
+    public String getPackageName() {
+        val index = className.lastIndexOf('.');
+        return index < 0 ? "" : className.substring(0, index);
+    }
+
+    /**
+     * @param annotationTypeName - the name of the annotation type
+     * @return true if this class is directly annotated with the given annotation type
+     */
+    public boolean hasAnnotation(String annotationTypeName) {
+        return findAnnotation(annotations, annotationTypeName) != null;
+    }
+
+    static AnnotationDescriptor findAnnotation(List<AnnotationDescriptor> annotations, String annotationTypeName) {
+        for (val annotation : annotations) {
+            if (annotation.getTypeName().equals(annotationTypeName))
+                return annotation;
+        }
+        return null;
+    }
+
+    /**
+     * A field, method or constructor declared by a class file. Constructors are methods named {@link #CONSTRUCTOR_NAME}
+     */
+    @Getter
+    @EqualsAndHashCode(of = {"name", "descriptor"})
+    @ToString(of = {"name", "descriptor"})
+    public static class MemberDescriptor {
+        private final int accessFlags;
+        private final String name;
+        private final String descriptor;
+        private final List<AnnotationDescriptor> annotations;
+
+        public MemberDescriptor(int accessFlags, String name, String descriptor, List<AnnotationDescriptor> annotations) {
+            this.accessFlags = accessFlags;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.annotations = Collections.unmodifiableList(annotations);
+        }
+
+        public boolean isConstructor() {
+            return CONSTRUCTOR_NAME.equals(name);
+        }
+
+        public boolean isStaticInitializer() {
+            return STATIC_INITIALIZER_NAME.equals(name);
+        }
+
+        public boolean isPublic() {
+            return Modifier.isPublic(accessFlags);
+        }
+
+        public boolean hasAnnotation(String annotationTypeName) {
+            return findAnnotation(annotations, annotationTypeName) != null;
+        }
+    }
+
+    /**
+     * A runtime visible annotation and its explicitly set element values.
+     *
+     * Element values are represented as boxed primitives, {@link String}s, {@link EnumValue}s, {@link ClassValue}s,
+     * nested {@link AnnotationDescriptor}s or {@link List}s of those. Default values are not included. Build time
+     * indexes only record the annotation types, in which case the values are empty and not recorded
+     */
+    @Value
+    @AllArgsConstructor
+    public static class AnnotationDescriptor {
+        String typeName;
+        Map<String, Object> values;
+        /**
+         * False if the element values were not recorded, so that the values of the annotation are unknown
+         */
+        boolean valuesRecorded;
+
+        public AnnotationDescriptor(String typeName, Map<String, Object> values) {
+            this(typeName, values, true);
+        }
+
+        /**
+         * @return a descriptor of an annotation whose element values were not recorded
+         */
+        static AnnotationDescriptor withoutValues(String typeName) {
+            return new AnnotationDescriptor(typeName, Collections.emptyMap(), false);
+        }
+    }
+
+    /**
+     * The value of an enum constant annotation element
+     */
+    @Value
+    public static class EnumValue {
+        String typeName;
+        String name;
+    }
+
+    /**
+     * The value of a class literal annotation element, formatted as returned by {@link Class#getName()}, for example
+     * "java.lang.String", "int" or "[Ljava.lang.String;"
+     */
+    @Value
+    public static class ClassValue {
+        String typeName;
+    }
+}
@@ -0,0 +1,218 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and memoizes {@link ClassFileDescriptor}s from the resources of a {@link ClassLoader} without loading any classes.
+ *
+ * Instances are thread safe and are intended to live for the duration of a single scan. When bounded, the least
+ * recently used descriptors are discarded once the estimated size of those retained exceeds the bound, and are read
+ * again if needed, so memory stays bounded however many classes are scanned
+ */
+class ClassFileHierarchy {
+
+    private final ClassLoader classLoader;
+    private final ScanMetrics metrics;
+    private final Map<String, Optional<ClassFileDescriptor>> descriptors;
+    private final Map<String, Optional<List<ClassFileDescriptor>>> supertypes;
+    private final long maximumSize;
+    private long retainedSize;
+
+    ClassFileHierarchy(ClassLoader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * @param classLoader - the class loader to read class files from
+     * @param metrics - records the class files read, or null
+     */
+    ClassFileHierarchy(ClassLoader classLoader, ScanMetrics metrics) {
+        this(classLoader, metrics, 0);
+    }
+
+    /**
+     * @param classLoader - the class loader to read class files from
+     * @param metrics - records the class files read, or null
+     * @param maximumSize - the estimated size in bytes of the descriptors to retain, or 0 to retain every descriptor
+     */
+    ClassFileHierarchy(ClassLoader classLoader, ScanMetrics metrics, long maximumSize) {
+        this.classLoader = classLoader;
+        this.metrics = metrics;
+        this.maximumSize = maximumSize;
+        if (maximumSize > 0) {
+            // supertypes are resolved again from the retained descriptors, which would otherwise be held by their lists
+            this.descriptors = new LinkedHashMap<>(16, 0.75f, true);
+            this.supertypes = null;
+        } else {
+            this.descriptors = new ConcurrentHashMap<>();
+            this.supertypes = new ConcurrentHashMap<>();
+        }
+    }
+
+    static String resourceName(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+
+    /**
+     * @param className - the binary name of the class
+     * @return the descriptor of the class, or null if its class file can not be found or read
+     */
+    ClassFileDescriptor get(String className) {
+        if (maximumSize > 0)
+            return getBounded(className);
+        Optional<ClassFileDescriptor> descriptor = descriptors.get(className);
+        if (descriptor == null) {
+            descriptor = Optional.ofNullable(read(className));
+            descriptors.put(className, descriptor);
+        }
+        return descriptor.orElse(null);
+    }
+
+    private ClassFileDescriptor getBounded(String className) {
+        Optional<ClassFileDescriptor> descriptor;
+        synchronized (descriptors) {
+            descriptor = descriptors.get(className);
+        }
+        if (descriptor == null) {
+            // read outside the lock, so that threads only wait for each other to update the map
+            descriptor = Optional.ofNullable(read(className));
+            retain(className, descriptor);
+        }
+        return descriptor.orElse(null);
+    }
+
+    private void retain(String className, Optional<ClassFileDescriptor> descriptor) {
+        synchronized (descriptors) {
+            val previous = descriptors.put(className, descriptor);
+            retainedSize += sizeOf(descriptor) - (previous == null ? 0 : sizeOf(previous));
+            val iterator = descriptors.values().iterator();
+            while (retainedSize > maximumSize && iterator.hasNext()) {
+                retainedSize -= sizeOf(iterator.next());
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long sizeOf(Optional<ClassFileDescriptor> descriptor) {
+        return descriptor.isPresent() ? descriptor.get().estimatedSize() : 16;
+    }
+
+    /**
+     * Add a descriptor obtained by other means than reading a class file, such as from an index
+     */
+    void put(ClassFileDescriptor classFile) {
+        if (maximumSize > 0)
+            retain(classFile.getClassName(), Optional.of(classFile));
+        else
+            descriptors.put(classFile.getClassName(), Optional.of(classFile));
+    }
+
+    /**
+     * @return the estimated size in bytes of the descriptors retained, when bounded
+     */
+    long getRetainedSize() {
+        synchronized (descriptors) {
+            return retainedSize;
+        }
+    }
+
+    protected ClassFileDescriptor read(String className) {
+        val start = System.nanoTime();
+        try (InputStream in = classLoader.getResourceAsStream(resourceName(className))) {
+            if (in == null)
+                return null;
+            val bytes = ClassFileReader.readFully(in);
+            val classFile = ClassFileReader.read(bytes);
+            if (metrics != null)
+                metrics.classFileRead(className, bytes.length, start);
+            return classFile;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param classFile - the class to resolve the supertypes of
+     * @return every superclass and superinterface of the class, direct or indirect, or null if any could not be read
+     */
+    List<ClassFileDescriptor> getSupertypes(ClassFileDescriptor classFile) {
+        if (supertypes == null)
+            return resolveSupertypes(classFile);
+        Optional<List<ClassFileDescriptor>> resolved = supertypes.get(classFile.getClassName());
+        if (resolved == null) {
+            resolved = Optional.ofNullable(resolveSupertypes(classFile));
+            supertypes.put(classFile.getClassName(), resolved);
+        }
+        return resolved.orElse(null);
+    }
+
+    private List<ClassFileDescriptor> resolveSupertypes(ClassFileDescriptor classFile) {
+        List<ClassFileDescriptor> result = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<String> directSupertypes = new ArrayList<>(classFile.getInterfaceNames());
+        if (classFile.getSuperClassName() != null)
+            directSupertypes.add(classFile.getSuperClassName());
+
+        for (String name : directSupertypes) {
+            ClassFileDescriptor supertype = get(name);
+            if (supertype == null)
+                return null;
+            List<ClassFileDescriptor> transitive = getSupertypes(supertype);
+            if (transitive == null)
+                return null;
+            if (seen.add(name))
+                result.add(supertype);
+            for (ClassFileDescriptor t : transitive) {
+                if (seen.add(t.getClassName()))
+                    result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param classFile - the class to resolve the superclasses of
+     * @return the superclasses of the class, nearest first, or null if any could not be read
+     */
+    List<ClassFileDescriptor> getSuperclasses(ClassFileDescriptor classFile) {
+        List<ClassFileDescriptor> result = new ArrayList<>();
+        for (String name = classFile.getSuperClassName(); name != null; ) {
+            ClassFileDescriptor superclass = get(name);
+            if (superclass == null)
+                return null;
+            result.add(superclass);
+            name = superclass.getSuperClassName();
+        }
+        return result;
+    }
+
+    /**
+     * @param classFile - a class
+     * @param typeName - the name of a class or interface
+     * @return true if the class is the named type or one of its subtypes, false if it is not,
+     * or null if the hierarchy could not be fully read
+     */
+    Boolean isSubtype(ClassFileDescriptor classFile, String typeName) {
+        if (classFile.getClassName().equals(typeName))
+            return true;
+        List<ClassFileDescriptor> all = getSupertypes(classFile);
+        if (all == null)
+            return null;
+        for (ClassFileDescriptor supertype : all) {
+            if (supertype.getClassName().equals(typeName))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches class files against the criteria of an {@link AnnotationScanner}, producing the same results a reflective
+ * scan would produce but described as {@link ResultRecord}s.
+ *
+ * The reflective lookups of {@link AnnotationScanner#scanClass(Class, Collection)} are mirrored: type annotations
+ * include {@link Inherited} annotations of superclasses, methods include the public methods inherited from supertypes
+ * which are not overridden, and fields include the public fields of supertypes
+ */
+class ClassFileMatcher {
+
+    private final Set<String> typeAnnotations = new HashSet<>();
+    private final Set<String> directTypeAnnotations;
+    private final Set<String> inheritedTypeAnnotations = new HashSet<>();
+    private final Map<String, Set<String>> annotatedTypes = new HashMap<>();
+    private final Set<String> methodAnnotations;
+    private final Set<String> fieldAnnotations;
+    private final Set<String> constructorAnnotations;
+    private final boolean includePackageContents;
+    private final boolean reflectionRequired;
+    private final List<ElementQuery> queries;
+
+    ClassFileMatcher(AnnotationScanner scanner) {
+        for (val annotationClass : scanner.typeAnnotations)
+            addTypeAnnotation(annotationClass);
+        for (val annotatedType : scanner.annotatedTypes) {
+            addTypeAnnotation(annotatedType.getAnnotation());
+            annotatedTypes.computeIfAbsent(annotatedType.getAnnotation().getName(), a -> new HashSet<>())
+                .add(annotatedType.getType().getName());
+        }
+        directTypeAnnotations = names(scanner.typeAnnotations);
+        methodAnnotations = names(scanner.methodAnnotations);
+        fieldAnnotations = names(scanner.fieldAnnotations);
+        constructorAnnotations = names(scanner.constructorAnnotations);
+        includePackageContents = scanner.includePackageContentsByDefault;
+        reflectionRequired = scanner.metaAnnotations || scanner.inheritedMethodAnnotations;
+        queries = new ArrayList<>(scanner.queries);
+    }
+
+    private void addTypeAnnotation(Class<? extends Annotation> annotationClass) {
+        typeAnnotations.add(annotationClass.getName());
+        if (annotationClass.isAnnotationPresent(Inherited.class))
+            inheritedTypeAnnotations.add(annotationClass.getName());
+    }
+
+    private static Set<String> names(Collection<Class<? extends Annotation>> annotationClasses) {
+        val names = new HashSet<String>();
+        for (val annotationClass : annotationClasses)
+            names.add(annotationClass.getName());
+        return names;
+    }
+
+    /**
+     * @param classFile - the class to match
+     * @param classFiles - used to read the class files of supertypes
+     * @return the results for the class, or null if the class files of its supertypes could not all be read or the
+     * class must be matched by reflection, as when matching meta-annotations
+     */
+    List<ResultRecord> match(ClassFileDescriptor classFile, ClassFileHierarchy classFiles) {
+        if (reflectionRequired)
+            return null;
+        val className = classFile.getClassName();
+        val records = new LinkedHashSet<ResultRecord>();
+
+        if (!typeAnnotations.isEmpty() && !matchType(classFile, classFiles, records))
+            return null;
+
+        if (!methodAnnotations.isEmpty() || !fieldAnnotations.isEmpty() || !constructorAnnotations.isEmpty()) {
+            val signatures = new HashSet<String>();
+            for (val method : classFile.getMethods()) {
+                if (method.isStaticInitializer())
+                    continue;
+                if (method.isConstructor()) {
+                    addMembers(records, className, className, ElementType.CONSTRUCTOR, method, constructorAnnotations);
+                } else {
+                    signatures.add(signature(method));
+                    addMembers(records, className, className, ElementType.METHOD, method, methodAnnotations);
+                }
+            }
+            for (val field : classFile.getFields())
+                addMembers(records, className, className, ElementType.FIELD, field, fieldAnnotations);
+
+            if (!methodAnnotations.isEmpty() || !fieldAnnotations.isEmpty()) {
+                val supertypes = classFiles.getSupertypes(classFile);
+                if (supertypes == null)
+                    return null;
+                for (val supertype : orderSupertypes(supertypes)) {
+                    for (val method : supertype.getMethods()) {
+                        if (!method.isPublic() || method.isConstructor() || method.isStaticInitializer())
+                            continue;
+                        if (supertype.isInterface() && Modifier.isStatic(method.getAccessFlags()))
+                            continue;
+                        // an overriding method hides the annotations of the method it overrides
+                        if (signatures.add(signature(method)))
+                            addMembers(records, className, supertype.getClassName(), ElementType.METHOD, method, methodAnnotations);
+                    }
+                    for (val field : supertype.getFields()) {
+                        if (field.isPublic())
+                            addMembers(records, className, supertype.getClassName(), ElementType.FIELD, field, fieldAnnotations);
+                    }
+                }
+            }
+        }
+
+        for (val query : queries) {
+            if (!query.match(classFile, records))
+                return null;
+        }
+
+        if (records.isEmpty() && includePackageContents)
+            records.add(new ResultRecord(className, ElementType.TYPE, className, null, null, null, false));
+
+        return new ArrayList<>(records);
+    }
+
+    private boolean matchType(ClassFileDescriptor classFile, ClassFileHierarchy classFiles, Set<ResultRecord> records) {
+        val className = classFile.getClassName();
+        val found = new HashSet<String>();
+        for (val annotation : classFile.getAnnotations()) {
+            if (typeAnnotations.contains(annotation.getTypeName()))
+                found.add(annotation.getTypeName());
+        }
+
+        if (!inheritedTypeAnnotations.isEmpty() && !found.containsAll(inheritedTypeAnnotations)) {
+            val superclasses = classFiles.getSuperclasses(classFile);
+            if (superclasses == null)
+                return false;
+            for (val superclass : superclasses) {
+                for (val annotation : superclass.getAnnotations()) {
+                    if (inheritedTypeAnnotations.contains(annotation.getTypeName()))
+                        found.add(annotation.getTypeName());
+                }
+            }
+        }
+
+        for (val annotationName : found) {
+            val types = annotatedTypes.get(annotationName);
+            boolean matched = directTypeAnnotations.contains(annotationName);
+            if (!matched && types != null) {
+                for (val type : types) {
+                    val subtype = classFiles.isSubtype(classFile, type);
+                    if (subtype == null)
+                        return false;
+                    matched |= subtype;
+                }
+            }
+            if (matched)
+                records.add(new ResultRecord(className, ElementType.TYPE, className, null, null, annotationName, true));
+        }
+        return true;
+    }
+
+    /**
+     * Order supertypes so that superclasses, nearest first, come before interfaces, as with {@link Class#getMethods()}
+     */
+    private static List<ClassFileDescriptor> orderSupertypes(List<ClassFileDescriptor> supertypes) {
+        val ordered = new ArrayList<ClassFileDescriptor>(supertypes.size());
+        for (val supertype : supertypes) {
+            if (!supertype.isInterface())
+                ordered.add(supertype);
+        }
+        for (val supertype : supertypes) {
+            if (supertype.isInterface())
+                ordered.add(supertype);
+        }
+        return ordered;
+    }
+
+    private static String signature(MemberDescriptor method) {
+        val descriptor = method.getDescriptor();
+        return method.getName() + descriptor.substring(0, descriptor.indexOf(')') + 1);
+    }
+
+    private static void addMembers(Set<ResultRecord> records, String className, String declaringClassName, ElementType elementType,
+                                   MemberDescriptor member, Set<String> annotationNames) {
+        if (annotationNames.isEmpty())
+            return;
+        for (val annotation : member.getAnnotations()) {
+            if (annotationNames.contains(annotation.getTypeName()))
+                records.add(new ResultRecord(className, elementType, declaringClassName, member.getName(),
+                    member.getDescriptor(), annotation.getTypeName(), true));
+        }
+    }
+}
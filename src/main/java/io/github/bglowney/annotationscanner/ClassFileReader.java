@@ -0,0 +1,372 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.AnnotationDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.ClassValue;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.EnumValue;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads {@link ClassFileDescriptor}s directly from class file bytes.
+ *
+ * Only the constant pool, the class header, the member tables and the RuntimeVisibleAnnotations attributes are
+ * interpreted, all other attributes (including method bodies) are skipped. No classes are loaded or initialized.
+ *
+ * https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ */
+public final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private final byte[] bytes;
+    private int position;
+    private int[] constantOffsets;
+    private String[] utf8Cache;
+
+    private ClassFileReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Read a class file
+     *
+     * @param bytes - the contents of a .class file
+     * @return a descriptor of the class file
+     * @throws IOException if the bytes are not a well formed class file
+     */
+    public static ClassFileDescriptor read(byte[] bytes) throws IOException {
+        try {
+            return new ClassFileReader(bytes).readClassFile();
+        } catch (ArrayIndexOutOfBoundsException | ClassCastException e) {
+            throw new IOException("Malformed class file", e);
+        }
+    }
+
+    /**
+     * Read only the header of a class file, which names the class and its direct supertypes. The members and
+     * annotations of the descriptor returned are always empty
+     *
+     * @param bytes - the contents of a .class file
+     * @return a descriptor of the class header
+     * @throws IOException if the bytes are not a well formed class file
+     */
+    static ClassFileDescriptor readHeader(byte[] bytes) throws IOException {
+        try {
+            return new ClassFileReader(bytes).readClassHeader();
+        } catch (ArrayIndexOutOfBoundsException | ClassCastException e) {
+            throw new IOException("Malformed class file", e);
+        }
+    }
+
+    /**
+     * Read a class file. The stream is read fully but is not closed
+     *
+     * @param in - a stream over the contents of a .class file
+     * @return a descriptor of the class file
+     * @throws IOException if the stream can not be read or is not a well formed class file
+     */
+    public static ClassFileDescriptor read(InputStream in) throws IOException {
+        return read(readFully(in));
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        val out = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+        val buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    /**
+     * Convert an internal name such as "java/lang/String" to the format returned by {@link Class#getName()}
+     *
+     * @param internalName - the internal form of a class name
+     * @return the binary name of the class
+     */
+    public static String toClassName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    /**
+     * Convert a field descriptor such as "Ljava/lang/String;" or "I" to the format returned by {@link Class#getName()}
+     *
+     * @param descriptor - a field descriptor
+     * @return the name of the described type
+     */
+    public static String descriptorToClassName(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'B': return "byte";
+            case 'C': return "char";
+            case 'D': return "double";
+            case 'F': return "float";
+            case 'I': return "int";
+            case 'J': return "long";
+            case 'S': return "short";
+            case 'Z': return "boolean";
+            case 'V': return "void";
+            case 'L': return toClassName(descriptor.substring(1, descriptor.length() - 1));
+            case '[': return toClassName(descriptor);
+            default: throw new IllegalArgumentException("Invalid descriptor " + descriptor);
+        }
+    }
+
+    /**
+     * Split a method descriptor such as "(ILjava/lang/String;)V" into the names of its parameter types,
+     * formatted as returned by {@link Class#getName()}
+     *
+     * @param methodDescriptor - a method descriptor
+     * @return the names of the parameter types in declaration order
+     */
+    public static List<String> parameterTypeNames(String methodDescriptor) {
+        val names = new ArrayList<String>();
+        int i = 1;
+        while (methodDescriptor.charAt(i) != ')') {
+            val start = i;
+            while (methodDescriptor.charAt(i) == '[')
+                i++;
+            if (methodDescriptor.charAt(i) == 'L')
+                i = methodDescriptor.indexOf(';', i);
+            i++;
+            names.add(descriptorToClassName(methodDescriptor.substring(start, i)));
+        }
+        return names;
+    }
+
+    /**
+     * @param methodDescriptor - a method descriptor
+     * @return the name of the return type, formatted as returned by {@link Class#getName()}
+     */
+    public static String returnTypeName(String methodDescriptor) {
+        return descriptorToClassName(methodDescriptor.substring(methodDescriptor.indexOf(')') + 1));
+    }
+
+    private ClassFileDescriptor readClassFile() throws IOException {
+        val header = readClassHeader();
+        val fields = readMembers();
+        val methods = readMembers();
+        val annotations = readAttributes();
+
+        return new ClassFileDescriptor(header.getClassName(), header.getAccessFlags(), header.getSuperClassName(),
+            header.getInterfaceNames(), annotations, fields, methods);
+    }
+
+    /**
+     * Read up to the end of the interfaces, returning a descriptor without members or annotations
+     */
+    private ClassFileDescriptor readClassHeader() throws IOException {
+        if (readInt() != MAGIC)
+            throw new IOException("Not a class file");
+        position += 4; // minor and major version
+        readConstantPool();
+
+        val accessFlags = readUnsignedShort();
+        val className = toClassName(readClassReference());
+        val superClassIndex = readUnsignedShort();
+        String superClassName = superClassIndex == 0 ? null : toClassName(classNameAt(superClassIndex));
+
+        val interfaceCount = readUnsignedShort();
+        val interfaceNames = new ArrayList<String>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++)
+            interfaceNames.add(toClassName(readClassReference()));
+
+        return new ClassFileDescriptor(className, accessFlags, superClassName, interfaceNames,
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+    }
+
+    private void readConstantPool() throws IOException {
+        val count = readUnsignedShort();
+        constantOffsets = new int[count];
+        utf8Cache = new String[count];
+        for (int i = 1; i < count; i++) {
+            constantOffsets[i] = position + 1;
+            val tag = bytes[position++];
+            switch (tag) {
+                case 1: // Utf8
+                    position += 2 + readUnsignedShortAt(position);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    position += 4;
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    position += 8;
+                    i++; // takes up two entries
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    position += 2;
+                    break;
+                case 15: // MethodHandle
+                    position += 3;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    private List<MemberDescriptor> readMembers() throws IOException {
+        val count = readUnsignedShort();
+        val members = new ArrayList<MemberDescriptor>(count);
+        for (int i = 0; i < count; i++) {
+            val accessFlags = readUnsignedShort();
+            val name = utf8At(readUnsignedShort());
+            val descriptor = utf8At(readUnsignedShort());
+            members.add(new MemberDescriptor(accessFlags, name, descriptor, readAttributes()));
+        }
+        return members;
+    }
+
+    /**
+     * Read an attribute table, returning the annotations of a RuntimeVisibleAnnotations attribute if present
+     */
+    private List<AnnotationDescriptor> readAttributes() throws IOException {
+        List<AnnotationDescriptor> annotations = Collections.emptyList();
+        val count = readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            val name = utf8At(readUnsignedShort());
+            val length = readInt();
+            val end = position + length;
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+                val annotationCount = readUnsignedShort();
+                annotations = new ArrayList<>(annotationCount);
+                for (int j = 0; j < annotationCount; j++)
+                    annotations.add(readAnnotation());
+            }
+            position = end;
+        }
+        return annotations;
+    }
+
+    private AnnotationDescriptor readAnnotation() throws IOException {
+        val typeName = descriptorToClassName(utf8At(readUnsignedShort()));
+        val pairCount = readUnsignedShort();
+        if (pairCount == 0)
+            return new AnnotationDescriptor(typeName, Collections.emptyMap());
+
+        val values = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < pairCount; i++) {
+            val name = utf8At(readUnsignedShort());
+            values.put(name, readElementValue());
+        }
+        return new AnnotationDescriptor(typeName, Collections.unmodifiableMap(values));
+    }
+
+    private Object readElementValue() throws IOException {
+        val tag = (char) bytes[position++];
+        switch (tag) {
+            case 'B': return (byte) intAt(readUnsignedShort());
+            case 'C': return (char) intAt(readUnsignedShort());
+            case 'S': return (short) intAt(readUnsignedShort());
+            case 'Z': return intAt(readUnsignedShort()) != 0;
+            case 'I': return intAt(readUnsignedShort());
+            case 'F': return Float.intBitsToFloat(intAt(readUnsignedShort()));
+            case 'J': return longAt(readUnsignedShort());
+            case 'D': return Double.longBitsToDouble(longAt(readUnsignedShort()));
+            case 's': return utf8At(readUnsignedShort());
+            case 'e':
+                val enumType = descriptorToClassName(utf8At(readUnsignedShort()));
+                return new EnumValue(enumType, utf8At(readUnsignedShort()));
+            case 'c': return new ClassValue(descriptorToClassName(utf8At(readUnsignedShort())));
+            case '@': return readAnnotation();
+            case '[':
+                val count = readUnsignedShort();
+                val elements = new ArrayList<Object>(count);
+                for (int i = 0; i < count; i++)
+                    elements.add(readElementValue());
+                return Collections.unmodifiableList(elements);
+            default:
+                throw new IOException("Unknown element value tag " + tag);
+        }
+    }
+
+    private String readClassReference() throws IOException {
+        return classNameAt(readUnsignedShort());
+    }
+
+    private String classNameAt(int index) throws IOException {
+        return utf8At(readUnsignedShortAt(constantOffsets[index]));
+    }
+
+    private int intAt(int index) {
+        return readIntAt(constantOffsets[index]);
+    }
+
+    private long longAt(int index) {
+        val offset = constantOffsets[index];
+        return ((long) readIntAt(offset) << 32) | (readIntAt(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private String utf8At(int index) throws IOException {
+        val cached = utf8Cache[index];
+        if (cached != null)
+            return cached;
+
+        val offset = constantOffsets[index];
+        if (offset == 0 || bytes[offset - 1] != 1)
+            throw new IOException("Constant pool entry " + index + " is not a Utf8 entry");
+        val length = readUnsignedShortAt(offset);
+        val start = offset + 2;
+
+        // modified UTF-8 is identical to ASCII for the characters found in nearly all names and descriptors
+        val chars = new char[length];
+        int charCount = 0;
+        int i = start;
+        val end = start + length;
+        while (i < end) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[charCount++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[charCount++] = (char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F));
+            } else {
+                chars[charCount++] = (char) (((b & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+            }
+        }
+        val value = new String(chars, 0, charCount);
+        utf8Cache[index] = value;
+        return value;
+    }
+
+    private int readUnsignedShort() {
+        val value = readUnsignedShortAt(position);
+        position += 2;
+        return value;
+    }
+
+    private int readInt() {
+        val value = readIntAt(position);
+        position += 4;
+        return value;
+    }
+
+    private int readUnsignedShortAt(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private int readIntAt(int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+            | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.val;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Discovers the classpath roots of a class loader hierarchy without looking up any package, so that every root is
+ * found once and listed once for all of the packages scanned, including jars without directory entries, whose
+ * packages can not be found as resources.
+ *
+ * The roots of a {@link URLClassLoader} are its URLs, and the roots of the system class loader of Java 9 and later,
+ * which is not a URLClassLoader, are the entries of the class path and module path. The Class-Path attribute of the
+ * manifest of each jar is followed, as class loaders do. Other class loaders, including those of the Java runtime
+ * itself, can not be enumerated and must be asked for the resources of each package instead
+ */
+class ClasspathDiscovery {
+
+    private static final String MODULE_INFO = "module-info.class";
+
+    private ClasspathDiscovery() {
+    }
+
+    /**
+     * @return the class loader and its parents, the topmost parent first
+     */
+    static List<ClassLoader> hierarchy(ClassLoader classLoader) {
+        val hierarchy = new ArrayList<ClassLoader>();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent())
+            hierarchy.add(loader);
+        Collections.reverse(hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * @return true if the roots of the class loader itself, excluding those of its parents, can be discovered
+     */
+    static boolean isEnumerable(ClassLoader classLoader) {
+        for (ClassLoader runtime = ClassLoader.getSystemClassLoader().getParent(); runtime != null; runtime = runtime.getParent()) {
+            if (runtime == classLoader)
+                return false;
+        }
+        return classLoader instanceof URLClassLoader || classLoader == ClassLoader.getSystemClassLoader();
+    }
+
+    /**
+     * @param classLoader - a class loader for which {@link #isEnumerable(ClassLoader)} is true
+     * @return the roots of the class loader, in the order it searches them
+     */
+    static List<ClasspathRoot> roots(ClassLoader classLoader) {
+        val roots = new LinkedHashSet<ClasspathRoot>();
+        if (classLoader instanceof URLClassLoader) {
+            for (val url : ((URLClassLoader) classLoader).getURLs())
+                addRoot(url, roots);
+        } else {
+            for (val entry : pathEntries(System.getProperty("java.class.path")))
+                addRoot(entry, roots);
+            for (val entry : pathEntries(System.getProperty("jdk.module.path")))
+                addModuleRoots(entry, roots);
+        }
+        return new ArrayList<>(roots);
+    }
+
+    private static void addRoot(URL url, Set<ClasspathRoot> roots) {
+        final ClasspathRoot root;
+        try {
+            root = ClasspathRoot.ofURL(url);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return;
+        }
+        if (root == null || !roots.add(root))
+            return;
+        if (root.getKind() == ClasspathRoot.Kind.JAR && root.getEntryName() == null) {
+            for (val entry : manifestClassPath(root.getPath()))
+                addRoot(entry, roots);
+        }
+    }
+
+    private static void addRoot(Path path, Set<ClasspathRoot> roots) {
+        try {
+            addRoot(path.toUri().toURL(), roots);
+        } catch (MalformedURLException e) {
+            // not a file
+        }
+    }
+
+    /**
+     * An entry of the module path is either a module or a directory of modules
+     */
+    private static void addModuleRoots(Path entry, Set<ClasspathRoot> roots) {
+        if (!Files.isDirectory(entry) || Files.isRegularFile(entry.resolve(MODULE_INFO))) {
+            addRoot(entry, roots);
+            return;
+        }
+        try (DirectoryStream<Path> modules = Files.newDirectoryStream(entry)) {
+            for (val module : modules) {
+                if (module.getFileName().toString().endsWith(".jar") || Files.isRegularFile(module.resolve(MODULE_INFO)))
+                    addRoot(module, roots);
+            }
+        } catch (IOException e) {
+            // an unreadable directory contributes no modules
+        }
+    }
+
+    private static List<Path> pathEntries(String path) {
+        val entries = new ArrayList<Path>();
+        if (path == null)
+            return entries;
+        for (val entry : path.split(File.pathSeparator)) {
+            if (!entry.isEmpty())
+                entries.add(Paths.get(entry));
+        }
+        return entries;
+    }
+
+    /**
+     * @return the URLs of the Class-Path attribute of the jar's manifest, resolved against the jar
+     */
+    private static List<URL> manifestClassPath(Path jar) {
+        val urls = new ArrayList<URL>();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            val manifest = jarFile.getManifest();
+            val classPath = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+            if (classPath == null)
+                return urls;
+            val base = jar.toUri().toURL();
+            for (val entry : asList(classPath.trim().split("\\s+"))) {
+                try {
+                    if (!entry.isEmpty())
+                        urls.add(new URL(base, entry));
+                } catch (MalformedURLException e) {
+                    // ignored, as by class loaders
+                }
+            }
+        } catch (IOException e) {
+            // an unreadable jar is skipped, as by class loaders
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,312 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.val;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A directory or jar file on the classpath from which classes are enumerated, or a directory or jar nested within a
+ * jar file, as packaged by Spring Boot and similar tools
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+class ClasspathRoot {
+
+    enum Kind { DIRECTORY, JAR, NESTED_JAR }
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path path;
+    private final Kind kind;
+    /**
+     * The directory or jar within the jar file at the path which contains the classes, or null if the classes are
+     * at the top of the directory or jar file
+     */
+    private final String entryName;
+
+    ClasspathRoot(Path path, Kind kind) {
+        this(path, kind, null);
+    }
+
+    ClasspathRoot(Path path, Kind kind, String entryName) {
+        this.path = path;
+        this.kind = kind;
+        this.entryName = entryName;
+    }
+
+    /**
+     * Resolve a root from an entry of the classpath, such as one of the URLs of a {@link java.net.URLClassLoader}
+     *
+     * @param url - a "file:" URL of a directory or jar, or a "jar:" URL of a directory or jar within a jar
+     * @return the root, or null if the URL does not exist or is of another protocol
+     */
+    static ClasspathRoot ofURL(URL url) throws URISyntaxException {
+        if ("jar".equals(url.getProtocol()))
+            return ofJar(url.getPath());
+        if (!"file".equals(url.getProtocol()))
+            return null;
+
+        val path = Paths.get(url.toURI());
+        if (Files.isDirectory(path))
+            return new ClasspathRoot(path, Kind.DIRECTORY);
+        return Files.isRegularFile(path) ? new ClasspathRoot(path, Kind.JAR) : null;
+    }
+
+    /**
+     * Resolve the root containing a package from the URL of the package's directory, as returned by
+     * {@link ClassLoader#getResources(String)}
+     *
+     * @param packageURL - the URL of the package directory
+     * @param packageName - the package, formatted with '.' as the namespace delimiter
+     * @return the root the package directory belongs to
+     */
+    static ClasspathRoot of(URL packageURL, String packageName) throws URISyntaxException {
+        return ofResource(packageURL, packageName.replace('.', '/'));
+    }
+
+    /**
+     * Resolve the root containing a resource from the URL of the resource, as returned by
+     * {@link ClassLoader#getResources(String)}
+     *
+     * @param resourceURL - the URL of the resource
+     * @param resourceName - the name of the resource, formatted with '/' as the delimiter
+     * @return the root the resource belongs to
+     */
+    static ClasspathRoot ofResource(URL resourceURL, String resourceName) throws URISyntaxException {
+        if ("jar".equals(resourceURL.getProtocol())) {
+            val file = resourceURL.getPath();
+            return ofJar(file.substring(0, file.lastIndexOf("!/") + 2));
+        }
+
+        // a jrt: URL names a resource of a module of the Java 9+ runtime image, the module directory being the root
+        val uri = resourceURL.toURI();
+        Path root = "file".equals(uri.getScheme()) || "jrt".equals(uri.getScheme()) ? Paths.get(uri) : Paths.get(uri.getPath());
+        for (int i = resourceName.indexOf('/'); i >= 0; i = resourceName.indexOf('/', i + 1))
+            root = root.getParent();
+        return new ClasspathRoot(root.getParent(), Kind.DIRECTORY);
+    }
+
+    /**
+     * @param file - the path of a "jar:" URL without any resource name, such as "file:/app.jar!/" or
+     *             "file:/app.jar!/BOOT-INF/lib/library.jar!/"
+     */
+    private static ClasspathRoot ofJar(String file) throws URISyntaxException {
+        val separator = file.indexOf("!/");
+        val jar = Paths.get(new URI(separator < 0 ? file : file.substring(0, separator)));
+        String entryName = separator < 0 ? "" : file.substring(separator + 2);
+        if (entryName.endsWith("!/"))
+            entryName = entryName.substring(0, entryName.length() - 2);
+        while (entryName.endsWith("/"))
+            entryName = entryName.substring(0, entryName.length() - 1);
+
+        if (entryName.isEmpty())
+            return new ClasspathRoot(jar, Kind.JAR);
+        return new ClasspathRoot(jar, entryName.endsWith(".jar") ? Kind.NESTED_JAR : Kind.JAR, entryName);
+    }
+
+    /**
+     * @return this root with its path resolved to the real path of the file, so that a root reached through links or
+     * by different paths is recognized as one, or this root if its path can not be resolved
+     */
+    ClasspathRoot canonical() {
+        if (path.getFileSystem() != FileSystems.getDefault())
+            return this;
+        try {
+            val realPath = path.toRealPath();
+            return realPath.equals(path) ? this : new ClasspathRoot(realPath, kind, entryName);
+        } catch (IOException e) {
+            return this;
+        }
+    }
+
+    /**
+     * @return the path of this root, followed by the entry within it for a root nested within a jar
+     */
+    String getLocation() {
+        return entryName == null ? path.toString() : path + "!/" + entryName;
+    }
+
+    /**
+     * List the classes of the given packages within this root. The root is opened once for all packages. Jars are
+     * opened as a zip {@link FileSystem}, which indexes the jar's central directory, so only the entries beneath the
+     * package directories are visited rather than every entry of the jar
+     *
+     * @param packageNames - the packages to list, formatted with '.' as the namespace delimiter
+     * @param includeSubpackages - true if the classes of subpackages should also be listed
+     * @return the names of the classes found
+     */
+    Set<String> listClassNames(Collection<String> packageNames, boolean includeSubpackages) throws IOException {
+        return listClassNames(packageNames, includeSubpackages, null);
+    }
+
+    /**
+     * @see #listClassNames(Collection, boolean)
+     *
+     * @param entriesVisited - incremented for every file or jar entry visited, or null
+     */
+    Set<String> listClassNames(Collection<String> packageNames, boolean includeSubpackages, LongAdder entriesVisited) throws IOException {
+        val names = new HashSet<String>();
+        if (kind == Kind.DIRECTORY) {
+            for (val packageName : distinctPackages(packageNames, includeSubpackages))
+                listClassNames(path, packageName, includeSubpackages, names, entriesVisited);
+        } else if (kind == Kind.JAR) {
+            try (FileSystem zip = FileSystems.newFileSystem(path, (ClassLoader) null)) {
+                val base = zip.getPath(entryName == null ? "/" : "/" + entryName);
+                for (val packageName : distinctPackages(packageNames, includeSubpackages))
+                    listClassNames(base, packageName, includeSubpackages, names, entriesVisited);
+            }
+        } else {
+            listNestedClassNames(packageNames, includeSubpackages, names, entriesVisited);
+        }
+        return names;
+    }
+
+    /**
+     * A jar within a jar can not be opened as a zip {@link FileSystem}, so its entries are read in a single pass
+     */
+    private void listNestedClassNames(Collection<String> packageNames, boolean includeSubpackages, Set<String> names,
+                                      LongAdder entriesVisited) throws IOException {
+        try (FileSystem zip = FileSystems.newFileSystem(path, (ClassLoader) null);
+             ZipInputStream in = new ZipInputStream(Files.newInputStream(zip.getPath("/" + entryName)))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                if (entriesVisited != null)
+                    entriesVisited.increment();
+                val entryPath = entry.getName();
+                if (entry.isDirectory() || !entryPath.endsWith(CLASS_SUFFIX))
+                    continue;
+                val className = entryPath.substring(0, entryPath.length() - CLASS_SUFFIX.length()).replace('/', '.');
+                val packageName = className.lastIndexOf('.') < 0 ? "" : className.substring(0, className.lastIndexOf('.'));
+                if (isInPackages(packageName, packageNames, includeSubpackages))
+                    names.add(className);
+            }
+        }
+    }
+
+    private static boolean isInPackages(String packageName, Collection<String> packageNames, boolean includeSubpackages) {
+        for (val candidate : packageNames) {
+            if (packageName.equals(candidate) || includeSubpackages && packageName.startsWith(candidate + "."))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compute a value which changes whenever the classes of the given packages within this root may have changed.
+     * For jars this is derived from the size and modification time of the jar file, for directories from the
+     * path, size and modification time of every class file within the package directories
+     *
+     * @param packageNames - the packages to fingerprint, formatted with '.' as the namespace delimiter
+     * @param includeSubpackages - true if the classes of subpackages should also be fingerprinted
+     * @return the fingerprint
+     */
+    long fingerprint(Collection<String> packageNames, boolean includeSubpackages) throws IOException {
+        if (kind != Kind.DIRECTORY) {
+            long hash = entryName == null ? FNV_OFFSET_BASIS : mix(FNV_OFFSET_BASIS, entryName.hashCode());
+            return mix(mix(hash, Files.size(path)), Files.getLastModifiedTime(path).toMillis());
+        }
+
+        val hash = new long[] {FNV_OFFSET_BASIS};
+        for (val packageName : new TreeSet<String>(distinctPackages(packageNames, includeSubpackages))) {
+            val directory = path.resolve(packageName.replace('.', '/'));
+            if (!Files.isDirectory(directory))
+                continue;
+            Files.walkFileTree(directory, Collections.emptySet(), includeSubpackages ? Integer.MAX_VALUE : 1, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile() && file.getFileName().toString().endsWith(CLASS_SUFFIX)) {
+                        hash[0] = mix(hash[0], path.relativize(file).toString().hashCode());
+                        hash[0] = mix(hash[0], attributes.size());
+                        hash[0] = mix(hash[0], attributes.lastModifiedTime().toMillis());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return hash[0];
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * When scanning subpackages, drop any package that is itself a subpackage of another, since it will be visited anyway
+     */
+    private static Collection<String> distinctPackages(Collection<String> packageNames, boolean includeSubpackages) {
+        if (!includeSubpackages || packageNames.size() < 2)
+            return packageNames;
+
+        val distinct = new ArrayList<String>();
+        String previous = null;
+        for (val packageName : new TreeSet<String>(packageNames)) {
+            if (previous != null && packageName.startsWith(previous + "."))
+                continue;
+            distinct.add(packageName);
+            previous = packageName;
+        }
+        return distinct;
+    }
+
+    private static void listClassNames(Path base, String packageName, boolean includeSubpackages, Set<String> names,
+                                       LongAdder entriesVisited) throws IOException {
+        val directory = base.resolve(packageName.replace('.', '/'));
+        if (!Files.isDirectory(directory))
+            return;
+
+        if (!includeSubpackages) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + CLASS_SUFFIX)) {
+                for (val entry : entries) {
+                    if (entriesVisited != null)
+                        entriesVisited.increment();
+                    val fileName = entry.getFileName().toString();
+                    names.add(packageName + "." + fileName.substring(0, fileName.length() - CLASS_SUFFIX.length()));
+                }
+            }
+            return;
+        }
+
+        val separator = base.getFileSystem().getSeparator();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (entriesVisited != null)
+                    entriesVisited.increment();
+                val relativePath = base.relativize(file).toString();
+                if (relativePath.endsWith(CLASS_SUFFIX))
+                    names.add(relativePath.substring(0, relativePath.length() - CLASS_SUFFIX.length()).replace(separator, "."));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
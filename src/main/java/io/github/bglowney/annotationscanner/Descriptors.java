@@ -0,0 +1,162 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.val;
+
+import java.lang.annotation.ElementType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts between reflective objects and the names and descriptors used in class files
+ */
+final class Descriptors {
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    static {
+        for (val primitive : new Class<?>[] {boolean.class, byte.class, char.class, short.class, int.class, long.class,
+            float.class, double.class, void.class})
+            PRIMITIVES.put(primitive.getName(), primitive);
+    }
+
+    private Descriptors() {}
+
+    /**
+     * @param type - any type
+     * @return the field descriptor of the type, for example "I" or "Ljava/lang/String;"
+     */
+    static String descriptorOf(Class<?> type) {
+        if (type.isArray())
+            return type.getName().replace('.', '/');
+        if (type == boolean.class) return "Z";
+        if (type == byte.class) return "B";
+        if (type == char.class) return "C";
+        if (type == short.class) return "S";
+        if (type == int.class) return "I";
+        if (type == long.class) return "J";
+        if (type == float.class) return "F";
+        if (type == double.class) return "D";
+        if (type == void.class) return "V";
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+
+    static String descriptorOf(Class<?>[] parameterTypes, Class<?> returnType) {
+        val descriptor = new StringBuilder("(");
+        for (val parameterType : parameterTypes)
+            descriptor.append(descriptorOf(parameterType));
+        return descriptor.append(')').append(descriptorOf(returnType)).toString();
+    }
+
+    /**
+     * @param annotatedElement - a class, method, field or constructor
+     * @return the kind of the element
+     */
+    static ElementType elementTypeOf(Object annotatedElement) {
+        if (annotatedElement instanceof Class)
+            return ElementType.TYPE;
+        if (annotatedElement instanceof Method)
+            return ElementType.METHOD;
+        if (annotatedElement instanceof Field)
+            return ElementType.FIELD;
+        if (annotatedElement instanceof Constructor)
+            return ElementType.CONSTRUCTOR;
+        throw new IllegalArgumentException("Unsupported annotated element " + annotatedElement);
+    }
+
+    /**
+     * @param annotatedElement - a method, field or constructor
+     * @return the name of the member as it appears in the class file
+     */
+    static String nameOf(Object annotatedElement) {
+        if (annotatedElement instanceof Constructor)
+            return ClassFileDescriptor.CONSTRUCTOR_NAME;
+        if (annotatedElement instanceof Method)
+            return ((Method) annotatedElement).getName();
+        if (annotatedElement instanceof Field)
+            return ((Field) annotatedElement).getName();
+        return null;
+    }
+
+    /**
+     * @param annotatedElement - a method, field or constructor
+     * @return the descriptor of the member as it appears in the class file
+     */
+    static String descriptorOfMember(Object annotatedElement) {
+        if (annotatedElement instanceof Method) {
+            val method = (Method) annotatedElement;
+            return descriptorOf(method.getParameterTypes(), method.getReturnType());
+        }
+        if (annotatedElement instanceof Constructor)
+            return descriptorOf(((Constructor<?>) annotatedElement).getParameterTypes(), void.class);
+        if (annotatedElement instanceof Field)
+            return descriptorOf(((Field) annotatedElement).getType());
+        return null;
+    }
+
+    /**
+     * @param annotatedElement - a class, method, field or constructor
+     * @return the class declaring the element, or the class itself
+     */
+    static Class<?> declaringClassOf(Object annotatedElement) {
+        if (annotatedElement instanceof Class)
+            return (Class<?>) annotatedElement;
+        if (annotatedElement instanceof Method)
+            return ((Method) annotatedElement).getDeclaringClass();
+        if (annotatedElement instanceof Field)
+            return ((Field) annotatedElement).getDeclaringClass();
+        return ((Constructor<?>) annotatedElement).getDeclaringClass();
+    }
+
+    /**
+     * Load a class by a name formatted as returned by {@link Class#getName()}, including primitive types. The class
+     * is not initialized
+     */
+    static Class<?> classForName(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        val primitive = PRIMITIVES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, classLoader);
+    }
+
+    /**
+     * Resolve a member declared by a class from its name and descriptor, without enumerating the class's other members
+     *
+     * @param declaringClass - the class declaring the member
+     * @param elementType - one of {@link ElementType#TYPE}, {@link ElementType#METHOD}, {@link ElementType#FIELD}
+     *                    or {@link ElementType#CONSTRUCTOR}
+     * @param name - the name of the member
+     * @param descriptor - the descriptor of the member
+     * @return the class, {@link Method}, {@link Field} or {@link Constructor}
+     */
+    static Object resolveMember(Class<?> declaringClass, ElementType elementType, String name, String descriptor)
+        throws ClassNotFoundException, NoSuchMethodException, NoSuchFieldException {
+        switch (elementType) {
+            case TYPE:
+                return declaringClass;
+            case FIELD:
+                return declaringClass.getDeclaredField(name);
+            case METHOD:
+                val method = declaringClass.getDeclaredMethod(name, parameterTypes(declaringClass, descriptor));
+                if (descriptorOfMember(method).equals(descriptor))
+                    return method;
+                // a bridge method has the name and parameter types of the method it bridges to, but not its return type
+                for (val candidate : declaringClass.getDeclaredMethods()) {
+                    if (candidate.getName().equals(name) && descriptorOfMember(candidate).equals(descriptor))
+                        return candidate;
+                }
+                throw new NoSuchMethodException(declaringClass.getName() + "." + name + descriptor);
+            case CONSTRUCTOR:
+                return declaringClass.getDeclaredConstructor(parameterTypes(declaringClass, descriptor));
+            default:
+                throw new IllegalArgumentException("Unsupported element type " + elementType);
+        }
+    }
+
+    private static Class<?>[] parameterTypes(Class<?> declaringClass, String descriptor) throws ClassNotFoundException {
+        val names = ClassFileReader.parameterTypeNames(descriptor);
+        val types = new Class<?>[names.size()];
+        for (int i = 0; i < types.length; i++)
+            types[i] = classForName(names.get(i), declaringClass.getClassLoader());
+        return types;
+    }
+}
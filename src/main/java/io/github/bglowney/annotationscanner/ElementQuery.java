@@ -0,0 +1,134 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.Getter;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link ScanQuery} compiled for the classes or one kind of member of each candidate, as added by
+ * {@link AnnotationScanner#withMethodQuery(ScanQuery)} and the like. The annotation types which may be held by its
+ * results are resolved once, rather than once per element
+ */
+@Getter
+class ElementQuery {
+
+    private final ElementType elementType;
+    private final ScanQuery query;
+    private final List<Class<? extends Annotation>> requiredAnnotations = new ArrayList<>();
+
+    /**
+     * @param elementType - one of {@link ElementType#TYPE}, {@link ElementType#METHOD}, {@link ElementType#FIELD} or
+     *                    {@link ElementType#CONSTRUCTOR}
+     */
+    ElementQuery(ElementType elementType, ScanQuery query) {
+        this.elementType = elementType;
+        this.query = query;
+        query.requiredAnnotations(requiredAnnotations);
+    }
+
+    /**
+     * @return the members of the class file this query applies to, or a list holding only null for the class itself
+     */
+    private List<MemberDescriptor> membersOf(ClassFileDescriptor classFile) {
+        if (elementType == ElementType.TYPE)
+            return Collections.singletonList(null);
+        if (elementType == ElementType.FIELD)
+            return classFile.getFields();
+
+        val members = new ArrayList<MemberDescriptor>();
+        for (val method : classFile.getMethods()) {
+            if (!method.isStaticInitializer() && method.isConstructor() == (elementType == ElementType.CONSTRUCTOR))
+                members.add(method);
+        }
+        return members;
+    }
+
+    /**
+     * @return the elements of the loaded class this query applies to
+     */
+    AnnotatedElement[] elementsOf(Class<?> clazz) {
+        switch (elementType) {
+            case TYPE: return new AnnotatedElement[] {clazz};
+            case METHOD: return clazz.getDeclaredMethods();
+            case FIELD: return clazz.getDeclaredFields();
+            default: return clazz.getDeclaredConstructors();
+        }
+    }
+
+    /**
+     * @param classFile - the class file of a candidate
+     * @return false if no element of the class can match
+     */
+    boolean mightMatch(ClassFileDescriptor classFile) {
+        for (val member : membersOf(classFile)) {
+            if (!Boolean.FALSE.equals(query.test(classFile, member)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Match the elements of a class file, adding a record for each element which certainly matches
+     *
+     * @param classFile - the class file of a candidate
+     * @param records - matches are added to this collection
+     * @return false if some element could not be decided from the class file
+     */
+    boolean match(ClassFileDescriptor classFile, Collection<ResultRecord> records) {
+        val className = classFile.getClassName();
+        boolean decided = true;
+        for (val member : membersOf(classFile)) {
+            val matched = query.test(classFile, member);
+            if (matched == null) {
+                decided = false;
+            } else if (matched) {
+                String annotationName = null;
+                for (val annotationClass : requiredAnnotations) {
+                    val annotations = member == null ? classFile.getAnnotations() : member.getAnnotations();
+                    if (ClassFileDescriptor.findAnnotation(annotations, annotationClass.getName()) != null) {
+                        annotationName = annotationClass.getName();
+                        break;
+                    }
+                }
+                if (member == null)
+                    records.add(new ResultRecord(className, elementType, className, null, null, annotationName, true));
+                else
+                    records.add(new ResultRecord(className, elementType, className, member.getName(), member.getDescriptor(), annotationName, true));
+            }
+        }
+        return decided;
+    }
+
+    /**
+     * @param clazz - the class declaring the element
+     * @param element - an element returned by {@link #elementsOf(Class)}
+     * @param results - a match is added to this collection
+     * @return 1 if the element matched, otherwise 0
+     */
+    int match(Class<?> clazz, AnnotatedElement element, Collection<ScannerResult<?,?>> results) {
+        if (!query.test(element))
+            return 0;
+        Annotation annotation = null;
+        for (val annotationClass : requiredAnnotations) {
+            annotation = element.getDeclaredAnnotation(annotationClass);
+            if (annotation != null)
+                break;
+        }
+        results.add(new ScannerResult<>(clazz, element, annotation));
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return elementType + ":" + query;
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.bglowney.annotationscanner;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import lombok.val;
+
+import java.util.Set;
+
+/**
+ * A {@link ScanListener} which emits Java Flight Recorder events, so that scans can be profiled in production by
+ * starting a recording rather than attaching a profiler. An event is emitted for each completed scan and each
+ * enumerated root, and, if the "io.github.bglowney.annotationscanner.ClassLoaded" event is enabled in the recording
+ * settings, for each loaded class.
+ *
+ * Requires a JVM providing the jdk.jfr API, such as Java 8u262 or later. Other classes of this library do not
+ * depend on it, so it is only needed when this listener is used
+ *
+ * @see AnnotationScanner#withListener(ScanListener)
+ */
+public class JfrScanListener implements ScanListener {
+
+    @Name("io.github.bglowney.annotationscanner.Scan")
+    @Label("Annotation Scan")
+    @Category("Annotation Scanner")
+    @Description("A completed annotation scan")
+    static class ScanEvent extends Event {
+        @Label("Packages")
+        String packages;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+
+        @Label("Roots")
+        int roots;
+
+        @Label("Entries Visited")
+        long entriesVisited;
+
+        @Label("Class Files Read")
+        long classFilesRead;
+
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+
+        @Label("Classes Loaded")
+        long classesLoaded;
+
+        @Label("Members Reflected")
+        long membersReflected;
+
+        @Label("Matches")
+        long matches;
+    }
+
+    @Name("io.github.bglowney.annotationscanner.RootListed")
+    @Label("Classpath Root Listed")
+    @Category("Annotation Scanner")
+    @Description("The classes of a classpath root were enumerated")
+    static class RootListedEvent extends Event {
+        @Label("Root")
+        String root;
+
+        @Label("Packages")
+        String packages;
+
+        @Label("Entries Visited")
+        long entriesVisited;
+
+        @Label("Classes")
+        int classes;
+
+        @Label("Listing Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long listingTime;
+    }
+
+    @Name("io.github.bglowney.annotationscanner.ClassLoaded")
+    @Label("Class Loaded For Scan")
+    @Category("Annotation Scanner")
+    @Description("A class was loaded to be matched")
+    @Enabled(false)
+    static class ClassLoadedEvent extends Event {
+        @Label("Class Name")
+        String className;
+
+        @Label("Loading Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long loadingTime;
+    }
+
+    @Override
+    public void rootListed(String root, Set<String> packages, long entriesVisited, int classCount, long nanos) {
+        val event = new RootListedEvent();
+        if (!event.isEnabled())
+            return;
+        event.root = root;
+        event.packages = String.join(",", packages);
+        event.entriesVisited = entriesVisited;
+        event.classes = classCount;
+        event.listingTime = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void classLoaded(String className, long nanos) {
+        val event = new ClassLoadedEvent();
+        if (!event.isEnabled())
+            return;
+        event.className = className;
+        event.loadingTime = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void scanCompleted(ScanStatistics statistics) {
+        val event = new ScanEvent();
+        if (!event.isEnabled())
+            return;
+        val totals = statistics.getTotals();
+        event.packages = String.join(",", statistics.getPackages());
+        event.elapsed = statistics.getElapsedNanos();
+        event.roots = statistics.getRootCount();
+        event.entriesVisited = totals.getEntriesVisited();
+        event.classFilesRead = totals.getClassFilesRead();
+        event.bytesRead = totals.getBytesRead();
+        event.classesLoaded = totals.getClassesLoaded();
+        event.membersReflected = totals.getMembersReflected();
+        event.matches = totals.getMatches();
+        event.commit();
+    }
+}
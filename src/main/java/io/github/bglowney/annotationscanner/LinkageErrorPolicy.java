@@ -0,0 +1,16 @@
+package io.github.bglowney.annotationscanner;
+
+/**
+ * What an {@link AnnotationScanner} does when a class can not be loaded or reflected over, for example because one of
+ * its dependencies is missing from the classpath or its static initializer fails
+ *
+ * @see AnnotationScanner#withLinkageErrorPolicy(LinkageErrorPolicy)
+ */
+public enum LinkageErrorPolicy {
+    /** abort the scan by rethrowing the error, the default */
+    FAIL,
+    /** leave the class out of the results */
+    SKIP,
+    /** leave the class out of the results and report the error in the failures of the {@link ScanReport} */
+    COLLECT
+}
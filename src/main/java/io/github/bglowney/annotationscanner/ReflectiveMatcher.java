@@ -0,0 +1,311 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.Value;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Matches loaded classes against the criteria of an {@link AnnotationScanner}.
+ *
+ * Each member array of a class is fetched once, and the annotations present on each member are looked up in tables
+ * built from the criteria, so the cost of matching a class grows with the annotations actually present rather than
+ * with the number of annotations requested. {@link ScanQuery}s are compiled once per matcher and are then evaluated
+ * against the declared members of each class.
+ *
+ * Optionally, annotations also match when they are meta-annotated, directly or transitively, with a requested
+ * annotation, and methods also match when a method they override or implement is annotated. The meta-annotations of
+ * each annotation type and the methods of each supertype are resolved once per matcher rather than once per member.
+ *
+ * Instances are thread safe and may be shared between threads
+ */
+class ReflectiveMatcher {
+
+    /**
+     * For each type annotation, the types a class must extend to match, or an empty list if any class matches
+     */
+    private final Map<Class<? extends Annotation>, List<Class<?>>> typeAnnotations = new HashMap<>();
+    private final Set<Class<? extends Annotation>> methodAnnotations;
+    private final Set<Class<? extends Annotation>> fieldAnnotations;
+    private final Set<Class<? extends Annotation>> constructorAnnotations;
+    private final boolean includePackageContents;
+    private final boolean metaAnnotations;
+    private final boolean inheritedMethodAnnotations;
+    private final List<ElementQuery> queries;
+    /**
+     * For each annotation type, the annotations reachable through its meta-annotations, nearest first
+     */
+    private final Map<Class<? extends Annotation>, MetaAnnotations> metaAnnotationCache = new ConcurrentHashMap<>();
+    /**
+     * For each class, its non-private instance methods by name and parameter types
+     */
+    private final Map<Class<?>, Map<List<Object>, Method>> overridableMethodCache = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<Class<?>>> supertypeCache = new ConcurrentHashMap<>();
+
+    /**
+     * Meta-annotations, each with the annotation type declaring it
+     */
+    @Value
+    private static class MetaAnnotations {
+        Annotation[] annotations;
+        Class<?>[] declaringTypes;
+    }
+
+    ReflectiveMatcher(AnnotationScanner scanner) {
+        for (val annotatedType : scanner.annotatedTypes)
+            typeAnnotations.computeIfAbsent(annotatedType.getAnnotation(), a -> new ArrayList<>()).add(annotatedType.getType());
+        // a plain type annotation matches any class, whatever types it is also paired with
+        for (val annotationClass : scanner.typeAnnotations)
+            typeAnnotations.put(annotationClass, new ArrayList<>());
+
+        methodAnnotations = new HashSet<>(scanner.methodAnnotations);
+        fieldAnnotations = new HashSet<>(scanner.fieldAnnotations);
+        constructorAnnotations = new HashSet<>(scanner.constructorAnnotations);
+        includePackageContents = scanner.includePackageContentsByDefault;
+        metaAnnotations = scanner.metaAnnotations;
+        inheritedMethodAnnotations = scanner.inheritedMethodAnnotations;
+        queries = new ArrayList<>(scanner.queries);
+    }
+
+    /**
+     * @param clazz - the class to match
+     * @param results - matches are added to this collection
+     * @param metrics - records the members reflected, or null
+     * @return true if the class matched
+     */
+    boolean match(Class<?> clazz, Collection<ScannerResult<?,?>> results, ScanMetrics metrics) {
+        val start = System.nanoTime();
+        int matches = 0;
+        int members = 0;
+
+        if (!typeAnnotations.isEmpty()) {
+            for (val annotation : clazz.getAnnotations()) {
+                matches += addTypeMatch(clazz, annotation, null, results);
+                if (metaAnnotations) {
+                    val meta = metaAnnotationsOf(annotation.annotationType());
+                    for (int i = 0; i < meta.getAnnotations().length; i++)
+                        matches += addTypeMatch(clazz, meta.getAnnotations()[i], meta.getDeclaringTypes()[i], results);
+                }
+            }
+        }
+
+        if (!methodAnnotations.isEmpty()) {
+            // the public methods of the class itself are also among its declared methods
+            val declaredMethods = clazz.getDeclaredMethods();
+            val methods = clazz.getMethods();
+            members += declaredMethods.length + methods.length;
+            for (val method : declaredMethods)
+                matches += addMethodMatches(clazz, method, results);
+            for (val method : methods) {
+                if (method.getDeclaringClass() != clazz)
+                    matches += addMethodMatches(clazz, method, results);
+            }
+        }
+
+        if (!fieldAnnotations.isEmpty()) {
+            val declaredFields = clazz.getDeclaredFields();
+            val fields = clazz.getFields();
+            members += declaredFields.length + fields.length;
+            for (val field : declaredFields)
+                matches += addMatches(clazz, field, field.getDeclaredAnnotations(), fieldAnnotations, results);
+            for (val field : fields) {
+                if (field.getDeclaringClass() != clazz)
+                    matches += addMatches(clazz, field, field.getDeclaredAnnotations(), fieldAnnotations, results);
+            }
+        }
+
+        // constructors are never inherited, so the public constructors are a subset of the declared constructors
+        if (!constructorAnnotations.isEmpty()) {
+            val constructors = clazz.getDeclaredConstructors();
+            members += constructors.length;
+            for (val constructor : constructors)
+                matches += addMatches(clazz, constructor, constructor.getDeclaredAnnotations(), constructorAnnotations, results);
+        }
+
+        for (val query : queries) {
+            val elements = query.elementsOf(clazz);
+            members += elements.length;
+            for (val element : elements)
+                matches += query.match(clazz, element, results);
+        }
+
+        if (matches == 0 && includePackageContents)
+            results.add(new ScannerResult<>(clazz, clazz, null, false));
+
+        if (metrics != null)
+            metrics.classMatched(clazz, members, matches, start);
+        return matches > 0;
+    }
+
+    private static boolean isAnyAssignableFrom(List<Class<?>> types, Class<?> clazz) {
+        if (types.isEmpty())
+            return true;
+        for (val type : types) {
+            if (type.isAssignableFrom(clazz))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param source - the annotation type declaring a meta-annotation, or null for an annotation of the class
+     */
+    private int addTypeMatch(Class<?> clazz, Annotation annotation, Class<?> source, Collection<ScannerResult<?,?>> results) {
+        val types = typeAnnotations.get(annotation.annotationType());
+        if (types == null || !isAnyAssignableFrom(types, clazz))
+            return 0;
+        results.add(new ScannerResult<>(clazz, clazz, annotation, true, source));
+        return 1;
+    }
+
+    /**
+     * @param annotations - annotations declared by the source
+     * @param source - the element declaring the annotations, which is the member itself or a method it overrides
+     */
+    private int addMatches(Class<?> clazz, AnnotatedElement member, Annotation[] annotations, AnnotatedElement source,
+                           Set<Class<? extends Annotation>> annotationClasses, Collection<ScannerResult<?,?>> results) {
+        int matches = 0;
+        for (val annotation : annotations) {
+            if (annotationClasses.contains(annotation.annotationType())) {
+                results.add(new ScannerResult<>(clazz, member, annotation, true, source == member ? null : source));
+                matches++;
+            }
+            if (metaAnnotations) {
+                val meta = metaAnnotationsOf(annotation.annotationType());
+                for (int i = 0; i < meta.getAnnotations().length; i++) {
+                    val metaAnnotation = meta.getAnnotations()[i];
+                    if (annotationClasses.contains(metaAnnotation.annotationType())) {
+                        results.add(new ScannerResult<>(clazz, member, metaAnnotation, true, meta.getDeclaringTypes()[i]));
+                        matches++;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int addMatches(Class<?> clazz, AnnotatedElement member, Annotation[] annotations,
+                           Set<Class<? extends Annotation>> annotationClasses, Collection<ScannerResult<?,?>> results) {
+        return addMatches(clazz, member, annotations, member, annotationClasses, results);
+    }
+
+    /**
+     * Resolve the meta-annotations of an annotation type breadth first, so that the nearest annotation of each type
+     * is kept. The annotations of java.lang.annotation, such as {@link java.lang.annotation.Retention}, are skipped
+     */
+    private MetaAnnotations metaAnnotationsOf(Class<? extends Annotation> annotationType) {
+        MetaAnnotations resolved = metaAnnotationCache.get(annotationType);
+        if (resolved != null)
+            return resolved;
+
+        val found = new ArrayList<Annotation>();
+        val declaringTypes = new ArrayList<Class<?>>();
+        val seen = new HashSet<Class<? extends Annotation>>();
+        seen.add(annotationType);
+        val queue = new ArrayDeque<Class<? extends Annotation>>();
+        queue.add(annotationType);
+        while (!queue.isEmpty()) {
+            val declaringType = queue.poll();
+            for (val metaAnnotation : declaringType.getDeclaredAnnotations()) {
+                val metaAnnotationType = metaAnnotation.annotationType();
+                if (metaAnnotationType.getName().startsWith("java.lang.annotation.") || !seen.add(metaAnnotationType))
+                    continue;
+                found.add(metaAnnotation);
+                declaringTypes.add(declaringType);
+                queue.add(metaAnnotationType);
+            }
+        }
+        resolved = new MetaAnnotations(found.toArray(new Annotation[0]), declaringTypes.toArray(new Class<?>[0]));
+        metaAnnotationCache.put(annotationType, resolved);
+        return resolved;
+    }
+
+    /**
+     * Match the annotations of the method, followed by those of the methods it overrides or implements, when
+     * inheriting method annotations. An annotation type is only matched once, from the nearest method
+     */
+    private int addMethodMatches(Class<?> clazz, Method method, Collection<ScannerResult<?,?>> results) {
+        val declared = method.getDeclaredAnnotations();
+        int matches = addMatches(clazz, method, declared, methodAnnotations, results);
+        if (!inheritedMethodAnnotations || Modifier.isStatic(method.getModifiers()) || Modifier.isPrivate(method.getModifiers()))
+            return matches;
+
+        val types = new HashSet<Class<? extends Annotation>>();
+        for (val annotation : declared)
+            types.add(annotation.annotationType());
+        val signature = signature(method);
+        for (val supertype : supertypesOf(method.getDeclaringClass())) {
+            val overridden = overridableMethodsOf(supertype).get(signature);
+            if (overridden == null)
+                continue;
+            val inherited = new ArrayList<Annotation>();
+            for (val annotation : overridden.getDeclaredAnnotations()) {
+                if (types.add(annotation.annotationType()))
+                    inherited.add(annotation);
+            }
+            matches += addMatches(clazz, method, inherited.toArray(new Annotation[0]), overridden, methodAnnotations, results);
+        }
+        return matches;
+    }
+
+    private static List<Object> signature(Method method) {
+        val signature = new ArrayList<Object>();
+        signature.add(method.getName());
+        signature.addAll(asList(method.getParameterTypes()));
+        return signature;
+    }
+
+    private Map<List<Object>, Method> overridableMethodsOf(Class<?> clazz) {
+        Map<List<Object>, Method> methods = overridableMethodCache.get(clazz);
+        if (methods == null) {
+            methods = new HashMap<>();
+            for (val method : clazz.getDeclaredMethods()) {
+                val modifiers = method.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers) && !method.isSynthetic())
+                    methods.put(signature(method), method);
+            }
+            overridableMethodCache.put(clazz, methods);
+        }
+        return methods;
+    }
+
+    /**
+     * @return the superclasses and then the interfaces of the class, direct or indirect
+     */
+    private List<Class<?>> supertypesOf(Class<?> clazz) {
+        List<Class<?>> supertypes = supertypeCache.get(clazz);
+        if (supertypes == null) {
+            val found = new LinkedHashSet<Class<?>>();
+            for (Class<?> superclass = clazz.getSuperclass(); superclass != null; superclass = superclass.getSuperclass())
+                found.add(superclass);
+            val queue = new ArrayDeque<Class<?>>();
+            queue.add(clazz);
+            queue.addAll(found);
+            while (!queue.isEmpty()) {
+                for (val superinterface : queue.poll().getInterfaces()) {
+                    if (found.add(superinterface))
+                        queue.add(superinterface);
+                }
+            }
+            supertypes = new ArrayList<>(found);
+            supertypeCache.put(clazz, supertypes);
+        }
+        return supertypes;
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A single {@link ScannerResult} described by name, from which the result can be materialized by loading only the
+ * classes involved. The declaring class differs from the class name for members inherited from a supertype
+ */
+@Value
+@AllArgsConstructor
+class ResultRecord {
+    String className;
+    ElementType elementType;
+    String declaringClassName;
+    String memberName;
+    String memberDescriptor;
+    String annotationTypeName;
+    boolean match;
+    /**
+     * The class declaring the annotation when it is not present on the element itself: the annotation type declaring
+     * a meta-annotation, or the supertype declaring the overridden method of an inherited method annotation. Otherwise
+     * null
+     */
+    String annotationSourceName;
+
+    ResultRecord(String className, ElementType elementType, String declaringClassName, String memberName,
+                 String memberDescriptor, String annotationTypeName, boolean match) {
+        this(className, elementType, declaringClassName, memberName, memberDescriptor, annotationTypeName, match, null);
+    }
+
+    static ResultRecord of(ScannerResult<?, ?> result) {
+        val annotation = (Annotation) result.getAnnotation();
+        val element = result.getAnnotatedElement();
+        val source = result.annotationSource;
+        String sourceName = null;
+        if (source instanceof Class)
+            sourceName = ((Class<?>) source).getName();
+        else if (source instanceof Method)
+            sourceName = ((Method) source).getDeclaringClass().getName();
+        return new ResultRecord(
+            result.getClazz().getName(),
+            Descriptors.elementTypeOf(element),
+            Descriptors.declaringClassOf(element).getName(),
+            Descriptors.nameOf(element),
+            Descriptors.descriptorOfMember(element),
+            annotation == null ? null : annotation.annotationType().getName(),
+            result.isMatch(),
+            sourceName);
+    }
+
+    static List<ResultRecord> of(Collection<ScannerResult<?, ?>> results) {
+        val records = new ArrayList<ResultRecord>(results.size());
+        for (val result : results)
+            records.add(of(result));
+        return records;
+    }
+
+    /**
+     * Load the class, member and annotation this record describes
+     *
+     * @param initialize - true if the class itself should be initialized
+     */
+    @SuppressWarnings("unchecked")
+    ScannerResult<?, ?> toResult(ClassLoader classLoader, boolean initialize) throws ReflectiveOperationException {
+        val clazz = Class.forName(className, initialize, classLoader);
+        val declaringClass = declaringClassName.equals(className) ? clazz : Class.forName(declaringClassName, false, classLoader);
+        val element = Descriptors.resolveMember(declaringClass, elementType, memberName, memberDescriptor);
+        if (!match)
+            return new ScannerResult<>(clazz, element, null, false);
+        // a query may match without any annotation
+        if (annotationTypeName == null)
+            return new ScannerResult<>(clazz, element, null);
+
+        val annotationClass = (Class<? extends Annotation>) Class.forName(annotationTypeName, false, classLoader);
+        if (annotationSourceName == null) {
+            val annotation = element instanceof Class
+                ? clazz.getAnnotation(annotationClass)
+                : ((AnnotatedElement) element).getAnnotation(annotationClass);
+            return new ScannerResult<>(clazz, element, annotation);
+        }
+
+        // the annotation is found where it was matched, on an annotation type or on an overridden method
+        val source = Class.forName(annotationSourceName, false, classLoader);
+        AnnotatedElement sourceElement = source;
+        if (!source.isAnnotation())
+            sourceElement = source.getDeclaredMethod(memberName, ((Method) element).getParameterTypes());
+        return new ScannerResult<>(clazz, element, sourceElement.getDeclaredAnnotation(annotationClass), true, sourceElement);
+    }
+}
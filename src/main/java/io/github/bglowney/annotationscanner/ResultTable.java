@@ -0,0 +1,361 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact store of scan results for scans producing very many results. Class, member and annotation names are
+ * interned into a string table and each result is kept as a row of ints in a single array, holding the class, the
+ * kind of element, the member, the annotation type and the class declaring a meta-annotation or inherited method
+ * annotation, so that a result costs 20 bytes rather than several objects.
+ * Results are identified by their row number, and the reflective {@link ScannerResult} of a row is only loaded when
+ * requested.
+ *
+ * The rows of each class and of each annotation type are indexed on first use, so that for example the members of a
+ * class annotated with an annotation type are found without visiting every result. A table is not modified once
+ * returned by {@link AnnotationScanner#scanTable()}, and may be read from multiple threads
+ *
+ * @see AnnotationScanner#scanTable()
+ */
+public class ResultTable {
+
+    private static final ElementType[] ELEMENT_TYPES = {ElementType.TYPE, ElementType.METHOD, ElementType.FIELD, ElementType.CONSTRUCTOR};
+    private static final int WIDTH = 5;
+    private static final int CLASS = 0;
+    private static final int KIND = 1;
+    private static final int MEMBER = 2;
+    private static final int ANNOTATION = 3;
+    private static final int SOURCE = 4;
+    private static final int MEMBER_WIDTH = 3;
+    private static final int NONE = -1;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final ClassLoader classLoader;
+    private final boolean initialize;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    /**
+     * The declaring class, name and descriptor of each member
+     */
+    private int[] members = new int[MEMBER_WIDTH * 16];
+    private final Map<MemberKey, Integer> memberIds = new HashMap<>();
+    private int[] rows = new int[WIDTH * 16];
+    private int size;
+    /**
+     * An open addressing hash table of row numbers plus one, used to skip duplicate results
+     */
+    private int[] slots = new int[64];
+    private Grouping byClass;
+    private Grouping byAnnotation;
+
+    @Value
+    private static class MemberKey {
+        int declaringClass;
+        int name;
+        int descriptor;
+    }
+
+    /**
+     * The rows of each string id, as offsets into a single array of row numbers
+     */
+    @Value
+    private static class Grouping {
+        int[] offsets;
+        int[] rows;
+
+        int[] rowsOf(int id) {
+            if (id < 0 || id + 1 >= offsets.length)
+                return NO_ROWS;
+            return Arrays.copyOfRange(rows, offsets[id], offsets[id + 1]);
+        }
+    }
+
+    /**
+     * @param classLoader - the class loader to load results from
+     * @param initialize - true if classes should be initialized when their results are loaded
+     */
+    ResultTable(ClassLoader classLoader, boolean initialize) {
+        this.classLoader = classLoader;
+        this.initialize = initialize;
+    }
+
+    /**
+     * @return true if the result was added, false if it was already present
+     */
+    synchronized boolean add(ResultRecord record) {
+        val classId = intern(record.getClassName());
+        val kind = Arrays.asList(ELEMENT_TYPES).indexOf(record.getElementType());
+        int member = record.getElementType() == ElementType.TYPE ? NONE
+            : member(intern(record.getDeclaringClassName()), intern(record.getMemberName()), intern(record.getMemberDescriptor()));
+        int annotation = record.isMatch() ? intern(record.getAnnotationTypeName()) : NONE;
+        if (find(classId, kind, member, annotation) >= 0)
+            return false;
+
+        if (rows.length < (size + 1) * WIDTH)
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        val offset = size * WIDTH;
+        rows[offset + CLASS] = classId;
+        rows[offset + KIND] = kind;
+        rows[offset + MEMBER] = member;
+        rows[offset + ANNOTATION] = annotation;
+        rows[offset + SOURCE] = record.getAnnotationSourceName() == null ? NONE : intern(record.getAnnotationSourceName());
+        size++;
+
+        if (size * 2 > slots.length)
+            rehash(slots.length * 2);
+        else
+            insert(size - 1);
+        byClass = null;
+        byAnnotation = null;
+        return true;
+    }
+
+    private int intern(String string) {
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            id = strings.size();
+            strings.add(string);
+            stringIds.put(string, id);
+        }
+        return id;
+    }
+
+    private int member(int declaringClass, int name, int descriptor) {
+        val key = new MemberKey(declaringClass, name, descriptor);
+        Integer id = memberIds.get(key);
+        if (id == null) {
+            id = memberIds.size();
+            if (members.length < (id + 1) * MEMBER_WIDTH)
+                members = Arrays.copyOf(members, members.length * 2);
+            members[id * MEMBER_WIDTH] = declaringClass;
+            members[id * MEMBER_WIDTH + 1] = name;
+            members[id * MEMBER_WIDTH + 2] = descriptor;
+            memberIds.put(key, id);
+        }
+        return id;
+    }
+
+    private static int hash(int classId, int kind, int member, int annotation) {
+        int hash = ((classId * 31 + kind) * 31 + member) * 31 + annotation;
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private int find(int classId, int kind, int member, int annotation) {
+        val mask = slots.length - 1;
+        for (int slot = hash(classId, kind, member, annotation) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            val offset = (slots[slot] - 1) * WIDTH;
+            if (rows[offset + CLASS] == classId && rows[offset + KIND] == kind && rows[offset + MEMBER] == member
+                && rows[offset + ANNOTATION] == annotation)
+                return slots[slot] - 1;
+        }
+        return NONE;
+    }
+
+    private void insert(int row) {
+        val mask = slots.length - 1;
+        val offset = row * WIDTH;
+        int slot = hash(rows[offset + CLASS], rows[offset + KIND], rows[offset + MEMBER], rows[offset + ANNOTATION]) & mask;
+        while (slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = row + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int row = 0; row < size; row++)
+            insert(row);
+    }
+
+    /**
+     * @return the number of results
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized String getClassName(int row) {
+        return strings.get(column(row, CLASS));
+    }
+
+    public synchronized ElementType getElementType(int row) {
+        return ELEMENT_TYPES[column(row, KIND)];
+    }
+
+    /**
+     * @return the class declaring the member, which differs from the class name for members inherited from a supertype
+     */
+    public synchronized String getDeclaringClassName(int row) {
+        val member = column(row, MEMBER);
+        return member == NONE ? getClassName(row) : strings.get(members[member * MEMBER_WIDTH]);
+    }
+
+    /**
+     * @return the name of the member, "&lt;init&gt;" for constructors, or null for results of type {@link ElementType#TYPE}
+     */
+    public synchronized String getMemberName(int row) {
+        val member = column(row, MEMBER);
+        return member == NONE ? null : strings.get(members[member * MEMBER_WIDTH + 1]);
+    }
+
+    /**
+     * @return the descriptor of the member, or null for results of type {@link ElementType#TYPE}
+     */
+    public synchronized String getMemberDescriptor(int row) {
+        val member = column(row, MEMBER);
+        return member == NONE ? null : strings.get(members[member * MEMBER_WIDTH + 2]);
+    }
+
+    /**
+     * @return the name of the annotation type, or null for non matching results
+     */
+    public synchronized String getAnnotationTypeName(int row) {
+        val annotation = column(row, ANNOTATION);
+        return annotation == NONE ? null : strings.get(annotation);
+    }
+
+    /**
+     * @see ScannerResult#isMatch()
+     */
+    public synchronized boolean isMatch(int row) {
+        return column(row, ANNOTATION) != NONE;
+    }
+
+    /**
+     * Load the class, member and annotation of a result
+     *
+     * @param row - the row of the result
+     * @return the result
+     */
+    @SneakyThrows(ReflectiveOperationException.class)
+    public ScannerResult<?,? extends Annotation> getResult(int row) {
+        return record(row).toResult(classLoader, initialize);
+    }
+
+    /**
+     * Load every result, as returned by {@link AnnotationScanner#scan()}
+     *
+     * @return the results
+     */
+    public Set<ScannerResult<?,? extends Annotation>> getResults() {
+        val results = new HashSet<ScannerResult<?,? extends Annotation>>();
+        for (int row = 0; row < size(); row++)
+            results.add(getResult(row));
+        return results;
+    }
+
+    /**
+     * Load the results of a class annotated with an annotation type
+     *
+     * @param className - the binary name of the class
+     * @param annotationTypeName - the binary name of the annotation type
+     * @return the results of the class annotated with the annotation type
+     */
+    public List<ScannerResult<?,? extends Annotation>> getResults(String className, String annotationTypeName) {
+        val results = new ArrayList<ScannerResult<?,? extends Annotation>>();
+        for (val row : rowsOf(className, annotationTypeName))
+            results.add(getResult(row));
+        return results;
+    }
+
+    /**
+     * @return the names of the classes with results
+     */
+    public synchronized Set<String> getClassNames() {
+        val classNames = new LinkedHashSet<String>();
+        for (int row = 0; row < size; row++)
+            classNames.add(strings.get(rows[row * WIDTH + CLASS]));
+        return classNames;
+    }
+
+    /**
+     * @param className - the binary name of a class
+     * @return the rows of the results of the class
+     */
+    public synchronized int[] rowsOf(String className) {
+        if (byClass == null)
+            byClass = group(CLASS);
+        return byClass.rowsOf(id(className));
+    }
+
+    /**
+     * @param annotationTypeName - the binary name of an annotation type
+     * @return the rows of the results annotated with the annotation type
+     */
+    public synchronized int[] rowsAnnotatedWith(String annotationTypeName) {
+        if (byAnnotation == null)
+            byAnnotation = group(ANNOTATION);
+        return byAnnotation.rowsOf(id(annotationTypeName));
+    }
+
+    /**
+     * @param className - the binary name of a class
+     * @param annotationTypeName - the binary name of an annotation type
+     * @return the rows of the results of the class annotated with the annotation type
+     */
+    public synchronized int[] rowsOf(String className, String annotationTypeName) {
+        val annotation = id(annotationTypeName);
+        if (annotation == NONE)
+            return NO_ROWS;
+        val classRows = rowsOf(className);
+        int count = 0;
+        for (val row : classRows) {
+            if (rows[row * WIDTH + ANNOTATION] == annotation)
+                classRows[count++] = row;
+        }
+        return Arrays.copyOf(classRows, count);
+    }
+
+    private int id(String string) {
+        Integer id = stringIds.get(string);
+        return id == null ? NONE : id;
+    }
+
+    private int column(int row, int column) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        return rows[row * WIDTH + column];
+    }
+
+    private synchronized ResultRecord record(int row) {
+        val source = column(row, SOURCE);
+        return new ResultRecord(getClassName(row), getElementType(row), getDeclaringClassName(row), getMemberName(row),
+            getMemberDescriptor(row), getAnnotationTypeName(row), isMatch(row), source == NONE ? null : strings.get(source));
+    }
+
+    /**
+     * Index the rows by the string id of a column, with a counting sort
+     */
+    private Grouping group(int column) {
+        val offsets = new int[strings.size() + 1];
+        for (int row = 0; row < size; row++) {
+            val id = rows[row * WIDTH + column];
+            if (id != NONE)
+                offsets[id + 1]++;
+        }
+        for (int id = 0; id < strings.size(); id++)
+            offsets[id + 1] += offsets[id];
+
+        val next = Arrays.copyOf(offsets, strings.size());
+        val grouped = new int[offsets[strings.size()]];
+        for (int row = 0; row < size; row++) {
+            val id = rows[row * WIDTH + column];
+            if (id != NONE)
+                grouped[next[id]++] = row;
+        }
+        return new Grouping(offsets, grouped);
+    }
+}
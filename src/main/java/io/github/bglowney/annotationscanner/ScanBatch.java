@@ -0,0 +1,279 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs several named {@link AnnotationScanner}s together in a single pass over the classpath, rather than one pass
+ * each. The roots of the packages of every scanner are found and enumerated once, the class file of each candidate is
+ * read at most once, and each class is then dispatched to every scanner whose packages contain it. Each scanner
+ * keeps its own search criteria, settings, results and statistics, which are reported to its listeners.
+ *
+ * <pre>
+ * Map&lt;String, Set&lt;ScannerResult&lt;?, ? extends Annotation&gt;&gt;&gt; results = new ScanBatch()
+ *     .add("endpoints", AnnotationScanner.of("com.example.web").withMethodAnnotations(Path.class))
+ *     .add("listeners", AnnotationScanner.of("com.example").includeSubpackages(true).withTypeAnnotations(Listener.class))
+ *     .scan();
+ * </pre>
+ *
+ * Scanners with different class loaders are scanned in a pass per class loader. The index files, build time indexes,
+ * throwaway class loaders and parallelism of the individual scanners do not apply to a batch, nor does
+ * {@link AnnotationScanner#withClassLoaders(Collection)}
+ */
+public class ScanBatch {
+
+    protected final Map<String, AnnotationScanner> scanners = new LinkedHashMap<>();
+    protected int parallelism = 1;
+    protected ExecutorService executor;
+
+    /**
+     * Add a scanner to the batch
+     *
+     * @param name - identifies the results of the scanner
+     * @param scanner - the scanner to run as part of the batch
+     * @return this ScanBatch for method chaining
+     */
+    public ScanBatch add(String name, AnnotationScanner scanner) {
+        if (scanners.containsKey(name))
+            throw new IllegalArgumentException("A scanner named " + name + " has already been added");
+        scanners.put(name, scanner);
+        return this;
+    }
+
+    /**
+     * Optionally scan using multiple threads, as with {@link AnnotationScanner#withParallelism(int)}
+     *
+     * @param parallelism - the number of threads to scan with
+     * @return this ScanBatch for method chaining
+     */
+    public ScanBatch withParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Optionally scan using the threads of the supplied executor, as with
+     * {@link AnnotationScanner#withExecutor(ExecutorService)}
+     *
+     * @param executor - the executor to scan with, or null to use {@link #withParallelism(int)}
+     * @return this ScanBatch for method chaining
+     */
+    public ScanBatch withExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Scan for the results of every scanner in a single pass
+     *
+     * @return the results of each scanner by name, in the order the scanners were added
+     */
+    public Map<String, Set<ScannerResult<?,? extends Annotation>>> scan() {
+        val futures = newFutures();
+        run(futures);
+        val results = new LinkedHashMap<String, Set<ScannerResult<?,? extends Annotation>>>();
+        for (val future : futures.entrySet())
+            results.put(future.getKey(), future.getValue().join());
+        return results;
+    }
+
+    /**
+     * Scan for the results of every scanner in a single pass in the background, on the executor of this ScanBatch or
+     * otherwise on the {@link ForkJoinPool#commonPool()}. The results of each scanner are available as soon as every
+     * root which may contain its packages has been matched, without waiting for the other scanners. If the scan
+     * fails every future not yet completed completes exceptionally
+     *
+     * @return the future results of each scanner by name, in the order the scanners were added
+     */
+    public Map<String, CompletableFuture<Set<ScannerResult<?,? extends Annotation>>>> scanAsync() {
+        val futures = newFutures();
+        val pool = executor != null ? executor : ForkJoinPool.commonPool();
+        pool.execute(() -> {
+            try {
+                run(futures);
+            } catch (Throwable e) {
+                // the futures are already completed exceptionally
+            }
+        });
+        return Collections.unmodifiableMap(futures);
+    }
+
+    private Map<String, CompletableFuture<Set<ScannerResult<?,? extends Annotation>>>> newFutures() {
+        val futures = new LinkedHashMap<String, CompletableFuture<Set<ScannerResult<?,? extends Annotation>>>>();
+        for (val name : scanners.keySet())
+            futures.put(name, new CompletableFuture<>());
+        return futures;
+    }
+
+    @SneakyThrows
+    private void run(Map<String, CompletableFuture<Set<ScannerResult<?,? extends Annotation>>>> futures) {
+        val ownedPool = parallelism > 1 && executor == null ? new ForkJoinPool(parallelism) : null;
+        val pool = ownedPool != null ? ownedPool : executor;
+        try {
+            // each scanner is prepared as a copy, which holds the state of its part of this batch
+            val scans = new LinkedHashMap<String, AnnotationScanner>();
+            val scannersByClassLoader = new LinkedHashMap<ClassLoader, List<String>>();
+            for (val scanner : scanners.entrySet()) {
+                val scan = scanner.getValue().newScan();
+                scans.put(scanner.getKey(), scan);
+                scannersByClassLoader.computeIfAbsent(scan.classLoaderToUse, c -> new ArrayList<>()).add(scanner.getKey());
+            }
+            for (val classLoaderScanners : scannersByClassLoader.entrySet())
+                new Pass(classLoaderScanners.getKey(), classLoaderScanners.getValue(), scans, futures, pool).run();
+        } catch (Throwable e) {
+            for (val future : futures.values())
+                future.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (ownedPool != null)
+                ownedPool.shutdown();
+        }
+    }
+
+    /**
+     * A single pass over the roots of one class loader for the scanners which use it
+     */
+    private class Pass {
+        private final ClassLoader classLoader;
+        private final List<AnnotationScanner> passScanners = new ArrayList<>();
+        private final List<CompletableFuture<Set<ScannerResult<?,? extends Annotation>>>> futures = new ArrayList<>();
+        private final List<Set<ScannerResult<?,? extends Annotation>>> results = new ArrayList<>();
+        private final ExecutorService pool;
+        private final ClassFileHierarchy classFiles;
+        /**
+         * For each scanner, the number of its roots which have not yet been matched
+         */
+        private final int[] remainingRoots;
+
+        Pass(ClassLoader classLoader, List<String> names, Map<String, AnnotationScanner> scans,
+             Map<String, CompletableFuture<Set<ScannerResult<?,? extends Annotation>>>> futures, ExecutorService pool) {
+            this.classLoader = classLoader;
+            this.pool = pool;
+            boolean readsClassFiles = false;
+            for (val name : names) {
+                val scanner = scans.get(name);
+                passScanners.add(scanner);
+                this.futures.add(futures.get(name));
+                results.add(Collections.synchronizedSet(new HashSet<>()));
+                readsClassFiles |= scanner.readsClassFiles();
+            }
+            // the class file of each candidate is read once for every scanner which pre-filters candidates
+            classFiles = readsClassFiles ? new ClassFileHierarchy(classLoader) : null;
+            remainingRoots = new int[names.size()];
+        }
+
+        @SneakyThrows
+        void run() {
+            val packages = new HashSet<String>();
+            boolean includeSubpackages = false;
+            for (val scanner : passScanners) {
+                packages.addAll(scanner.packages);
+                includeSubpackages |= scanner.includeSubpackages;
+            }
+            // lists the classes of every package of the pass, which are then filtered by the packages of each scanner
+            val lister = AnnotationScanner.of(packages.toArray(new String[0]))
+                .includeSubpackages(includeSubpackages)
+                .withClassLoader(classLoader);
+            List<Map.Entry<ClasspathRoot, Set<String>>> roots = new ArrayList<>(lister.findRoots(packages).entrySet());
+
+            for (val root : roots) {
+                for (int i = 0; i < passScanners.size(); i++) {
+                    if (contains(passScanners.get(i), root.getValue()))
+                        remainingRoots[i]++;
+                }
+            }
+            for (int i = 0; i < passScanners.size(); i++) {
+                if (remainingRoots[i] == 0)
+                    complete(i);
+            }
+
+            val matchedClassNames = new HashSet<String>();
+            if (pool == null) {
+                for (val root : roots) {
+                    match(AnnotationScanner.unmatched(lister.listClassNames(root.getKey(), root.getValue()), matchedClassNames));
+                    rootMatched(root.getValue());
+                }
+                return;
+            }
+
+            val enumerations = new ArrayList<Future<Set<String>>>();
+            for (val root : roots)
+                enumerations.add(pool.submit(() -> lister.listClassNames(root.getKey(), root.getValue())));
+            val matches = new ArrayList<List<Future<?>>>();
+            val threads = pool instanceof ForkJoinPool ? ((ForkJoinPool) pool).getParallelism() : Runtime.getRuntime().availableProcessors();
+            for (val enumeration : enumerations) {
+                val rootMatches = new ArrayList<Future<?>>();
+                for (val batch : AnnotationScanner.partition(AnnotationScanner.unmatched(AnnotationScanner.await(enumeration), matchedClassNames), threads))
+                    rootMatches.add(pool.submit(() -> match(batch)));
+                matches.add(rootMatches);
+            }
+            for (int i = 0; i < roots.size(); i++) {
+                for (val match : matches.get(i))
+                    AnnotationScanner.await(match);
+                rootMatched(roots.get(i).getValue());
+            }
+        }
+
+        /**
+         * @return true if a root listed for the given packages may contain classes of the scanner's packages
+         */
+        private boolean contains(AnnotationScanner scanner, Set<String> rootPackages) {
+            for (val packageName : rootPackages) {
+                if (scanner.isInPackages(packageName, scanner.packages))
+                    return true;
+            }
+            return false;
+        }
+
+        private void rootMatched(Set<String> rootPackages) {
+            for (int i = 0; i < passScanners.size(); i++) {
+                if (contains(passScanners.get(i), rootPackages) && --remainingRoots[i] == 0)
+                    complete(i);
+            }
+        }
+
+        private void complete(int index) {
+            passScanners.get(index).completeScan();
+            futures.get(index).complete(Collections.unmodifiableSet(results.get(index)));
+        }
+
+        /**
+         * Dispatch each class to every scanner whose packages contain it
+         */
+        private void match(Collection<String> classNames) {
+            val classResults = new ArrayList<ScannerResult<?,?>>();
+            for (val className : classNames) {
+                val index = className.lastIndexOf('.');
+                val packageName = index < 0 ? "" : className.substring(0, index);
+                for (int i = 0; i < passScanners.size(); i++) {
+                    val scanner = passScanners.get(i);
+                    if (!scanner.isInPackages(packageName, scanner.packages))
+                        continue;
+                    scanner.scanClass(className, scanner.readsClassFiles() ? classFiles : null, classResults);
+                    for (val result : classResults) {
+                        scanner.matched(result);
+                        results.get(i).add(result);
+                    }
+                    classResults.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.Value;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * An in-memory cache of the classpath roots of each class loader, of the classes enumerated within each package and
+ * of their class files, shared by any number of {@link AnnotationScanner}s. Scanners with different search criteria over the same packages and class loader are
+ * then served from memory rather than re-enumerating the classpath and re-reading every class.
+ *
+ * Class loaders are held weakly, so the entries of a class loader are discarded once it is no longer reachable, for
+ * example after a web application is redeployed. Only class names and class file descriptors are cached, never
+ * {@link Class} objects, so the cache does not itself keep class loaders reachable. The entries of each class loader
+ * are bounded and the least recently used are evicted first.
+ *
+ * The cache is not notified of changes to the classpath, so {@link #invalidate(ClassLoader)} should be invoked when
+ * the classes of a class loader may have changed. Instances are thread safe
+ *
+ * @see AnnotationScanner#withCache(ScanCache)
+ */
+public class ScanCache {
+
+    public static final int DEFAULT_MAXIMUM_LISTINGS = 256;
+    public static final int DEFAULT_MAXIMUM_CLASSES = 16384;
+
+    private final int maximumListings;
+    private final int maximumClasses;
+    private final Map<ClassLoader, LoaderEntry> loaders = new WeakHashMap<>();
+
+    /**
+     * A listing of the classes of some packages within a single classpath root
+     */
+    @Value
+    static class Listing {
+        ClasspathRoot root;
+        Set<String> packageNames;
+        boolean includeSubpackages;
+    }
+
+    private class LoaderEntry {
+        List<ClasspathRoot> roots;
+        final Map<Listing, Set<String>> classNames = lruMap(maximumListings);
+        final Map<String, ClassFileDescriptor> classFiles = lruMap(maximumClasses);
+    }
+
+    public ScanCache() {
+        this(DEFAULT_MAXIMUM_LISTINGS, DEFAULT_MAXIMUM_CLASSES);
+    }
+
+    /**
+     * @param maximumListings - the number of package listings to retain for each class loader
+     * @param maximumClasses - the number of class files to retain for each class loader
+     */
+    public ScanCache(int maximumListings, int maximumClasses) {
+        if (maximumListings < 1 || maximumClasses < 1)
+            throw new IllegalArgumentException("Cache sizes must be at least 1");
+        this.maximumListings = maximumListings;
+        this.maximumClasses = maximumClasses;
+    }
+
+    /**
+     * Discard everything cached for a class loader
+     *
+     * @param classLoader - the class loader whose classes may have changed
+     */
+    public synchronized void invalidate(ClassLoader classLoader) {
+        loaders.remove(classLoader);
+    }
+
+    /**
+     * Discard everything cached for every class loader
+     */
+    public synchronized void clear() {
+        loaders.clear();
+    }
+
+    /**
+     * @return the number of class loaders with cached entries
+     */
+    public synchronized int size() {
+        return loaders.size();
+    }
+
+    synchronized List<ClasspathRoot> getRoots(ClassLoader classLoader) {
+        val entry = loaders.get(classLoader);
+        return entry == null ? null : entry.roots;
+    }
+
+    synchronized void putRoots(ClassLoader classLoader, List<ClasspathRoot> roots) {
+        entry(classLoader).roots = Collections.unmodifiableList(new ArrayList<>(roots));
+    }
+
+    synchronized Set<String> getClassNames(ClassLoader classLoader, Listing listing) {
+        val entry = loaders.get(classLoader);
+        return entry == null ? null : entry.classNames.get(listing);
+    }
+
+    synchronized void putClassNames(ClassLoader classLoader, Listing listing, Set<String> classNames) {
+        entry(classLoader).classNames.put(listing, Collections.unmodifiableSet(new HashSet<>(classNames)));
+    }
+
+    synchronized ClassFileDescriptor getClassFile(ClassLoader classLoader, String className) {
+        val entry = loaders.get(classLoader);
+        return entry == null ? null : entry.classFiles.get(className);
+    }
+
+    synchronized void putClassFile(ClassLoader classLoader, ClassFileDescriptor classFile) {
+        entry(classLoader).classFiles.put(classFile.getClassName(), classFile);
+    }
+
+    synchronized int classFileCount(ClassLoader classLoader) {
+        val entry = loaders.get(classLoader);
+        return entry == null ? 0 : entry.classFiles.size();
+    }
+
+    private LoaderEntry entry(ClassLoader classLoader) {
+        return loaders.computeIfAbsent(classLoader, l -> new LoaderEntry());
+    }
+
+    /**
+     * @param metrics - records the class files read, or null
+     * @return a hierarchy for a single scan which reads class files through this cache
+     */
+    ClassFileHierarchy classFiles(ClassLoader classLoader, ScanMetrics metrics) {
+        return classFiles(classLoader, metrics, 0);
+    }
+
+    /**
+     * @param metrics - records the class files read, or null
+     * @param maximumSize - the estimated size of the descriptors the hierarchy itself retains, or 0 for no bound
+     * @return a hierarchy for a single scan which reads class files through this cache
+     */
+    ClassFileHierarchy classFiles(ClassLoader classLoader, ScanMetrics metrics, long maximumSize) {
+        return new ClassFileHierarchy(classLoader, metrics, maximumSize) {
+            @Override
+            protected ClassFileDescriptor read(String className) {
+                val cached = getClassFile(classLoader, className);
+                if (cached != null)
+                    return cached;
+                val classFile = super.read(className);
+                if (classFile != null)
+                    putClassFile(classLoader, classFile);
+                return classFile;
+            }
+        };
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maximumSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.Value;
+
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+/**
+ * The results added and removed by a batch of changes to the class files watched by a {@link ScanWatcher}
+ */
+@Value
+public class ScanDelta {
+    Set<ScannerResult<?,? extends Annotation>> added;
+    /**
+     * The results previously reported, loaded from the class loader in use when they were added
+     */
+    Set<ScannerResult<?,? extends Annotation>> removed;
+}
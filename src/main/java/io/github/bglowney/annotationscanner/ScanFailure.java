@@ -0,0 +1,14 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.Value;
+
+/**
+ * A class left out of the results of a scan because it could not be loaded or reflected over
+ *
+ * @see LinkageErrorPolicy#COLLECT
+ */
+@Value
+public class ScanFailure {
+    String className;
+    Throwable error;
+}
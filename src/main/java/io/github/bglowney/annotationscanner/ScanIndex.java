@@ -0,0 +1,193 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.Getter;
+import lombok.Value;
+import lombok.val;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent record of the results of scanning each classpath root, used to skip rescanning roots which have not
+ * changed since the index was written.
+ *
+ * The index is a binary file consisting of a header identifying the scanner configuration, a string table and then
+ * for each root its fingerprint, the classes listed in it and the results found in it, with every string written as an
+ * index into the table
+ */
+@Getter
+class ScanIndex {
+
+    private static final int MAGIC = 0x41534958;
+    private static final int VERSION = 4;
+    private static final ElementType[] ELEMENT_TYPES = {ElementType.TYPE, ElementType.METHOD, ElementType.FIELD, ElementType.CONSTRUCTOR};
+
+    private final String configuration;
+    private final Map<String, RootEntry> roots = new LinkedHashMap<>();
+
+    ScanIndex(String configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * The results found in a single classpath root, along with the fingerprint of the root, the classes matched from
+     * it when it was scanned and the classes it listed which were hidden by an earlier root
+     */
+    @Value
+    static class RootEntry {
+        String path;
+        long fingerprint;
+        List<String> classNames;
+        List<String> shadowedClassNames;
+        List<ResultRecord> records;
+    }
+
+    /**
+     * @param file - the index file
+     * @param configuration - the configuration the index must have been written for
+     * @return the index, or null if it does not exist, can not be read or was written for another configuration
+     */
+    static ScanIndex read(Path file, String configuration) {
+        if (!Files.isRegularFile(file))
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !configuration.equals(in.readUTF()))
+                return null;
+
+            val strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = in.readUTF();
+
+            val index = new ScanIndex(configuration);
+            val rootCount = in.readInt();
+            for (int i = 0; i < rootCount; i++) {
+                val path = strings[in.readInt()];
+                val fingerprint = in.readLong();
+                val classNames = readStrings(in, strings);
+                val shadowedClassNames = readStrings(in, strings);
+                val recordCount = in.readInt();
+                val records = new ArrayList<ResultRecord>(recordCount);
+                for (int j = 0; j < recordCount; j++) {
+                    records.add(new ResultRecord(
+                        strings[in.readInt()],
+                        ELEMENT_TYPES[in.readByte()],
+                        strings[in.readInt()],
+                        string(strings, in.readInt()),
+                        string(strings, in.readInt()),
+                        string(strings, in.readInt()),
+                        in.readBoolean(),
+                        string(strings, in.readInt())));
+                }
+                index.roots.put(path, new RootEntry(path, fingerprint, classNames, shadowedClassNames, records));
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in, String[] strings) throws IOException {
+        val count = in.readInt();
+        val list = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++)
+            list.add(strings[in.readInt()]);
+        return list;
+    }
+
+    private static String string(String[] strings, int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    /**
+     * Write the index, replacing any existing file only once the new index has been fully written
+     */
+    void write(Path file) throws IOException {
+        val strings = new LinkedHashMap<String, Integer>();
+        for (val root : roots.values()) {
+            intern(strings, root.getPath());
+            for (val className : root.getClassNames())
+                intern(strings, className);
+            for (val className : root.getShadowedClassNames())
+                intern(strings, className);
+            for (val record : root.getRecords()) {
+                intern(strings, record.getClassName());
+                intern(strings, record.getDeclaringClassName());
+                intern(strings, record.getMemberName());
+                intern(strings, record.getMemberDescriptor());
+                intern(strings, record.getAnnotationTypeName());
+                intern(strings, record.getAnnotationSourceName());
+            }
+        }
+
+        val parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        val temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(configuration);
+                out.writeInt(strings.size());
+                for (val string : strings.keySet())
+                    out.writeUTF(string);
+
+                out.writeInt(roots.size());
+                for (val root : roots.values()) {
+                    out.writeInt(strings.get(root.getPath()));
+                    out.writeLong(root.getFingerprint());
+                    writeStrings(out, strings, root.getClassNames());
+                    writeStrings(out, strings, root.getShadowedClassNames());
+                    out.writeInt(root.getRecords().size());
+                    for (val record : root.getRecords()) {
+                        out.writeInt(strings.get(record.getClassName()));
+                        out.writeByte(elementTypeIndex(record.getElementType()));
+                        out.writeInt(strings.get(record.getDeclaringClassName()));
+                        out.writeInt(indexOf(strings, record.getMemberName()));
+                        out.writeInt(indexOf(strings, record.getMemberDescriptor()));
+                        out.writeInt(indexOf(strings, record.getAnnotationTypeName()));
+                        out.writeBoolean(record.isMatch());
+                        out.writeInt(indexOf(strings, record.getAnnotationSourceName()));
+                    }
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Map<String, Integer> strings, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (val string : list)
+            out.writeInt(strings.get(string));
+    }
+
+    private static void intern(Map<String, Integer> strings, String string) {
+        if (string != null && !strings.containsKey(string))
+            strings.put(string, strings.size());
+    }
+
+    private static int indexOf(Map<String, Integer> strings, String string) {
+        return string == null ? -1 : strings.get(string);
+    }
+
+    private static int elementTypeIndex(ElementType elementType) {
+        for (int i = 0; i < ELEMENT_TYPES.length; i++) {
+            if (ELEMENT_TYPES[i] == elementType)
+                return i;
+        }
+        throw new IllegalArgumentException("Unsupported element type " + elementType);
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.bglowney.annotationscanner;
+
+import java.util.Set;
+
+/**
+ * Receives progress callbacks while an {@link AnnotationScanner} scans. Every method does nothing by default, so an
+ * implementation only overrides the callbacks it is interested in.
+ *
+ * When scanning with multiple threads the callbacks are invoked concurrently from the scanning threads, so
+ * implementations must be thread safe
+ *
+ * @see AnnotationScanner#withListener(ScanListener)
+ */
+public interface ScanListener {
+
+    /**
+     * @param packages - the packages about to be scanned
+     */
+    default void scanStarted(Set<String> packages) {}
+
+    /**
+     * @param root - the path of the directory or jar file which was enumerated
+     * @param packages - the packages enumerated within the root
+     * @param entriesVisited - the number of files or jar entries visited, or 0 if the listing was cached
+     * @param classCount - the number of classes found
+     * @param nanos - the time taken to enumerate the root
+     */
+    default void rootListed(String root, Set<String> packages, long entriesVisited, int classCount, long nanos) {}
+
+    /**
+     * @param className - the class which was loaded
+     * @param nanos - the time taken to load the class
+     */
+    default void classLoaded(String className, long nanos) {}
+
+    /**
+     * @param clazz - the class which was matched
+     * @param membersReflected - the number of methods, fields and constructors inspected
+     * @param matches - the number of results produced for the class
+     * @param nanos - the time taken to match the class
+     */
+    default void classMatched(Class<?> clazz, int membersReflected, int matches, long nanos) {}
+
+    /**
+     * Invoked when a class is left out of the results because it could not be loaded or reflected over, unless
+     * scanning with {@link LinkageErrorPolicy#FAIL}
+     *
+     * @param className - the class which could not be scanned
+     * @param error - the reason the class could not be scanned
+     */
+    default void classFailed(String className, Throwable error) {}
+
+    /**
+     * @param statistics - the statistics of the completed scan
+     */
+    default void scanCompleted(ScanStatistics statistics) {}
+}
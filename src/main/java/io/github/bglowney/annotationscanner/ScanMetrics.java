@@ -0,0 +1,150 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.ScanStatistics.Counts;
+import lombok.val;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the timings and counters of a single scan and forwards them to the {@link ScanListener}s of the scanner.
+ * Instances are thread safe
+ */
+class ScanMetrics {
+
+    private final Set<String> packages;
+    private final List<ScanListener> listeners;
+    private final long start = System.nanoTime();
+    private final LongAdder[] phaseNanos = new LongAdder[ScanPhase.values().length];
+    private final Counters totals = new Counters();
+    private final Map<String, Counters> roots = new ConcurrentHashMap<>();
+    private final Map<String, Counters> packageCounters = new ConcurrentHashMap<>();
+
+    private static class Counters {
+        final LongAdder entriesVisited = new LongAdder();
+        final LongAdder classesListed = new LongAdder();
+        final LongAdder classFilesRead = new LongAdder();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder classesLoaded = new LongAdder();
+        final LongAdder membersReflected = new LongAdder();
+        final LongAdder matches = new LongAdder();
+        final LongAdder classesFailed = new LongAdder();
+
+        Counts snapshot() {
+            return new Counts(entriesVisited.sum(), classesListed.sum(), classFilesRead.sum(), bytesRead.sum(),
+                classesLoaded.sum(), membersReflected.sum(), matches.sum(), classesFailed.sum());
+        }
+    }
+
+    ScanMetrics(Set<String> packages, List<ScanListener> listeners) {
+        this.packages = packages;
+        this.listeners = listeners;
+        for (int i = 0; i < phaseNanos.length; i++)
+            phaseNanos[i] = new LongAdder();
+        for (val listener : listeners)
+            listener.scanStarted(packages);
+    }
+
+    /**
+     * Add the time since the given start to a phase
+     *
+     * @return the time added
+     */
+    long phase(ScanPhase phase, long startNanos) {
+        val nanos = System.nanoTime() - startNanos;
+        phaseNanos[phase.ordinal()].add(nanos);
+        return nanos;
+    }
+
+    void rootListed(ClasspathRoot root, Set<String> packageNames, long entriesVisited, int classCount, long startNanos) {
+        val nanos = phase(ScanPhase.LIST_CLASSES, startNanos);
+        val path = root.getLocation();
+        val rootCounters = roots.computeIfAbsent(path, p -> new Counters());
+        totals.entriesVisited.add(entriesVisited);
+        totals.classesListed.add(classCount);
+        rootCounters.entriesVisited.add(entriesVisited);
+        rootCounters.classesListed.add(classCount);
+        for (val listener : listeners)
+            listener.rootListed(path, packageNames, entriesVisited, classCount, nanos);
+    }
+
+    void classFileRead(String className, int bytes, long startNanos) {
+        phase(ScanPhase.READ_CLASS_FILES, startNanos);
+        val counters = packageCounters(className);
+        totals.classFilesRead.increment();
+        totals.bytesRead.add(bytes);
+        counters.classFilesRead.increment();
+        counters.bytesRead.add(bytes);
+    }
+
+    void classLoaded(String className, long startNanos) {
+        val nanos = phase(ScanPhase.LOAD_CLASSES, startNanos);
+        totals.classesLoaded.increment();
+        packageCounters(className).classesLoaded.increment();
+        for (val listener : listeners)
+            listener.classLoaded(className, nanos);
+    }
+
+    void classMatched(Class<?> clazz, int membersReflected, int matches, long startNanos) {
+        val nanos = phase(ScanPhase.MATCH_CLASSES, startNanos);
+        totals.membersReflected.add(membersReflected);
+        packageCounters(clazz.getName()).membersReflected.add(membersReflected);
+        for (val listener : listeners)
+            listener.classMatched(clazz, membersReflected, matches, nanos);
+    }
+
+    /**
+     * Count a result passed on to the caller, unless it is a non matching class included by
+     * {@link AnnotationScanner#includePackageContentByDefault(boolean)}
+     */
+    void matched(ScannerResult<?,?> result) {
+        if (!result.isMatch())
+            return;
+        totals.matches.increment();
+        packageCounters(result.getClazz().getName()).matches.increment();
+    }
+
+    /**
+     * Count a class left out of the results because it could not be loaded or reflected over
+     */
+    void classFailed(String className, Throwable error) {
+        totals.classesFailed.increment();
+        packageCounters(className).classesFailed.increment();
+        for (val listener : listeners)
+            listener.classFailed(className, error);
+    }
+
+    private Counters packageCounters(String className) {
+        val dot = className.lastIndexOf('.');
+        return packageCounters.computeIfAbsent(dot < 0 ? "" : className.substring(0, dot), p -> new Counters());
+    }
+
+    /**
+     * @return the statistics recorded so far, after notifying the listeners that the scan has completed
+     */
+    ScanStatistics complete() {
+        val phases = new EnumMap<ScanPhase, Long>(ScanPhase.class);
+        for (val phase : ScanPhase.values())
+            phases.put(phase, phaseNanos[phase.ordinal()].sum());
+
+        val statistics = new ScanStatistics(packages, System.nanoTime() - start, Collections.unmodifiableMap(phases),
+            totals.snapshot(), snapshot(roots), snapshot(packageCounters));
+        for (val listener : listeners)
+            listener.scanCompleted(statistics);
+        return statistics;
+    }
+
+    private static Map<String, Counts> snapshot(Map<String, Counters> counters) {
+        val snapshot = new TreeMap<String, Counts>();
+        for (val entry : counters.entrySet())
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        return Collections.unmodifiableMap(snapshot);
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.bglowney.annotationscanner;
+
+/**
+ * The phases of a scan, as timed by {@link ScanStatistics}
+ */
+public enum ScanPhase {
+    /** resolving the classpath roots containing each package through {@link ClassLoader#getResources(String)} */
+    FIND_ROOTS,
+    /** enumerating the classes of each root by walking its directories or jar entries */
+    LIST_CLASSES,
+    /** reading class files to pre-filter classes before loading them */
+    READ_CLASS_FILES,
+    /** reading index files and build time indexes */
+    READ_INDEXES,
+    /** loading classes through {@link Class#forName(String, boolean, ClassLoader)} */
+    LOAD_CLASSES,
+    /** reflecting over loaded classes and their members to match them */
+    MATCH_CLASSES
+}
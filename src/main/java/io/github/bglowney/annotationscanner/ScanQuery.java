@@ -0,0 +1,529 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.AnnotationDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.ClassValue;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.EnumValue;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static java.util.Arrays.asList;
+
+/**
+ * A condition on a class or on one of its declared members, composed from the factory methods of this class with
+ * {@link #and(ScanQuery)}, {@link #or(ScanQuery)} and {@link #negate()}. For example
+ *
+ * <pre>
+ *     AnnotationScanner.of("com.example")
+ *      .withMethodQuery(ScanQuery.annotated(Path.class)
+ *          .and(ScanQuery.withModifiers(Modifier.PUBLIC))
+ *          .and(ScanQuery.returning(Response.class)))
+ *      .scan()
+ * </pre>
+ *
+ * Queries are evaluated against the class file of each candidate before its class is loaded, so a class none of
+ * whose elements can match is rejected without being loaded, unless every class is loaded anyway because of
+ * {@link AnnotationScanner#includePackageContentByDefault(boolean)}. Conditions which can not be decided from a class
+ * file, such as the modifiers of a nested class, are decided by reflection once the class is loaded.
+ *
+ * Only annotations declared directly on an element are considered, so unlike {@link AnnotationScanner#withTypeAnnotations(Class[])}
+ * inherited type annotations do not match. Instances are immutable
+ *
+ * @see AnnotationScanner#withTypeQuery(ScanQuery)
+ * @see AnnotationScanner#withMethodQuery(ScanQuery)
+ * @see AnnotationScanner#withFieldQuery(ScanQuery)
+ * @see AnnotationScanner#withConstructorQuery(ScanQuery)
+ */
+public abstract class ScanQuery {
+
+    /**
+     * The class file access flag which marks a class as using the invokespecial semantics of Java 1.0.2 and later,
+     * and is not reported by {@link Class#getModifiers()}
+     */
+    private static final int ACC_SUPER = 0x0020;
+
+    ScanQuery() {
+    }
+
+    /**
+     * @param classFile - the class file of the class which declares the element
+     * @param member - the member, or null to test the class itself
+     * @return whether the element matches, or null if it can not be decided from the class file
+     */
+    abstract Boolean test(ClassFileDescriptor classFile, MemberDescriptor member);
+
+    /**
+     * @param element - a {@link Class}, {@link Method}, {@link Field} or {@link Constructor}
+     * @return whether the element matches
+     */
+    abstract boolean test(AnnotatedElement element);
+
+    /**
+     * Add the annotation types this query requires to be present, in the order they appear in the query. Annotations
+     * which are only required under a negation are not added
+     */
+    void requiredAnnotations(List<Class<? extends Annotation>> annotationClasses) {
+    }
+
+    /**
+     * Add the names of the classes this query compares by identity, such as annotation types
+     */
+    void referencedClassNames(Set<String> classNames) {
+    }
+
+    /**
+     * @return a query which matches elements matching both this query and the other
+     */
+    public ScanQuery and(ScanQuery other) {
+        return allOf(this, other);
+    }
+
+    /**
+     * @return a query which matches elements matching either this query or the other
+     */
+    public ScanQuery or(ScanQuery other) {
+        return anyOf(this, other);
+    }
+
+    /**
+     * @return a query which matches elements not matching this query
+     */
+    public ScanQuery negate() {
+        return not(this);
+    }
+
+    /**
+     * @param annotationClass - an annotation type
+     * @return a query which matches elements declaring the annotation. The annotation is held by the results of a
+     * match, unless an earlier annotation of the query is also present
+     */
+    public static ScanQuery annotated(Class<? extends Annotation> annotationClass) {
+        return new Annotated(annotationClass);
+    }
+
+    /**
+     * Build time indexes do not record element values, so classes described by one are loaded to be matched
+     *
+     * @param annotationClass - an annotation type
+     * @param elementName - the name of an element of the annotation type
+     * @param value - the value the element must have, as returned by the element method, such as an enum constant,
+     *              a class or an array. Default values are considered
+     * @return a query which matches elements declaring the annotation with the element value
+     * @throws IllegalArgumentException if the annotation type has no such element
+     */
+    public static ScanQuery annotatedWith(Class<? extends Annotation> annotationClass, String elementName, Object value) {
+        return new AnnotatedWith(annotationClass, elementName, value);
+    }
+
+    /**
+     * @param modifiers - the {@link java.lang.reflect.Modifier} flags an element must have, combined with '|'
+     * @return a query which matches elements having all of the modifiers
+     */
+    public static ScanQuery withModifiers(int modifiers) {
+        return new Modifiers(modifiers);
+    }
+
+    /**
+     * @param regex - a regular expression the whole name must match. Classes are named by their binary name, as
+     *              returned by {@link Class#getName()}, and constructors by the binary name of their class
+     * @return a query which matches elements by name
+     */
+    public static ScanQuery named(String regex) {
+        return new Named(Pattern.compile(regex));
+    }
+
+    /**
+     * @param type - a return type, or a field type
+     * @return a query which matches methods returning exactly the type, and fields of exactly the type
+     */
+    public static ScanQuery returning(Class<?> type) {
+        return new Returning(type);
+    }
+
+    /**
+     * @return a query which matches elements matching every query
+     */
+    public static ScanQuery allOf(ScanQuery... queries) {
+        return new AllOf(asList(queries.clone()));
+    }
+
+    /**
+     * @return a query which matches elements matching any query
+     */
+    public static ScanQuery anyOf(ScanQuery... queries) {
+        return new AnyOf(asList(queries.clone()));
+    }
+
+    /**
+     * @return a query which matches elements not matching the query
+     */
+    public static ScanQuery not(ScanQuery query) {
+        return new Not(Objects.requireNonNull(query));
+    }
+
+    private static List<AnnotationDescriptor> annotationsOf(ClassFileDescriptor classFile, MemberDescriptor member) {
+        return member == null ? classFile.getAnnotations() : member.getAnnotations();
+    }
+
+    /**
+     * Convert an annotation element value to the form read from class files, so that values read from class files
+     * and reflectively can be compared alike
+     *
+     * @return the converted value. Nested annotations are not converted
+     */
+    static Object classFileValue(Object value) {
+        if (value instanceof Enum)
+            return new EnumValue(((Enum<?>) value).getDeclaringClass().getName(), ((Enum<?>) value).name());
+        if (value instanceof Class)
+            return new ClassValue(((Class<?>) value).getName());
+        if (value != null && value.getClass().isArray()) {
+            val length = Array.getLength(value);
+            val elements = new ArrayList<Object>(length);
+            for (int i = 0; i < length; i++)
+                elements.add(classFileValue(Array.get(value, i)));
+            return Collections.unmodifiableList(elements);
+        }
+        return value;
+    }
+
+    private static boolean containsAnnotation(Object value) {
+        if (value instanceof Annotation)
+            return true;
+        if (value instanceof List) {
+            for (val element : (List<?>) value) {
+                if (containsAnnotation(element))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Annotated extends ScanQuery {
+        private final Class<? extends Annotation> annotationClass;
+        private final String annotationName;
+
+        Annotated(Class<? extends Annotation> annotationClass) {
+            this.annotationClass = annotationClass;
+            this.annotationName = annotationClass.getName();
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            return ClassFileDescriptor.findAnnotation(annotationsOf(classFile, member), annotationName) != null;
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            return element.getDeclaredAnnotation(annotationClass) != null;
+        }
+
+        @Override
+        void requiredAnnotations(List<Class<? extends Annotation>> annotationClasses) {
+            annotationClasses.add(annotationClass);
+        }
+
+        @Override
+        void referencedClassNames(Set<String> classNames) {
+            classNames.add(annotationName);
+        }
+
+        @Override
+        public String toString() {
+            return "annotated(" + annotationName + ")";
+        }
+    }
+
+    private static class AnnotatedWith extends ScanQuery {
+        private final Class<? extends Annotation> annotationClass;
+        private final String annotationName;
+        private final Method element;
+        private final Object value;
+        private final Object defaultValue;
+        private final boolean decidable;
+
+        AnnotatedWith(Class<? extends Annotation> annotationClass, String elementName, Object value) {
+            this.annotationClass = annotationClass;
+            this.annotationName = annotationClass.getName();
+            try {
+                this.element = annotationClass.getMethod(elementName);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(annotationName + " has no element " + elementName);
+            }
+            this.value = classFileValue(value);
+            this.defaultValue = classFileValue(element.getDefaultValue());
+            // nested annotations are compared reflectively
+            this.decidable = !containsAnnotation(this.value) && !containsAnnotation(defaultValue);
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            val annotation = ClassFileDescriptor.findAnnotation(annotationsOf(classFile, member), annotationName);
+            if (annotation == null)
+                return false;
+            // the values of annotations read from a build time index are unknown
+            if (!decidable || !annotation.isValuesRecorded())
+                return null;
+            val values = annotation.getValues();
+            Object actual = values.containsKey(element.getName()) ? values.get(element.getName()) : defaultValue;
+            if (containsAnnotation(actual))
+                return null;
+            return Objects.equals(value, actual);
+        }
+
+        @Override
+        @SneakyThrows(ReflectiveOperationException.class)
+        boolean test(AnnotatedElement annotatedElement) {
+            val annotation = annotatedElement.getDeclaredAnnotation(annotationClass);
+            if (annotation == null)
+                return false;
+            element.setAccessible(true);
+            return Objects.equals(value, classFileValue(element.invoke(annotation)));
+        }
+
+        @Override
+        void requiredAnnotations(List<Class<? extends Annotation>> annotationClasses) {
+            annotationClasses.add(annotationClass);
+        }
+
+        @Override
+        void referencedClassNames(Set<String> classNames) {
+            classNames.add(annotationName);
+        }
+
+        @Override
+        public String toString() {
+            return "annotatedWith(" + annotationName + "," + element.getName() + "=" + value + ")";
+        }
+    }
+
+    private static class Modifiers extends ScanQuery {
+        private final int modifiers;
+
+        Modifiers(int modifiers) {
+            this.modifiers = modifiers;
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            if (member != null)
+                return (member.getAccessFlags() & modifiers) == modifiers;
+            // the modifiers of a nested class are recorded by the InnerClasses attribute, which is not read
+            if (classFile.getClassName().indexOf('$') >= 0)
+                return null;
+            return (classFile.getAccessFlags() & ~ACC_SUPER & modifiers) == modifiers;
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            int actual = element instanceof Class ? ((Class<?>) element).getModifiers() : ((Member) element).getModifiers();
+            return (actual & modifiers) == modifiers;
+        }
+
+        @Override
+        public String toString() {
+            return "withModifiers(" + modifiers + ")";
+        }
+    }
+
+    private static class Named extends ScanQuery {
+        private final Pattern pattern;
+
+        Named(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            String name = member == null || member.isConstructor() ? classFile.getClassName() : member.getName();
+            return pattern.matcher(name).matches();
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            String name = element instanceof Class ? ((Class<?>) element).getName() : ((Member) element).getName();
+            return pattern.matcher(name).matches();
+        }
+
+        @Override
+        public String toString() {
+            return "named(" + pattern.pattern() + ")";
+        }
+    }
+
+    private static class Returning extends ScanQuery {
+        private final Class<?> type;
+        private final String descriptor;
+
+        Returning(Class<?> type) {
+            this.type = type;
+            this.descriptor = Descriptors.descriptorOf(type);
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            if (member == null || member.isConstructor())
+                return false;
+            val memberDescriptor = member.getDescriptor();
+            int returnTypeIndex = memberDescriptor.startsWith("(") ? memberDescriptor.indexOf(')') + 1 : 0;
+            return memberDescriptor.startsWith(descriptor, returnTypeIndex)
+                && memberDescriptor.length() - returnTypeIndex == descriptor.length();
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            if (element instanceof Method)
+                return ((Method) element).getReturnType().equals(type);
+            if (element instanceof Field)
+                return ((Field) element).getType().equals(type);
+            return false;
+        }
+
+        @Override
+        void referencedClassNames(Set<String> classNames) {
+            classNames.add(type.getName());
+        }
+
+        @Override
+        public String toString() {
+            return "returning(" + type.getName() + ")";
+        }
+    }
+
+    private static class AllOf extends ScanQuery {
+        private final List<ScanQuery> queries;
+
+        AllOf(List<ScanQuery> queries) {
+            this.queries = queries;
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            // a single condition which certainly fails decides the result, even if others can not be decided
+            Boolean result = true;
+            for (val query : queries) {
+                val matched = query.test(classFile, member);
+                if (matched == null)
+                    result = null;
+                else if (!matched)
+                    return false;
+            }
+            return result;
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            for (val query : queries) {
+                if (!query.test(element))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        void requiredAnnotations(List<Class<? extends Annotation>> annotationClasses) {
+            for (val query : queries)
+                query.requiredAnnotations(annotationClasses);
+        }
+
+        @Override
+        void referencedClassNames(Set<String> classNames) {
+            for (val query : queries)
+                query.referencedClassNames(classNames);
+        }
+
+        @Override
+        public String toString() {
+            return "allOf" + queries;
+        }
+    }
+
+    private static class AnyOf extends ScanQuery {
+        private final List<ScanQuery> queries;
+
+        AnyOf(List<ScanQuery> queries) {
+            this.queries = queries;
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            Boolean result = false;
+            for (val query : queries) {
+                val matched = query.test(classFile, member);
+                if (matched == null)
+                    result = null;
+                else if (matched)
+                    return true;
+            }
+            return result;
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            for (val query : queries) {
+                if (query.test(element))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        void requiredAnnotations(List<Class<? extends Annotation>> annotationClasses) {
+            for (val query : queries)
+                query.requiredAnnotations(annotationClasses);
+        }
+
+        @Override
+        void referencedClassNames(Set<String> classNames) {
+            for (val query : queries)
+                query.referencedClassNames(classNames);
+        }
+
+        @Override
+        public String toString() {
+            return "anyOf" + queries;
+        }
+    }
+
+    private static class Not extends ScanQuery {
+        private final ScanQuery query;
+
+        Not(ScanQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        Boolean test(ClassFileDescriptor classFile, MemberDescriptor member) {
+            val matched = query.test(classFile, member);
+            return matched == null ? null : !matched;
+        }
+
+        @Override
+        boolean test(AnnotatedElement element) {
+            return !query.test(element);
+        }
+
+        @Override
+        void referencedClassNames(Set<String> classNames) {
+            query.referencedClassNames(classNames);
+        }
+
+        @Override
+        public String toString() {
+            return "not(" + query + ")";
+        }
+    }
+}
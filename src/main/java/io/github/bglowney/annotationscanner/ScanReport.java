@@ -0,0 +1,29 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.Getter;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The results of a scan together with its statistics and the classes which could not be scanned
+ *
+ * @see AnnotationScanner#scanReport()
+ */
+@Getter
+public class ScanReport {
+    private final Set<ScannerResult<?,? extends Annotation>> results;
+    private final ScanStatistics statistics;
+    /**
+     * The classes left out of the results, when scanning with {@link LinkageErrorPolicy#COLLECT}
+     */
+    private final List<ScanFailure> failures;
+
+    public ScanReport(Set<ScannerResult<?,? extends Annotation>> results, ScanStatistics statistics, List<ScanFailure> failures) {
+        this.results = results;
+        this.statistics = statistics;
+        this.failures = failures;
+    }
+}
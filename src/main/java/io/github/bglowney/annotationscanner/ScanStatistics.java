@@ -0,0 +1,67 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The timings and counters of a completed scan.
+ *
+ * Phase timings are summed over every scanning thread, so with multiple threads their total may exceed the elapsed
+ * time of the scan. Counters are given in total, for each classpath root and for each package of the scanned classes.
+ * Roots only count the entries visited and classes listed, while packages count everything else
+ *
+ * @see AnnotationScanner#scanReport()
+ * @see ScanListener#scanCompleted(ScanStatistics)
+ */
+@Getter
+@ToString
+public class ScanStatistics {
+
+    @Value
+    public static class Counts {
+        long entriesVisited;
+        long classesListed;
+        long classFilesRead;
+        long bytesRead;
+        long classesLoaded;
+        long membersReflected;
+        long matches;
+        long classesFailed;
+    }
+
+    private final Set<String> packages;
+    private final long elapsedNanos;
+    private final Map<ScanPhase, Long> phaseNanos;
+    private final Counts totals;
+    private final Map<String, Counts> rootCounts;
+    private final Map<String, Counts> packageCounts;
+
+    public ScanStatistics(Set<String> packages, long elapsedNanos, Map<ScanPhase, Long> phaseNanos, Counts totals,
+                          Map<String, Counts> rootCounts, Map<String, Counts> packageCounts) {
+        this.packages = packages;
+        this.elapsedNanos = elapsedNanos;
+        this.phaseNanos = phaseNanos;
+        this.totals = totals;
+        this.rootCounts = rootCounts;
+        this.packageCounts = packageCounts;
+    }
+
+    /**
+     * @param phase - a phase of the scan
+     * @return the time spent in the phase, in nanoseconds
+     */
+    public long getPhaseNanos(ScanPhase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * @return the number of classpath roots scanned
+     */
+    public int getRootCount() {
+        return rootCounts.size();
+    }
+}
@@ -0,0 +1,279 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import lombok.Value;
+import lombok.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the results of an {@link AnnotationScanner} up to date as the class files of its directory roots change, for
+ * example when a development server recompiles classes. Package directories are watched through a
+ * {@link WatchService}, and once no further change has been seen for the debounce interval, only the class files
+ * created, modified or deleted since the previous batch are re-examined and the results they add and remove are
+ * passed to the listener together.
+ *
+ * Changed class files are matched by reading them, so a class which was already loaded is not loaded again to be
+ * matched. The results added are loaded from the class loader supplied for each batch, which for a modified class
+ * should be a new class loader, since a class loader can not load a class twice. Jar roots are not watched, and a
+ * change to a supertype does not cause its subclasses to be re-examined.
+ *
+ * The listener is invoked from a single daemon thread, which runs until the watcher is closed
+ *
+ * @see AnnotationScanner#watch(Duration, Supplier, Consumer)
+ */
+public class ScanWatcher implements Closeable {
+
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(200);
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final AnnotationScanner scanner;
+    private final Supplier<? extends ClassLoader> classLoaders;
+    private final long debounceNanos;
+    private final Consumer<? super ScanDelta> listener;
+    private final ClassFileMatcher matcher;
+    private final WatchService watchService;
+    private final Map<WatchKey, WatchedDirectory> directories = new HashMap<>();
+    /**
+     * The current results of each class, keyed by their description so that results can be compared across class loaders
+     */
+    private final Map<String, Map<ResultRecord, ScannerResult<?,? extends Annotation>>> results = new HashMap<>();
+    private final Thread thread;
+
+    @Value
+    private static class WatchedDirectory {
+        Path root;
+        Path directory;
+    }
+
+    ScanWatcher(AnnotationScanner scanner, Duration debounce, Supplier<? extends ClassLoader> classLoaders,
+                Consumer<? super ScanDelta> listener) throws IOException {
+        this.scanner = scanner;
+        this.classLoaders = classLoaders;
+        this.debounceNanos = debounce.toNanos();
+        this.listener = listener;
+        this.matcher = new ClassFileMatcher(scanner);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        try {
+            // watch before the initial scan so that no change made during the scan is missed
+            for (val root : scanner.findRoots(scanner.packages).entrySet()) {
+                val path = root.getKey().getPath();
+                if (root.getKey().getKind() != ClasspathRoot.Kind.DIRECTORY || path.getFileSystem() != FileSystems.getDefault())
+                    continue;
+                for (val packageName : root.getValue())
+                    register(path, path.resolve(packageName.replace('.', '/')));
+            }
+            scanner.scan(result -> results.computeIfAbsent(result.getClazz().getName(), c -> new LinkedHashMap<>())
+                .put(ResultRecord.of(result), result));
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        } catch (Exception e) {
+            watchService.close();
+            throw new IOException(e);
+        }
+
+        thread = new Thread(this::run, "annotation-scanner-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the results as of the most recent batch of changes
+     */
+    public synchronized Set<ScannerResult<?,? extends Annotation>> getResults() {
+        val current = new HashSet<ScannerResult<?,? extends Annotation>>();
+        for (val classResults : results.values())
+            current.addAll(classResults.values());
+        return current;
+    }
+
+    /**
+     * Stop watching. A batch already being processed is completed first
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void register(Path root, Path directory) throws IOException {
+        if (!Files.isDirectory(directory))
+            return;
+        if (!scanner.includeSubpackages) {
+            registerDirectory(root, directory);
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                registerDirectory(root, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void registerDirectory(Path root, Path directory) throws IOException {
+        val key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, new WatchedDirectory(root, directory));
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                val changed = new LinkedHashSet<String>();
+                boolean overflow = drain(watchService.take(), changed);
+                for (WatchKey key; (key = watchService.poll(debounceNanos, TimeUnit.NANOSECONDS)) != null; )
+                    overflow |= drain(key, changed);
+                if (overflow)
+                    changed.addAll(listClassNames());
+                update(changed);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Collect the names of the classes whose class files changed
+     *
+     * @return true if events were lost, in which case every class must be re-examined
+     */
+    private boolean drain(WatchKey key, Set<String> changed) throws IOException {
+        val watched = directories.get(key);
+        boolean overflow = false;
+        for (val event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            val path = watched.getDirectory().resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && scanner.includeSubpackages && Files.isDirectory(path)) {
+                // class files may have been written before the new directory was registered
+                register(watched.getRoot(), path);
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.forEach(file -> addClassName(watched.getRoot(), file, changed));
+                }
+            } else {
+                addClassName(watched.getRoot(), path, changed);
+            }
+        }
+        if (!key.reset())
+            directories.remove(key);
+        return overflow;
+    }
+
+    private static void addClassName(Path root, Path file, Set<String> classNames) {
+        val relativePath = root.relativize(file).toString();
+        if (relativePath.endsWith(CLASS_SUFFIX))
+            classNames.add(relativePath.substring(0, relativePath.length() - CLASS_SUFFIX.length())
+                .replace(root.getFileSystem().getSeparator(), "."));
+    }
+
+    private Set<String> listClassNames() throws IOException {
+        val classNames = new HashSet<String>();
+        synchronized (this) {
+            classNames.addAll(results.keySet());
+        }
+        val roots = new HashSet<Path>();
+        for (val watched : directories.values())
+            roots.add(watched.getRoot());
+        for (val root : roots)
+            classNames.addAll(new ClasspathRoot(root, ClasspathRoot.Kind.DIRECTORY).listClassNames(scanner.packages, scanner.includeSubpackages));
+        return classNames;
+    }
+
+    /**
+     * Re-examine the changed classes and pass on the results they added and removed
+     */
+    private void update(Set<String> classNames) {
+        val classLoader = classLoaders.get();
+        val classFiles = new ClassFileHierarchy(classLoader);
+        val added = new HashSet<ScannerResult<?,? extends Annotation>>();
+        val removed = new HashSet<ScannerResult<?,? extends Annotation>>();
+
+        for (val className : classNames) {
+            val classFile = classFiles.get(className);
+            List<ResultRecord> records = classFile == null ? new ArrayList<>() : match(classFile, classFiles, classLoader);
+            if (records == null)
+                continue;
+
+            Map<ResultRecord, ScannerResult<?,? extends Annotation>> previous;
+            synchronized (this) {
+                previous = results.remove(className);
+            }
+            val current = new LinkedHashMap<ResultRecord, ScannerResult<?,? extends Annotation>>();
+            for (val record : records) {
+                ScannerResult<?,? extends Annotation> result = previous == null ? null : previous.remove(record);
+                if (result != null) {
+                    current.put(record, result);
+                    continue;
+                }
+                try {
+                    ScannerResult<?,? extends Annotation> loaded = record.toResult(classLoader, scanner.initializeClasses);
+                    current.put(record, loaded);
+                    added.add(loaded);
+                } catch (ReflectiveOperationException | LinkageError | TypeNotPresentException e) {
+                    // the class may be removed again before it could be loaded, or fail to load
+                }
+            }
+            if (previous != null)
+                removed.addAll(previous.values());
+            if (!current.isEmpty()) {
+                synchronized (this) {
+                    results.put(className, current);
+                }
+            }
+        }
+
+        if (!added.isEmpty() || !removed.isEmpty())
+            listener.accept(new ScanDelta(added, removed));
+    }
+
+    /**
+     * Match a class by its class file, or by loading it when the class files of its supertypes can not all be read
+     *
+     * @return the results of the class, or null if it could not be loaded
+     */
+    private List<ResultRecord> match(ClassFileDescriptor classFile, ClassFileHierarchy classFiles, ClassLoader classLoader) {
+        val records = matcher.match(classFile, classFiles);
+        if (records != null)
+            return records;
+        try {
+            val clazz = Class.forName(classFile.getClassName(), false, classLoader);
+            val classResults = new ArrayList<ScannerResult<?,?>>();
+            scanner.scanClass(clazz, classResults);
+            return ResultRecord.of(classResults);
+        } catch (ClassNotFoundException | LinkageError | TypeNotPresentException e) {
+            return null;
+        }
+    }
+}
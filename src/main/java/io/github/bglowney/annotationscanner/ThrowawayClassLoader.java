@@ -0,0 +1,69 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+/**
+ * A class loader which defines the candidates of a scan itself, from the class files of its parent, rather than
+ * delegating to its parent. Candidates loaded only to be matched then become unreachable, and can be unloaded, once
+ * the loader is discarded. Every other class, including the annotations and types named by the criteria of the scan,
+ * is loaded by the parent as usual, so that matching compares the same classes
+ *
+ * @see AnnotationScanner#withThrowawayClassLoaders(boolean)
+ */
+class ThrowawayClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Predicate<String> candidates;
+    /**
+     * Matches the classes of this loader. Its caches hold classes of this loader, so it is discarded along with it
+     */
+    private final ReflectiveMatcher matcher;
+
+    /**
+     * @param parent - the class loader to read class files from and to delegate other classes to
+     * @param candidates - tests whether this loader should define a class itself
+     * @param matcher - a matcher for the classes of this loader only
+     */
+    ThrowawayClassLoader(ClassLoader parent, Predicate<String> candidates, ReflectiveMatcher matcher) {
+        super(parent);
+        this.candidates = candidates;
+        this.matcher = matcher;
+    }
+
+    ReflectiveMatcher getMatcher() {
+        return matcher;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!candidates.test(name))
+            return super.loadClass(name, resolve);
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null)
+                clazz = findClass(name);
+            if (resolve)
+                resolveClass(clazz);
+            return clazz;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        try (InputStream in = getParent().getResourceAsStream(ClassFileHierarchy.resourceName(name))) {
+            if (in == null)
+                throw new ClassNotFoundException(name);
+            val bytes = ClassFileReader.readFully(in);
+            return defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The superclass and interface graph of the classes of the scanned packages, built from the headers of their class
+ * files without loading any classes. Supertypes outside the scanned packages, such as library base classes, are
+ * read as well so that indirect subtypes are found through them.
+ *
+ * Queries are answered from the graph, and only the classes found are loaded, so finding the implementations of a
+ * plugin interface does not load every class of a large classpath. A graph is not modified once returned by
+ * {@link AnnotationScanner#scanTypes()}, and may be queried from multiple threads
+ *
+ * @see AnnotationScanner#scanTypes()
+ */
+public class TypeGraph {
+
+    private static final String OBJECT = "java.lang.Object";
+
+    private final ClassLoader classLoader;
+    private final boolean initialize;
+    private final LinkageErrorPolicy linkageErrorPolicy;
+    private final Set<String> classNames = new TreeSet<>();
+    /**
+     * The header of every class read, including supertypes outside the scanned packages, or null if it can not be read
+     */
+    private final Map<String, ClassFileDescriptor> headers = new HashMap<>();
+    private final Map<String, List<String>> directSubtypes = new HashMap<>();
+
+    TypeGraph(ClassLoader classLoader, boolean initialize, LinkageErrorPolicy linkageErrorPolicy) {
+        this.classLoader = classLoader;
+        this.initialize = initialize;
+        this.linkageErrorPolicy = linkageErrorPolicy;
+    }
+
+    /**
+     * Add a class of the scanned packages, along with its supertypes
+     *
+     * @param metrics - records the class files read, or null
+     */
+    void add(String className, ScanMetrics metrics) {
+        if (header(className, metrics) != null)
+            classNames.add(className);
+    }
+
+    private ClassFileDescriptor header(String className, ScanMetrics metrics) {
+        if (headers.containsKey(className))
+            return headers.get(className);
+
+        val header = read(className, metrics);
+        headers.put(className, header);
+        if (header == null)
+            return null;
+
+        val supertypes = new ArrayList<String>(header.getInterfaceNames());
+        if (header.getSuperClassName() != null)
+            supertypes.add(header.getSuperClassName());
+        for (val supertype : supertypes) {
+            directSubtypes.computeIfAbsent(supertype, s -> new ArrayList<>()).add(className);
+            if (!OBJECT.equals(supertype))
+                header(supertype, metrics);
+        }
+        return header;
+    }
+
+    private ClassFileDescriptor read(String className, ScanMetrics metrics) {
+        val start = System.nanoTime();
+        try (InputStream in = classLoader.getResourceAsStream(ClassFileHierarchy.resourceName(className))) {
+            if (in == null)
+                return null;
+            val bytes = ClassFileReader.readFully(in);
+            val header = ClassFileReader.readHeader(bytes);
+            if (metrics != null)
+                metrics.classFileRead(className, bytes.length, start);
+            return header;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the names of the classes of the scanned packages
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classNames);
+    }
+
+    /**
+     * @param className - the binary name of a class
+     * @return the binary name of the superclass, or null if the class is unknown, an interface or java.lang.Object
+     */
+    public String getSuperClassName(String className) {
+        val header = headers.get(className);
+        return header == null || header.isInterface() ? null : header.getSuperClassName();
+    }
+
+    /**
+     * @param className - the binary name of a class
+     * @return the binary names of the interfaces the class directly implements or extends
+     */
+    public List<String> getInterfaceNames(String className) {
+        val header = headers.get(className);
+        return header == null ? Collections.emptyList() : header.getInterfaceNames();
+    }
+
+    /**
+     * @param typeName - the binary name of a class or interface
+     * @return the binary names of the classes and interfaces of the scanned packages which extend or implement the
+     * type, directly or indirectly, excluding the type itself
+     */
+    public Set<String> findSubtypeNames(String typeName) {
+        val found = new LinkedHashSet<String>();
+        val seen = new HashSet<String>();
+        val queue = new ArrayDeque<String>();
+        queue.add(typeName);
+        while (!queue.isEmpty()) {
+            for (val subtype : directSubtypes.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (!seen.add(subtype))
+                    continue;
+                queue.add(subtype);
+                if (classNames.contains(subtype))
+                    found.add(subtype);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param typeName - the binary name of a class or interface
+     * @return the binary names of the concrete classes of the scanned packages which extend or implement the type
+     */
+    public Set<String> findImplementationNames(String typeName) {
+        val found = new LinkedHashSet<String>();
+        for (val subtype : findSubtypeNames(typeName)) {
+            val header = headers.get(subtype);
+            if (!header.isInterface() && !Modifier.isAbstract(header.getAccessFlags()))
+                found.add(subtype);
+        }
+        return found;
+    }
+
+    /**
+     * Load the classes and interfaces of the scanned packages which extend or implement a type, directly or indirectly
+     *
+     * @param type - a class or interface
+     * @return the subtypes, excluding the type itself
+     */
+    public <T> Set<Class<? extends T>> findSubtypes(Class<T> type) {
+        return load(type, findSubtypeNames(type.getName()));
+    }
+
+    /**
+     * Load the concrete classes of the scanned packages which extend or implement a type, directly or indirectly,
+     * such as the implementations of a plugin interface
+     *
+     * @param type - a class or interface
+     * @return the concrete subtypes
+     */
+    public <T> Set<Class<? extends T>> findImplementations(Class<T> type) {
+        return load(type, findImplementationNames(type.getName()));
+    }
+
+    @SneakyThrows(ClassNotFoundException.class)
+    private <T> Set<Class<? extends T>> load(Class<T> type, Set<String> classNames) {
+        val classes = new LinkedHashSet<Class<? extends T>>();
+        for (val className : classNames) {
+            final Class<?> clazz;
+            try {
+                clazz = Class.forName(className, initialize, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                if (linkageErrorPolicy == LinkageErrorPolicy.FAIL)
+                    throw e;
+                continue;
+            }
+            // a subtype of a type of the same name from another class loader is not a subtype of this type
+            if (type.isAssignableFrom(clazz))
+                classes.add(clazz.asSubclass(type));
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+public class AnnotationIndexProcessorTest {
+
+    static final String INITIALIZED_PROPERTY = "annotationscanner.indexed.initialized";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path compile() throws Exception {
+        val sources = temporaryFolder.newFolder("sources").toPath();
+        val classes = temporaryFolder.newFolder("classes").toPath();
+        source(sources, "Marker", "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) @java.lang.annotation.Inherited public @interface Marker {}");
+        source(sources, "Base", "@Marker public class Base {"
+            + " @Marker public String field;"
+            + " @Marker public void inherited() {}"
+            + " @Marker public void overridden(java.util.List<String>[] values) {}"
+            + " public class Inner { @Marker public Inner(int value) {} } }");
+        source(sources, "Sub", "public class Sub extends Base implements Runnable {"
+            + " @Marker public Sub(long value) {}"
+            + " public void overridden(java.util.List<String>[] values) {}"
+            + " public void run() {} }");
+        source(sources, "Color", "public enum Color { RED(1); @Marker Color(int value) {} }");
+        // the compiler generates a bridge method, with the same annotations, for each of these methods
+        source(sources, "Box", "public class Box implements Comparable<Box>, Cloneable {"
+            + " @Marker public int compareTo(Box other) { return 0; }"
+            + " @Marker public Box clone() { return this; } }");
+        source(sources, "Other", "public class Other { static { System.setProperty(\"" + INITIALIZED_PROPERTY + "\", \"true\"); } }");
+
+        val compiler = ToolProvider.getSystemJavaCompiler();
+        try (val fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            val files = new ArrayList<java.io.File>();
+            for (val name : asList("Marker", "Base", "Sub", "Color", "Box", "Other"))
+                files.add(sources.resolve("indexed").resolve(name + ".java").toFile());
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+            val task = compiler.getTask(null, fileManager, null, asList("-d", classes.toString()), null, units);
+            task.setProcessors(singletonList(new AnnotationIndexProcessor()));
+            Assert.assertTrue(task.call());
+        }
+        return classes;
+    }
+
+    private static void source(Path sources, String name, String body) throws Exception {
+        val file = sources.resolve("indexed").resolve(name + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, ("package indexed; " + body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static AnnotationScanner scanner(ClassLoader classLoader) throws Exception {
+        val marker = classLoader.loadClass("indexed.Marker").asSubclass(Annotation.class);
+        return AnnotationScanner.of("indexed")
+            .withClassLoader(classLoader)
+            .withTypeAnnotations(marker)
+            .withMethodAnnotations(marker)
+            .withFieldAnnotations(marker)
+            .withConstructorAnnotations(marker);
+    }
+
+    @Test
+    public void testIndexIsGenerated() throws Exception {
+        val classes = compile();
+
+        try (InputStream in = Files.newInputStream(classes.resolve(BuildIndex.RESOURCE))) {
+            val classFiles = BuildIndex.read(in);
+            val names = new ArrayList<String>();
+            for (val classFile : classFiles)
+                names.add(classFile.getClassName());
+            Assert.assertEquals(asList("indexed.Base", "indexed.Base$Inner", "indexed.Box", "indexed.Color", "indexed.Marker", "indexed.Other", "indexed.Sub"), names);
+        }
+    }
+
+    @Test
+    public void testScanFromBuildIndexMatchesLiveScan() throws Exception {
+        val classes = compile();
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            System.clearProperty(INITIALIZED_PROPERTY);
+            val indexed = scanner(classLoader).withBuildIndexes(true).scan();
+            Assert.assertNull(System.getProperty(INITIALIZED_PROPERTY));
+
+            val live = scanner(classLoader).scan();
+            Assert.assertNotNull(System.getProperty(INITIALIZED_PROPERTY));
+
+            // Base type, field and 2 methods, Base$Inner constructor, Sub type (inherited), field and 1 method,
+            // Sub constructor, the Color constructor and the 2 Box methods and their bridges
+            Assert.assertEquals(14, live.size());
+            Assert.assertEquals(live, indexed);
+        }
+    }
+}
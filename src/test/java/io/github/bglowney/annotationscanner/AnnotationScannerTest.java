@@ -3,15 +3,34 @@ package io.github.bglowney.annotationscanner;
 import io.github.bglowney.annotationscanner.test.TestAnnotation;
 import io.github.bglowney.annotationscanner.test.TestClass;
 import io.github.bglowney.annotationscanner.test.TestClass2;
+import io.github.bglowney.annotationscanner.test2.test3.TestClass3;
+import io.github.bglowney.annotationscanner.test4.AnnotatedMethodClass;
+import io.github.bglowney.annotationscanner.test4.InitializationRecordingClass;
 import lombok.val;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
 
 public class AnnotationScannerTest {
 
     static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test";
     static final String TEST_PACKAGE_2 = "io.github.bglowney.annotationscanner.test2";
     static final String TEST_PACKAGE_3 = "io.github.bglowney.annotationscanner.test2.test3";
+    static final String TEST_PACKAGE_4 = "io.github.bglowney.annotationscanner.test4";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Test
     public void testScanForClass() {
@@ -135,4 +154,222 @@ public class AnnotationScannerTest {
         Assert.assertEquals(2, results.size());
     }
 
+    @Test
+    public void testClassFileFilteringSkipsNonMatchingClasses() throws Exception {
+        // an isolated class loader defines the classes afresh, so their static initializers have not yet run
+        val classes = TestClasspath.directory(temporaryFolder.newFolder().toPath(),
+            TestAnnotation.class, AnnotatedMethodClass.class, InitializationRecordingClass.class);
+        System.clearProperty(InitializationRecordingClass.INITIALIZED_PROPERTY);
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            val annotation = classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class);
+            val results = AnnotationScanner.of(TEST_PACKAGE_4)
+                .withClassLoader(classLoader)
+                .withMethodAnnotations(annotation)
+                .withClassFileFiltering(true)
+                .scan();
+
+            Assert.assertEquals(1, results.size());
+            val result = results.iterator().next();
+            Assert.assertEquals(AnnotatedMethodClass.class.getName(), result.getClazz().getName());
+            Assert.assertEquals(result.getClazz().getMethod("test", int.class, String[].class), result.getAnnotatedElement());
+            Assert.assertNull(System.getProperty(InitializationRecordingClass.INITIALIZED_PROPERTY));
+        }
+
+        // without filtering the class without annotations is loaded and initialized
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            val annotation = classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class);
+            AnnotationScanner.of(TEST_PACKAGE_4)
+                .withClassLoader(classLoader)
+                .withMethodAnnotations(annotation)
+                .scan();
+            Assert.assertNotNull(System.getProperty(InitializationRecordingClass.INITIALIZED_PROPERTY));
+        }
+    }
+
+    @Test
+    public void testClassFileFilteringMatchesReflectiveScan() {
+        val scanner = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .withFieldAnnotations(TestAnnotation.class)
+            .withConstructorAnnotations(TestAnnotation.class)
+            .withTypeAndAnnotation(Object.class, TestAnnotation.class);
+
+        val expected = scanner.scan();
+        val filtered = scanner.withClassFileFiltering(true).scan();
+
+        Assert.assertEquals(4, expected.size());
+        Assert.assertEquals(expected, filtered);
+    }
+
+    @Test
+    public void testScanDescriptors() {
+        val results = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .withFieldAnnotations(TestAnnotation.class)
+            .withConstructorAnnotations(TestAnnotation.class)
+            .scanDescriptors();
+
+        val annotation = TestAnnotation.class.getName();
+        val clazz = TestClass.class.getName();
+        Assert.assertEquals(4, results.size());
+        Assert.assertTrue(results.contains(new AnnotationScanner.DescriptorResult(clazz, ElementType.TYPE, null, null, annotation, true)));
+        Assert.assertTrue(results.contains(new AnnotationScanner.DescriptorResult(clazz, ElementType.METHOD, "test", "()V", annotation, true)));
+        Assert.assertTrue(results.contains(new AnnotationScanner.DescriptorResult(clazz, ElementType.FIELD, "test", "Ljava/lang/Object;", annotation, true)));
+        Assert.assertTrue(results.contains(new AnnotationScanner.DescriptorResult(clazz, ElementType.CONSTRUCTOR, "<init>", "()V", annotation, true)));
+    }
+
+    @Test
+    public void testScanDescriptorsDoesNotLoadClasses() {
+        System.clearProperty(InitializationRecordingClass.INITIALIZED_PROPERTY);
+
+        val results = AnnotationScanner.of(TEST_PACKAGE_4)
+            .includePackageContentByDefault(true)
+            .scanDescriptors();
+
+        Assert.assertEquals(2, results.size());
+        for (val result : results)
+            Assert.assertFalse(result.isMatch());
+        Assert.assertNull(System.getProperty(InitializationRecordingClass.INITIALIZED_PROPERTY));
+    }
+
+    @Test
+    public void testParallelScanMatchesSerialScan() {
+        val expected = AnnotationScanner.of(TEST_PACKAGE, TEST_PACKAGE_2, TEST_PACKAGE_3)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .includePackageContentByDefault(true)
+            .scan();
+
+        val results = AnnotationScanner.of(TEST_PACKAGE, TEST_PACKAGE_2, TEST_PACKAGE_3)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .includePackageContentByDefault(true)
+            .withParallelism(4)
+            .scan();
+
+        Assert.assertEquals(6, results.size());
+        Assert.assertEquals(expected, results);
+    }
+
+    @Test
+    public void testScanWithExecutor() {
+        val executor = Executors.newFixedThreadPool(2);
+        try {
+            val results = AnnotationScanner.of(TEST_PACKAGE)
+                .withTypeAnnotations(TestAnnotation.class)
+                .withExecutor(executor)
+                .scan();
+
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals(TestClass.class, results.iterator().next().getClazz());
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testScanJarOnlyListsRequestedPackage() throws Exception {
+        val jar = TestClasspath.jar(temporaryFolder.getRoot().toPath().resolve("test.jar"),
+            TestAnnotation.class, TestClass.class, TestClass2.class,
+            io.github.bglowney.annotationscanner.test2.TestClass2.class, TestClass3.class);
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(jar)) {
+            val results = AnnotationScanner.of(TEST_PACKAGE_2)
+                .withClassLoader(classLoader)
+                .includePackageContentByDefault(true)
+                .scan();
+
+            Assert.assertEquals(1, results.size());
+            val clazz = results.iterator().next().getClazz();
+            Assert.assertEquals(io.github.bglowney.annotationscanner.test2.TestClass2.class.getName(), clazz.getName());
+            Assert.assertEquals(classLoader, clazz.getClassLoader());
+        }
+    }
+
+    @Test
+    public void testIncludeSubpackages() {
+        val results = AnnotationScanner.of(TEST_PACKAGE_2)
+            .includePackageContentByDefault(true)
+            .includeSubpackages(true)
+            .scan();
+
+        val classes = new HashSet<Class<?>>();
+        for (val result : results)
+            classes.add(result.getClazz());
+
+        Assert.assertEquals(new HashSet<>(asList(io.github.bglowney.annotationscanner.test2.TestClass2.class, TestClass3.class)), classes);
+    }
+
+    @Test
+    public void testIncludeSubpackagesInJar() throws Exception {
+        val jar = TestClasspath.jar(temporaryFolder.getRoot().toPath().resolve("test.jar"),
+            TestAnnotation.class, TestClass.class, TestClass2.class,
+            io.github.bglowney.annotationscanner.test2.TestClass2.class, TestClass3.class);
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(jar)) {
+            val results = AnnotationScanner.of(TEST_PACKAGE_2, TEST_PACKAGE_3)
+                .withClassLoader(classLoader)
+                .includePackageContentByDefault(true)
+                .includeSubpackages(true)
+                .scan();
+
+            val classNames = new HashSet<String>();
+            for (val result : results)
+                classNames.add(result.getClazz().getName());
+
+            Assert.assertEquals(new HashSet<>(asList(
+                io.github.bglowney.annotationscanner.test2.TestClass2.class.getName(), TestClass3.class.getName())), classNames);
+        }
+    }
+
+    @Test
+    public void testScanWithConsumer() {
+        val scanner = AnnotationScanner.of(TEST_PACKAGE, TEST_PACKAGE_2, TEST_PACKAGE_3)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .includePackageContentByDefault(true);
+        val expected = scanner.scan();
+
+        val results = new ArrayList<AnnotationScanner.ScannerResult<?,?>>();
+        scanner.withParallelism(4).scan(results::add);
+
+        Assert.assertEquals(expected.size(), results.size());
+        Assert.assertEquals(expected, new HashSet<>(results));
+    }
+
+    @Test
+    public void testScanStream() {
+        val scanner = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .withFieldAnnotations(TestAnnotation.class)
+            .withConstructorAnnotations(TestAnnotation.class);
+
+        val results = scanner.scanStream().collect(Collectors.toList());
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(scanner.scan(), new HashSet<>(results));
+    }
+
+    @Test
+    public void testScanStreamIsLazy() throws Exception {
+        val classes = TestClasspath.directory(temporaryFolder.newFolder("classes").toPath(),
+            AnnotatedMethodClass.class, InitializationRecordingClass.class);
+        System.clearProperty(InitializationRecordingClass.INITIALIZED_PROPERTY);
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            val stream = AnnotationScanner.of(TEST_PACKAGE_4)
+                .withClassLoader(classLoader)
+                .includePackageContentByDefault(true)
+                .scanStream();
+            Assert.assertNull(System.getProperty(InitializationRecordingClass.INITIALIZED_PROPERTY));
+
+            Assert.assertEquals(2, stream.count());
+            Assert.assertNotNull(System.getProperty(InitializationRecordingClass.INITIALIZED_PROPERTY));
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.AnnotationDescriptor;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.ClassValue;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.EnumValue;
+import io.github.bglowney.annotationscanner.ClassFileDescriptor.MemberDescriptor;
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+public class ClassFileReaderTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface ValuesAnnotation {
+        int number();
+        long big();
+        String text();
+        ElementType type();
+        Class<?> clazz();
+        String[] texts();
+        TestAnnotation nested();
+    }
+
+    @ValuesAnnotation(number = 42, big = Long.MAX_VALUE, text = "h\u00e9llo", type = ElementType.FIELD,
+        clazz = String[].class, texts = {"a", "b"}, nested = @TestAnnotation)
+    static class AnnotatedWithValues implements Runnable {
+        public void run() {}
+    }
+
+    static ClassFileDescriptor read(Class<?> clazz) throws Exception {
+        return ClassFileReader.read(clazz.getClassLoader().getResourceAsStream(ClassFileHierarchy.resourceName(clazz.getName())));
+    }
+
+    @Test
+    public void testReadClassHeader() throws Exception {
+        val classFile = read(AnnotatedWithValues.class);
+
+        Assert.assertEquals(AnnotatedWithValues.class.getName(), classFile.getClassName());
+        Assert.assertEquals("java.lang.Object", classFile.getSuperClassName());
+        Assert.assertEquals(asList("java.lang.Runnable"), classFile.getInterfaceNames());
+        Assert.assertEquals("io.github.bglowney.annotationscanner", classFile.getPackageName());
+        Assert.assertFalse(classFile.isInterface());
+        Assert.assertTrue(read(TestAnnotation.class).isAnnotation());
+    }
+
+    @Test
+    public void testReadHeaderOnly() throws Exception {
+        val in = AnnotatedWithValues.class.getClassLoader().getResourceAsStream(ClassFileHierarchy.resourceName(AnnotatedWithValues.class.getName()));
+        val header = ClassFileReader.readHeader(ClassFileReader.readFully(in));
+
+        Assert.assertEquals(AnnotatedWithValues.class.getName(), header.getClassName());
+        Assert.assertEquals(asList("java.lang.Runnable"), header.getInterfaceNames());
+        Assert.assertTrue(header.getMethods().isEmpty());
+        Assert.assertTrue(header.getAnnotations().isEmpty());
+    }
+
+    @Test
+    public void testReadMembers() throws Exception {
+        val classFile = read(TestClass.class);
+
+        Assert.assertTrue(classFile.hasAnnotation(TestAnnotation.class.getName()));
+        Assert.assertEquals(1, classFile.getFields().size());
+        Assert.assertEquals("test", classFile.getFields().get(0).getName());
+        Assert.assertTrue(classFile.getFields().get(0).hasAnnotation(TestAnnotation.class.getName()));
+
+        int annotatedMethods = 0;
+        for (MemberDescriptor method : classFile.getMethods()) {
+            if (method.hasAnnotation(TestAnnotation.class.getName()))
+                annotatedMethods++;
+        }
+        Assert.assertEquals(2, annotatedMethods);
+    }
+
+    @Test
+    public void testReadAnnotationValues() throws Exception {
+        val annotation = read(AnnotatedWithValues.class).getAnnotations().get(0);
+        val values = annotation.getValues();
+
+        Assert.assertEquals(ValuesAnnotation.class.getName(), annotation.getTypeName());
+        Assert.assertEquals(42, values.get("number"));
+        Assert.assertEquals(Long.MAX_VALUE, values.get("big"));
+        Assert.assertEquals("h\u00e9llo", values.get("text"));
+        Assert.assertEquals(new EnumValue(ElementType.class.getName(), "FIELD"), values.get("type"));
+        Assert.assertEquals(new ClassValue(String[].class.getName()), values.get("clazz"));
+        Assert.assertEquals(asList("a", "b"), values.get("texts"));
+        Assert.assertEquals(TestAnnotation.class.getName(), ((AnnotationDescriptor) values.get("nested")).getTypeName());
+    }
+
+    @Test
+    public void testDescriptorNames() {
+        List<String> parameters = ClassFileReader.parameterTypeNames("(I[JLjava/lang/String;[[Ljava/lang/Object;)V");
+
+        Assert.assertEquals(asList("int", "[J", "java.lang.String", "[[Ljava.lang.Object;"), parameters);
+        Assert.assertEquals("void", ClassFileReader.returnTypeName("()V"));
+        Assert.assertEquals("java.util.List", ClassFileReader.returnTypeName("(I)Ljava/util/List;"));
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testRejectsMalformedClassFile() throws Exception {
+        ClassFileReader.read(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import io.github.bglowney.annotationscanner.test.TestClass2;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE;
+import static java.util.Arrays.asList;
+
+public class ClasspathDiscoveryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static AnnotationScanner scanner(ClassLoader classLoader) throws Exception {
+        return AnnotationScanner.of(TEST_PACKAGE)
+            .withClassLoader(classLoader)
+            .withTypeAnnotations(classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class));
+    }
+
+    @Test
+    public void testJarWithoutDirectoryEntries() throws Exception {
+        val jar = TestClasspath.jar(temporaryFolder.newFile("classes.jar").toPath(), false,
+            TestAnnotation.class, TestClass.class, TestClass2.class);
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(jar)) {
+            Assert.assertNull(classLoader.getResource(TEST_PACKAGE.replace('.', '/')));
+
+            val results = scanner(classLoader).scan();
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals(TestClass.class.getName(), results.iterator().next().getClazz().getName());
+        }
+    }
+
+    @Test
+    public void testManifestClassPath() throws Exception {
+        val directory = temporaryFolder.newFolder().toPath();
+        TestClasspath.jar(directory.resolve("library.jar"), TestAnnotation.class, TestClass.class);
+        val manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "library.jar");
+        val application = directory.resolve("application.jar");
+        new JarOutputStream(Files.newOutputStream(application), manifest).close();
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(application)) {
+            val roots = ClasspathDiscovery.roots(classLoader);
+            Assert.assertEquals(asList(new ClasspathRoot(application, ClasspathRoot.Kind.JAR),
+                new ClasspathRoot(directory.resolve("library.jar"), ClasspathRoot.Kind.JAR)), roots);
+            Assert.assertEquals(1, scanner(classLoader).scan().size());
+        }
+    }
+
+    @Test
+    public void testNestedJar() throws Exception {
+        val inner = TestClasspath.jar(temporaryFolder.newFile("inner.jar").toPath(), TestClass.class, TestClass2.class);
+        val outer = temporaryFolder.newFile("outer.jar").toPath();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(outer))) {
+            out.putNextEntry(new ZipEntry("lib/inner.jar"));
+            Files.copy(inner, out);
+            out.closeEntry();
+        }
+
+        val root = ClasspathRoot.ofURL(new URL("jar:" + outer.toUri() + "!/lib/inner.jar!/"));
+        Assert.assertEquals(new ClasspathRoot(outer, ClasspathRoot.Kind.NESTED_JAR, "lib/inner.jar"), root);
+        Assert.assertEquals(new HashSet<>(asList(TestClass.class.getName(), TestClass2.class.getName())),
+            root.listClassNames(Collections.singleton(TEST_PACKAGE), false));
+    }
+}
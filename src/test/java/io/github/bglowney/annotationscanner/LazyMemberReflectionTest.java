@@ -0,0 +1,64 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test9.BaseService;
+import io.github.bglowney.annotationscanner.test9.WideService;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.Set;
+
+public class LazyMemberReflectionTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test9";
+
+    private static AnnotationScanner scanner() {
+        return AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodAnnotations(TestAnnotation.class)
+            .withFieldAnnotations(TestAnnotation.class)
+            .withConstructorAnnotations(TestAnnotation.class);
+    }
+
+    @Test
+    public void testSameResultsAsReflection() throws Exception {
+        val expected = scanner().scan();
+        val results = scanner().withLazyMemberReflection(true).scan();
+
+        Assert.assertEquals(expected, results);
+        val elements = new HashSet<Object>();
+        for (val result : results)
+            elements.add(result.getAnnotatedElement());
+        Assert.assertTrue(elements.contains(WideService.class.getDeclaredField("name")));
+        Assert.assertTrue(elements.contains(WideService.class.getDeclaredConstructor()));
+        Assert.assertTrue(elements.contains(WideService.class.getMethod("count", String.class, int[].class)));
+        // inherited by WideService, and declared by BaseService
+        Assert.assertTrue(elements.contains(BaseService.class.getMethod("find")));
+        Assert.assertEquals(5, results.size());
+    }
+
+    @Test
+    public void testOnlyMatchingMembersAreReflected() {
+        val reflective = scanner().scanReport().getStatistics().getTotals();
+        val lazy = scanner().withLazyMemberReflection(true).scanReport().getStatistics().getTotals();
+
+        Assert.assertEquals(reflective.getMatches(), lazy.getMatches());
+        // one member for each match, and the class without annotations is never loaded
+        Assert.assertEquals(5, lazy.getMembersReflected());
+        Assert.assertTrue(reflective.getMembersReflected() > 2 * lazy.getMembersReflected());
+        Assert.assertEquals(2, lazy.getClassesLoaded());
+        Assert.assertEquals(3, reflective.getClassesLoaded());
+    }
+
+    @Test
+    public void testFallsBackToReflectionForInheritedMethodAnnotations() {
+        Set<ScannerResult<?, ? extends Annotation>> expected = scanner().withInheritedMethodAnnotations(true).scan();
+        Set<ScannerResult<?, ? extends Annotation>> results = scanner().withInheritedMethodAnnotations(true)
+            .withLazyMemberReflection(true)
+            .scan();
+        Assert.assertEquals(expected, results);
+    }
+}
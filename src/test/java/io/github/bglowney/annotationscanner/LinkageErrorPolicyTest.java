@@ -0,0 +1,93 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test5.AnnotatedClass;
+import io.github.bglowney.annotationscanner.test5.FailingInitializerClass;
+import io.github.bglowney.annotationscanner.test5.MissingDependencyClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.annotation.Annotation;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+public class LinkageErrorPolicyTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test5";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The superclass of MissingDependencyClass is left out
+     */
+    private URLClassLoader classLoader() throws Exception {
+        Path classes = TestClasspath.directory(temporaryFolder.newFolder().toPath(), TestAnnotation.class,
+            AnnotatedClass.class, FailingInitializerClass.class, MissingDependencyClass.class);
+        return TestClasspath.isolatedClassLoader(classes);
+    }
+
+    private static AnnotationScanner scanner(ClassLoader classLoader) throws Exception {
+        return AnnotationScanner.of(TEST_PACKAGE)
+            .withClassLoader(classLoader)
+            .withTypeAnnotations(classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class));
+    }
+
+    @Test(expected = LinkageError.class)
+    public void testFailIsTheDefault() throws Exception {
+        try (URLClassLoader classLoader = classLoader()) {
+            scanner(classLoader).scan();
+        }
+    }
+
+    @Test
+    public void testCollect() throws Exception {
+        try (URLClassLoader classLoader = classLoader()) {
+            val report = scanner(classLoader)
+                .withLinkageErrorPolicy(LinkageErrorPolicy.COLLECT)
+                .scanReport();
+
+            Assert.assertEquals(1, report.getResults().size());
+            Assert.assertEquals(AnnotatedClass.class.getName(), report.getResults().iterator().next().getClazz().getName());
+
+            val failures = new HashMap<String, Throwable>();
+            for (val failure : report.getFailures())
+                failures.put(failure.getClassName(), failure.getError());
+            Assert.assertEquals(2, failures.size());
+            Assert.assertTrue(failures.get(FailingInitializerClass.class.getName()) instanceof ExceptionInInitializerError);
+            Assert.assertTrue(failures.get(MissingDependencyClass.class.getName()) instanceof NoClassDefFoundError);
+            Assert.assertEquals(2, report.getStatistics().getTotals().getClassesFailed());
+        }
+    }
+
+    @Test
+    public void testWithoutInitialization() throws Exception {
+        try (URLClassLoader classLoader = classLoader()) {
+            val report = scanner(classLoader)
+                .withClassInitialization(false)
+                .withLinkageErrorPolicy(LinkageErrorPolicy.COLLECT)
+                .scanReport();
+
+            Assert.assertEquals(2, report.getResults().size());
+            Assert.assertEquals(1, report.getFailures().size());
+            Assert.assertEquals(MissingDependencyClass.class.getName(), report.getFailures().get(0).getClassName());
+        }
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        try (URLClassLoader classLoader = classLoader()) {
+            val report = scanner(classLoader)
+                .withLinkageErrorPolicy(LinkageErrorPolicy.SKIP)
+                .scanReport();
+
+            Assert.assertEquals(1, report.getResults().size());
+            Assert.assertTrue(report.getFailures().isEmpty());
+            Assert.assertEquals(2, report.getStatistics().getTotals().getClassesFailed());
+        }
+    }
+}
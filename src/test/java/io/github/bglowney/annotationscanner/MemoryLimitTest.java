@@ -0,0 +1,149 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import io.github.bglowney.annotationscanner.test.TestClass2;
+import io.github.bglowney.annotationscanner.test6.Component;
+import io.github.bglowney.annotationscanner.test6.Handler;
+import io.github.bglowney.annotationscanner.test6.HandlerClass;
+import io.github.bglowney.annotationscanner.test6.Repository;
+import io.github.bglowney.annotationscanner.test6.RepositoryClass;
+import io.github.bglowney.annotationscanner.test6.Service;
+import io.github.bglowney.annotationscanner.test6.ServiceClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class MemoryLimitTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Tells which classes it has defined itself
+     */
+    static class RecordingClassLoader extends URLClassLoader {
+        RecordingClassLoader(Path root) throws Exception {
+            super(new URL[] {root.toUri().toURL()}, ClassLoader.getSystemClassLoader().getParent());
+        }
+
+        boolean isLoaded(Class<?> clazz) {
+            return findLoadedClass(clazz.getName()) != null;
+        }
+    }
+
+    @Test
+    public void testBoundedClassFileHierarchy() {
+        val maximumSize = 4096;
+        val classFiles = new ClassFileHierarchy(getClass().getClassLoader(), null, maximumSize);
+        for (val clazz : new Class<?>[] {AnnotationScanner.class, ClassFileReader.class, ScanQuery.class, TestClass.class}) {
+            val classFile = classFiles.get(clazz.getName());
+            Assert.assertEquals(clazz.getName(), classFile.getClassName());
+            Assert.assertTrue(classFiles.getRetainedSize() <= maximumSize);
+        }
+        Assert.assertTrue(classFiles.getRetainedSize() > 0);
+        Assert.assertTrue(classFiles.isSubtype(classFiles.get(TestClass.class.getName()), Object.class.getName()));
+    }
+
+    @Test
+    public void testMemoryLimitDoesNotChangeResults() {
+        Set<ScannerResult<?, ? extends Annotation>> expected = AnnotationScanner.of(TEST_PACKAGE)
+            .includeSubpackages(true)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .withClassInitialization(false)
+            .scan();
+
+        for (val parallelism : new int[] {1, 4}) {
+            val results = new HashSet<ScannerResult<?, ? extends Annotation>>();
+            AnnotationScanner.of(TEST_PACKAGE)
+                .includeSubpackages(true)
+                .withTypeAnnotations(TestAnnotation.class)
+                .withMethodAnnotations(TestAnnotation.class)
+                .withClassInitialization(false)
+                .withMemoryLimit(1)
+                .withParallelism(parallelism)
+                .scan(results::add);
+            Assert.assertEquals(expected, results);
+        }
+    }
+
+    @Test
+    public void testThrowawayClassLoaders() throws Exception {
+        val classes = TestClasspath.directory(temporaryFolder.newFolder().toPath(),
+            TestAnnotation.class, TestClass.class, TestClass2.class);
+        try (RecordingClassLoader classLoader = new RecordingClassLoader(classes)) {
+            val annotation = classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class);
+            val results = AnnotationScanner.of(TestClass.class.getPackage().getName())
+                .withClassLoader(classLoader)
+                .withTypeAnnotations(annotation)
+                .withThrowawayClassLoaders(true)
+                .scan();
+
+            Assert.assertEquals(1, results.size());
+            val result = results.iterator().next();
+            Assert.assertSame(classLoader, result.getClazz().getClassLoader());
+            Assert.assertSame(annotation, result.getAnnotation().annotationType());
+            // the class which did not match was only loaded by a throwaway class loader
+            Assert.assertFalse(classLoader.isLoaded(TestClass2.class));
+        }
+    }
+
+    /**
+     * Scan the test6 classes with throwaway class loaders
+     *
+     * @return the value of the Component annotation of each result, by the simple name of its class
+     */
+    private Map<String, String> scanComponents(boolean metaAnnotations, boolean inheritedMethodAnnotations) throws Exception {
+        val classes = TestClasspath.directory(temporaryFolder.newFolder().toPath(), Component.class, Service.class,
+            Repository.class, ServiceClass.class, RepositoryClass.class, Handler.class, HandlerClass.class);
+        try (RecordingClassLoader classLoader = new RecordingClassLoader(classes)) {
+            val annotation = classLoader.loadClass(Component.class.getName()).asSubclass(Annotation.class);
+            val results = AnnotationScanner.of(Component.class.getPackage().getName())
+                .withClassLoader(classLoader)
+                .withTypeAnnotations(annotation)
+                .withMethodAnnotations(annotation)
+                .withMetaAnnotations(metaAnnotations)
+                .withInheritedMethodAnnotations(inheritedMethodAnnotations)
+                .withThrowawayClassLoaders(true)
+                .scan();
+
+            val values = new HashMap<String, String>();
+            for (val result : results) {
+                Assert.assertSame(annotation, result.getAnnotation().annotationType());
+                values.put(result.getClazz().getSimpleName(), (String) annotation.getMethod("value").invoke(result.getAnnotation()));
+            }
+            Assert.assertEquals(results.size(), values.size());
+            return values;
+        }
+    }
+
+    @Test
+    public void testThrowawayClassLoadersWithMetaAnnotations() throws Exception {
+        val values = scanComponents(true, false);
+        Assert.assertEquals(5, values.size());
+        Assert.assertEquals("service", values.get("ServiceClass"));
+        Assert.assertEquals("service", values.get("RepositoryClass"));
+    }
+
+    @Test
+    public void testThrowawayClassLoadersWithInheritedMethodAnnotations() throws Exception {
+        val values = scanComponents(false, true);
+        Assert.assertEquals(3, values.size());
+        Assert.assertEquals("handler", values.get("HandlerClass"));
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test6.Component;
+import io.github.bglowney.annotationscanner.test6.Handler;
+import io.github.bglowney.annotationscanner.test6.HandlerClass;
+import io.github.bglowney.annotationscanner.test6.Repository;
+import io.github.bglowney.annotationscanner.test6.RepositoryClass;
+import io.github.bglowney.annotationscanner.test6.Service;
+import io.github.bglowney.annotationscanner.test6.ServiceClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+public class MetaAnnotationTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test6";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Scanners matching annotations which are not present on the matched elements themselves
+     */
+    private static List<AnnotationScanner> indirectScanners() {
+        return asList(
+            AnnotationScanner.of(TEST_PACKAGE).withTypeAnnotations(Component.class).withMetaAnnotations(true),
+            AnnotationScanner.of(TEST_PACKAGE).withMethodAnnotations(Component.class).withInheritedMethodAnnotations(true));
+    }
+
+    private static void assertAnnotationsPresent(Iterable<? extends AnnotationScanner.ScannerResult<?, ?>> results) {
+        for (val result : results)
+            Assert.assertNotNull(result.getAnnotation());
+    }
+
+    @Test
+    public void testMetaAnnotationsAreOptIn() {
+        val results = AnnotationScanner.of(TEST_PACKAGE).withTypeAnnotations(Component.class).scan();
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(Service.class, results.iterator().next().getClazz());
+    }
+
+    @Test
+    public void testMetaAnnotations() {
+        for (val classFileFiltering : asList(false, true)) {
+            val results = AnnotationScanner.of(TEST_PACKAGE)
+                .withTypeAnnotations(Component.class)
+                .withMetaAnnotations(true)
+                .withClassFileFiltering(classFileFiltering)
+                .scan();
+
+            val values = new HashMap<Class<?>, String>();
+            for (val result : results)
+                values.put(result.getClazz(), ((Component) result.getAnnotation()).value());
+            // the annotation types are themselves annotated
+            Assert.assertEquals(4, results.size());
+            Assert.assertEquals("service", values.get(Service.class));
+            Assert.assertEquals("service", values.get(Repository.class));
+            Assert.assertEquals("service", values.get(ServiceClass.class));
+            Assert.assertEquals("service", values.get(RepositoryClass.class));
+        }
+    }
+
+    @Test
+    public void testInheritedMethodAnnotations() throws Exception {
+        val scanner = AnnotationScanner.of(TEST_PACKAGE).withMethodAnnotations(Component.class);
+        Assert.assertEquals(1, scanner.scan().size());
+
+        val results = scanner.withInheritedMethodAnnotations(true).scan();
+        val methods = new HashSet<Object>();
+        for (val result : results) {
+            methods.add(result.getAnnotatedElement());
+            Assert.assertEquals("handler", ((Component) result.getAnnotation()).value());
+        }
+        Assert.assertEquals(new HashSet<Object>(asList(Handler.class.getMethod("handle"), HandlerClass.class.getMethod("handle"))), methods);
+    }
+
+    @Test
+    public void testIndexedResultsKeepTheirAnnotations() throws Exception {
+        for (val scanner : indirectScanners()) {
+            val indexFile = temporaryFolder.newFolder().toPath().resolve("scan.idx");
+            val expected = scanner.scan();
+            Assert.assertEquals(expected, scanner.withIndexFile(indexFile).scan());
+            // served from the index written by the previous scan
+            val reused = scanner.scan();
+            assertAnnotationsPresent(reused);
+            Assert.assertEquals(expected, reused);
+        }
+    }
+
+    @Test
+    public void testTableResultsKeepTheirAnnotations() {
+        for (val scanner : indirectScanners()) {
+            val results = scanner.scanTable().getResults();
+            assertAnnotationsPresent(results);
+            Assert.assertEquals(scanner.scan(), results);
+        }
+    }
+
+    @Test
+    public void testWatchedResultsKeepTheirAnnotations() throws Exception {
+        val root = temporaryFolder.newFolder("classes").toPath();
+        // the package is watched in every root which contains it
+        Files.createDirectories(root.resolve(TEST_PACKAGE.replace('.', '/')));
+        val urls = new URL[]{root.toUri().toURL()};
+        val classLoader = new URLClassLoader(urls, getClass().getClassLoader());
+        BlockingQueue<ScanDelta> deltas = new LinkedBlockingQueue<>();
+
+        try (ScanWatcher watcher = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withTypeAnnotations(Component.class)
+                .withMethodAnnotations(Component.class)
+                .withMetaAnnotations(true)
+                .withInheritedMethodAnnotations(true)
+                .watch(Duration.ofMillis(50), () -> new URLClassLoader(urls, getClass().getClassLoader()), deltas::add)) {
+            Assert.assertEquals(6, watcher.getResults().size());
+
+            // copies of the annotated classes, which the class path does not already contain
+            TestClasspath.renamed(root, ServiceClass.class, TEST_PACKAGE + ".LaterService");
+            TestClasspath.renamed(root, HandlerClass.class, TEST_PACKAGE + ".LaterHandler");
+            val values = new HashMap<String, String>();
+            while (values.size() < 2) {
+                val delta = deltas.poll(30, TimeUnit.SECONDS);
+                Assert.assertNotNull(delta);
+                for (val result : delta.getAdded())
+                    values.put(result.getClazz().getSimpleName(), ((Component) result.getAnnotation()).value());
+            }
+            Assert.assertEquals("service", values.get("LaterService"));
+            Assert.assertEquals("handler", values.get("LaterHandler"));
+        } finally {
+            classLoader.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.test7.AbstractPlugin;
+import io.github.bglowney.annotationscanner.test7.FirstPlugin;
+import io.github.bglowney.annotationscanner.test7.NamedPlugin;
+import io.github.bglowney.annotationscanner.test7.Plugin;
+import io.github.bglowney.annotationscanner.test7.SecondPlugin;
+import io.github.bglowney.annotationscanner.test7.UnrelatedClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static io.github.bglowney.annotationscanner.ScanQuery.named;
+
+public class MultiClassLoaderTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test7";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSharedRootsAreScannedOnce() throws Exception {
+        val shared = TestClasspath.directory(temporaryFolder.newFolder().toPath(),
+            Plugin.class, NamedPlugin.class, AbstractPlugin.class, UnrelatedClass.class);
+        val first = TestClasspath.directory(temporaryFolder.newFolder().toPath(), FirstPlugin.class);
+        val second = TestClasspath.directory(temporaryFolder.newFolder().toPath(), SecondPlugin.class);
+        // the second plugin also reaches the shared classes through a link
+        val link = Files.createSymbolicLink(temporaryFolder.getRoot().toPath().resolve("link"), shared);
+
+        for (val parallelism : new int[] {1, 4}) {
+            try (URLClassLoader sharedLoader = TestClasspath.isolatedClassLoader(shared);
+                 URLClassLoader firstLoader = new URLClassLoader(new URL[] {first.toUri().toURL()}, sharedLoader);
+                 URLClassLoader secondLoader = new URLClassLoader(new URL[] {second.toUri().toURL(), link.toUri().toURL()}, sharedLoader)) {
+                val report = AnnotationScanner.of(TEST_PACKAGE)
+                    .withTypeQuery(named(".*Plugin"))
+                    .withClassLoaders(firstLoader, secondLoader)
+                    .withClassInitialization(false)
+                    .withParallelism(parallelism)
+                    .scanReport();
+
+                val definingLoaders = new HashMap<String, ClassLoader>();
+                for (val result : report.getResults())
+                    Assert.assertNull(definingLoaders.put(result.getClazz().getName(), result.getClazz().getClassLoader()));
+                Assert.assertEquals(5, definingLoaders.size());
+                Assert.assertSame(sharedLoader, definingLoaders.get(Plugin.class.getName()));
+                Assert.assertSame(sharedLoader, definingLoaders.get(AbstractPlugin.class.getName()));
+                Assert.assertSame(firstLoader, definingLoaders.get(FirstPlugin.class.getName()));
+                Assert.assertSame(secondLoader, definingLoaders.get(SecondPlugin.class.getName()));
+                Assert.assertEquals(3, report.getStatistics().getRootCount());
+            }
+        }
+    }
+
+    @Test
+    public void testSubclassHooksApplyToEveryClassLoader() throws Exception {
+        val first = TestClasspath.directory(temporaryFolder.newFolder().toPath(),
+            Plugin.class, NamedPlugin.class, AbstractPlugin.class, FirstPlugin.class);
+        val second = TestClasspath.directory(temporaryFolder.newFolder().toPath(),
+            Plugin.class, NamedPlugin.class, AbstractPlugin.class, SecondPlugin.class);
+
+        try (URLClassLoader firstLoader = TestClasspath.isolatedClassLoader(first);
+             URLClassLoader secondLoader = TestClasspath.isolatedClassLoader(second)) {
+            val results = new AnnotationScanner(Collections.singleton(TEST_PACKAGE)) {
+                @Override
+                protected boolean scanClass(Class<?> clazz, Collection<ScannerResult<?, ?>> results) {
+                    // plugins are only matched by name when they are concrete
+                    return !Modifier.isAbstract(clazz.getModifiers()) && super.scanClass(clazz, results);
+                }
+            }
+                .withTypeQuery(named(".*Plugin"))
+                .withClassLoaders(firstLoader, secondLoader)
+                .withClassInitialization(false)
+                .scan();
+
+            val names = new HashSet<String>();
+            for (val result : results)
+                names.add(result.getClazz().getName());
+            Assert.assertEquals(new HashSet<>(Arrays.asList(FirstPlugin.class.getName(), SecondPlugin.class.getName())), names);
+        }
+    }
+}
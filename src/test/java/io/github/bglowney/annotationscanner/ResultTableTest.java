@@ -0,0 +1,73 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import io.github.bglowney.annotationscanner.test.TestClass2;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.annotation.ElementType;
+import java.util.Collections;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE;
+
+public class ResultTableTest {
+
+    private static AnnotationScanner scanner() {
+        return AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .withFieldAnnotations(TestAnnotation.class)
+            .withConstructorAnnotations(TestAnnotation.class);
+    }
+
+    @Test
+    public void testTableHoldsTheResultsOfScan() {
+        val table = scanner().scanTable();
+
+        Assert.assertEquals(4, table.size());
+        Assert.assertEquals(scanner().scan(), table.getResults());
+        Assert.assertEquals(Collections.singleton(TestClass.class.getName()), table.getClassNames());
+    }
+
+    @Test
+    public void testGroupedRows() {
+        val table = scanner().scanTable();
+
+        val rows = table.rowsOf(TestClass.class.getName(), TestAnnotation.class.getName());
+        Assert.assertEquals(4, rows.length);
+        Assert.assertEquals(4, table.rowsAnnotatedWith(TestAnnotation.class.getName()).length);
+        Assert.assertEquals(0, table.rowsOf(TestClass2.class.getName()).length);
+        Assert.assertEquals(0, table.rowsOf(TestClass.class.getName(), Deprecated.class.getName()).length);
+
+        int fields = 0;
+        for (val row : rows) {
+            if (table.getElementType(row) != ElementType.FIELD)
+                continue;
+            fields++;
+            Assert.assertEquals("test", table.getMemberName(row));
+            Assert.assertEquals("Ljava/lang/Object;", table.getMemberDescriptor(row));
+            Assert.assertTrue(table.isMatch(row));
+            Assert.assertEquals(TestClass.class, table.getResult(row).getClazz());
+        }
+        Assert.assertEquals(1, fields);
+        Assert.assertEquals(1, table.getResults(TestClass.class.getName(), TestAnnotation.class.getName()).stream()
+            .filter(result -> result.getAnnotatedElement() == TestClass.class).count());
+    }
+
+    @Test
+    public void testDuplicatesAreSkipped() {
+        val table = new ResultTable(getClass().getClassLoader(), true);
+        val record = new ResultRecord(TestClass2.class.getName(), ElementType.TYPE, TestClass2.class.getName(), null, null, null, false);
+        Assert.assertTrue(table.add(record));
+        Assert.assertFalse(table.add(record));
+        for (int i = 0; i < 100; i++)
+            table.add(new ResultRecord("Class" + i, ElementType.TYPE, "Class" + i, null, null, null, false));
+
+        Assert.assertEquals(101, table.size());
+        Assert.assertFalse(table.isMatch(0));
+        Assert.assertNull(table.getAnnotationTypeName(0));
+        Assert.assertEquals(TestClass2.class, table.getResult(0).getClazz());
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE;
+
+public class ScanBatchTest {
+
+    private static final List<String> NAMES = Arrays.asList("types", "methods", "services", "everything");
+
+    private static List<Supplier<AnnotationScanner>> scanners() {
+        return Arrays.asList(
+            () -> AnnotationScanner.of(TEST_PACKAGE).withTypeAnnotations(TestAnnotation.class),
+            () -> AnnotationScanner.of("io.github.bglowney.annotationscanner.test4")
+                .withMethodAnnotations(TestAnnotation.class)
+                .withClassInitialization(false),
+            () -> AnnotationScanner.of("io.github.bglowney.annotationscanner.test9")
+                .withMethodAnnotations(TestAnnotation.class)
+                .withFieldAnnotations(TestAnnotation.class)
+                .withLazyMemberReflection(true),
+            () -> AnnotationScanner.of(TEST_PACKAGE, "io.github.bglowney.annotationscanner.test9")
+                .withTypeAnnotations(TestAnnotation.class)
+                .withMethodAnnotations(TestAnnotation.class)
+                .withClassFileFiltering(true));
+    }
+
+    private static ScanBatch batch() {
+        val batch = new ScanBatch();
+        for (int i = 0; i < NAMES.size(); i++)
+            batch.add(NAMES.get(i), scanners().get(i).get());
+        return batch;
+    }
+
+    private static void assertSameResults(Map<String, Set<ScannerResult<?, ? extends Annotation>>> results) {
+        Assert.assertEquals(NAMES, new ArrayList<>(results.keySet()));
+        for (int i = 0; i < NAMES.size(); i++) {
+            val expected = scanners().get(i).get().scan();
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(NAMES.get(i), expected, results.get(NAMES.get(i)));
+        }
+    }
+
+    @Test
+    public void testSameResultsAsSeparateScans() {
+        assertSameResults(batch().scan());
+        assertSameResults(batch().withParallelism(4).scan());
+    }
+
+    @Test
+    public void testAsyncResultsPerScanner() throws Exception {
+        val futures = batch().scanAsync();
+        Assert.assertEquals(NAMES, new ArrayList<>(futures.keySet()));
+        for (int i = 0; i < NAMES.size(); i++) {
+            val expected = scanners().get(i).get().scan();
+            Assert.assertEquals(expected, futures.get(NAMES.get(i)).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testListenersNotifiedOnce() {
+        val completed = new ArrayList<ScanStatistics>();
+        val batch = new ScanBatch()
+            .add("types", AnnotationScanner.of(TEST_PACKAGE).withTypeAnnotations(TestAnnotation.class)
+                .withListener(new ScanListener() {
+                    @Override
+                    public void scanCompleted(ScanStatistics statistics) {
+                        completed.add(statistics);
+                    }
+                }));
+        batch.scan();
+
+        Assert.assertEquals(1, completed.size());
+        Assert.assertEquals(1, completed.get(0).getTotals().getMatches());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        new ScanBatch()
+            .add("types", AnnotationScanner.of(TEST_PACKAGE))
+            .add("types", AnnotationScanner.of(TEST_PACKAGE));
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import io.github.bglowney.annotationscanner.test.TestClass2;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE;
+
+public class ScanCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Counts the class files read as resources, which is how class files are read when pre-filtering
+     */
+    static class CountingClassLoader extends URLClassLoader {
+        final AtomicInteger classFileReads = new AtomicInteger();
+
+        CountingClassLoader(Path root) throws Exception {
+            super(new URL[] {root.toUri().toURL()}, ClassLoader.getSystemClassLoader().getParent());
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            if (name.endsWith(".class"))
+                classFileReads.incrementAndGet();
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    private Path classes() throws Exception {
+        return TestClasspath.directory(temporaryFolder.newFolder("classes").toPath(),
+            TestAnnotation.class, TestClass.class, TestClass2.class);
+    }
+
+    private static Class<? extends Annotation> annotation(ClassLoader classLoader) throws Exception {
+        return classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class);
+    }
+
+    @Test
+    public void testScansWithDifferentCriteriaAreServedFromCache() throws Exception {
+        val cache = new ScanCache();
+        try (CountingClassLoader classLoader = new CountingClassLoader(classes())) {
+            val annotation = annotation(classLoader);
+            val methods = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withCache(cache)
+                .withMethodAnnotations(annotation)
+                .scan();
+            Assert.assertEquals(1, methods.size());
+            Assert.assertTrue(classLoader.classFileReads.get() > 0);
+
+            classLoader.classFileReads.set(0);
+            val fields = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withCache(cache)
+                .withFieldAnnotations(annotation)
+                .withConstructorAnnotations(annotation)
+                .scan();
+            Assert.assertEquals(0, classLoader.classFileReads.get());
+
+            val expected = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withFieldAnnotations(annotation)
+                .withConstructorAnnotations(annotation)
+                .scan();
+            Assert.assertEquals(2, expected.size());
+            Assert.assertEquals(expected, fields);
+        }
+    }
+
+    @Test
+    public void testClassFilesAreBounded() throws Exception {
+        val cache = new ScanCache(1, 1);
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes())) {
+            val results = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withCache(cache)
+                .withTypeAnnotations(annotation(classLoader))
+                .scan();
+
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals(1, cache.classFileCount(classLoader));
+
+            cache.invalidate(classLoader);
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testClassLoadersAreHeldWeakly() throws Exception {
+        val cache = new ScanCache();
+        val reference = scanAndForget(cache);
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull(reference.get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private WeakReference<ClassLoader> scanAndForget(ScanCache cache) throws Exception {
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes())) {
+            AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withCache(cache)
+                .withTypeAnnotations(annotation(classLoader))
+                .scan();
+            Assert.assertEquals(1, cache.size());
+            return new WeakReference<>(classLoader);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test10.ShadowedMethodClass;
+import io.github.bglowney.annotationscanner.test4.AnnotatedMethodClass;
+import io.github.bglowney.annotationscanner.test4.InitializationRecordingClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE_4;
+
+public class ScanIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path classes;
+    private Path indexFile;
+
+    private AnnotationScanner scanner(ClassLoader classLoader) throws Exception {
+        return AnnotationScanner.of(TEST_PACKAGE_4)
+            .withMethodAnnotations(classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class))
+            .withClassLoader(classLoader)
+            .withIndexFile(indexFile);
+    }
+
+    private void setUp() throws Exception {
+        classes = TestClasspath.directory(temporaryFolder.newFolder("classes").toPath(),
+            TestAnnotation.class, AnnotatedMethodClass.class, InitializationRecordingClass.class);
+        indexFile = temporaryFolder.getRoot().toPath().resolve("index").resolve("scan.idx");
+    }
+
+    @Test
+    public void testIndexIsWrittenAndReused() throws Exception {
+        setUp();
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            val results = scanner(classLoader).scan();
+            Assert.assertEquals(1, results.size());
+            Assert.assertTrue(Files.isRegularFile(indexFile));
+        }
+
+        System.clearProperty(InitializationRecordingClass.INITIALIZED_PROPERTY);
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            val results = scanner(classLoader).scan();
+
+            Assert.assertEquals(1, results.size());
+            val result = results.iterator().next();
+            Assert.assertEquals(AnnotatedMethodClass.class.getName(), result.getClazz().getName());
+            Assert.assertEquals("test", ((Method) result.getAnnotatedElement()).getName());
+            Assert.assertEquals(TestAnnotation.class.getName(), result.getAnnotation().annotationType().getName());
+            // the unchanged root is served from the index, so non matching classes are never loaded
+            Assert.assertNull(System.getProperty(InitializationRecordingClass.INITIALIZED_PROPERTY));
+        }
+    }
+
+    @Test
+    public void testChangedRootIsRescanned() throws Exception {
+        setUp();
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            Assert.assertEquals(1, scanner(classLoader).scan().size());
+        }
+
+        Files.delete(classes.resolve(ClassFileHierarchy.resourceName(AnnotatedMethodClass.class.getName())));
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            Assert.assertTrue(scanner(classLoader).scan().isEmpty());
+        }
+    }
+
+    @Test
+    public void testClassesOfReusedRootAreNotRematched() throws Exception {
+        setUp();
+        // an unannotated class of the same name, which hides the annotated class once its root comes first
+        val shadowing = TestClasspath.renamed(temporaryFolder.newFolder("shadowing").toPath(),
+            ShadowedMethodClass.class, AnnotatedMethodClass.class.getName());
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            Assert.assertEquals(1, scanner(classLoader).scan().size());
+        }
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(shadowing, classes)) {
+            Assert.assertTrue(scanner(classLoader).scan().isEmpty());
+        }
+        // both roots are now reused, and the result recorded for the hidden class must not be passed on
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(shadowing, classes)) {
+            Assert.assertTrue(scanner(classLoader).scan().isEmpty());
+        }
+    }
+
+    @Test
+    public void testHiddenClassesAreRescannedOnceUncovered() throws Exception {
+        setUp();
+        // an unannotated class of the same name, which the annotated class hides while its root comes first
+        val shadowed = TestClasspath.renamed(temporaryFolder.newFolder("shadowed").toPath(),
+            ShadowedMethodClass.class, AnnotatedMethodClass.class.getName());
+        TestClasspath.directory(shadowed, TestAnnotation.class);
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes, shadowed)) {
+            Assert.assertEquals(1, scanner(classLoader).scan().size());
+        }
+        // the unchanged root must not report the results of the class of the removed root
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(shadowed)) {
+            Assert.assertTrue(scanner(classLoader).scan().isEmpty());
+        }
+    }
+
+    @Test
+    public void testIndexForOtherConfigurationIsIgnored() throws Exception {
+        setUp();
+
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            Assert.assertEquals(1, scanner(classLoader).scan().size());
+            val results = scanner(classLoader).includePackageContentByDefault(true).scan();
+            Assert.assertEquals(2, results.size());
+        }
+    }
+}
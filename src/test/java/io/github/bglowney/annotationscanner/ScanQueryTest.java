@@ -0,0 +1,165 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.AnnotationScanner.ScannerResult;
+import io.github.bglowney.annotationscanner.test8.Endpoints;
+import io.github.bglowney.annotationscanner.test8.PlainClass;
+import io.github.bglowney.annotationscanner.test8.Route;
+import io.github.bglowney.annotationscanner.test8.Verb;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.github.bglowney.annotationscanner.ScanQuery.annotated;
+import static io.github.bglowney.annotationscanner.ScanQuery.annotatedWith;
+import static io.github.bglowney.annotationscanner.ScanQuery.named;
+import static io.github.bglowney.annotationscanner.ScanQuery.not;
+import static io.github.bglowney.annotationscanner.ScanQuery.returning;
+import static io.github.bglowney.annotationscanner.ScanQuery.withModifiers;
+import static java.util.Arrays.asList;
+
+public class ScanQueryTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test8";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Set<String> methodNames(Collection<? extends ScannerResult<?, ?>> results) {
+        val names = new HashSet<String>();
+        for (val result : results)
+            names.add(((Method) result.getAnnotatedElement()).getName());
+        return names;
+    }
+
+    @Test
+    public void testCombinedConditions() {
+        val query = annotated(Route.class).and(withModifiers(Modifier.PUBLIC)).and(returning(String.class));
+        for (val classFileFiltering : asList(false, true)) {
+            val results = AnnotationScanner.of(TEST_PACKAGE)
+                .withMethodQuery(query)
+                .withClassFileFiltering(classFileFiltering)
+                .scan();
+
+            Assert.assertEquals(new HashSet<>(asList("list", "create")), methodNames(results));
+            for (val result : results)
+                Assert.assertTrue(result.getAnnotation() instanceof Route);
+        }
+    }
+
+    @Test
+    public void testAnnotationValues() {
+        // the verb of most routes is the default value
+        val get = AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodQuery(annotatedWith(Route.class, "verb", Verb.GET))
+            .withClassFileFiltering(true)
+            .scan();
+        Assert.assertEquals(new HashSet<>(asList("list", "count", "internal")), methodNames(get));
+
+        val notGet = AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodQuery(annotated(Route.class).and(not(annotatedWith(Route.class, "verb", Verb.GET))))
+            .scan();
+        Assert.assertEquals(new HashSet<>(asList("create")), methodNames(notGet));
+
+        val either = AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodQuery(annotatedWith(Route.class, "value", "/count").or(named("unrouted")))
+            .scan();
+        Assert.assertEquals(new HashSet<>(asList("count", "unrouted")), methodNames(either));
+    }
+
+    @Test
+    public void testAnnotationValuesWithBuildIndexes() throws Exception {
+        val classes = TestClasspath.directory(temporaryFolder.newFolder().toPath(), Endpoints.class, PlainClass.class, Route.class, Verb.class);
+        try (URLClassLoader classLoader = TestClasspath.isolatedClassLoader(classes)) {
+            // a build time index records the annotation types of each class, but not their values
+            val classFiles = new ClassFileHierarchy(classLoader);
+            val indexed = new ArrayList<ClassFileDescriptor>();
+            for (val clazz : asList(Endpoints.class, PlainClass.class, Route.class, Verb.class))
+                indexed.add(classFiles.get(clazz.getName()));
+            val index = classes.resolve(BuildIndex.RESOURCE);
+            Files.createDirectories(index.getParent());
+            try (Writer out = new OutputStreamWriter(Files.newOutputStream(index), StandardCharsets.UTF_8)) {
+                BuildIndex.write(indexed, out);
+            }
+
+            val route = classLoader.loadClass(Route.class.getName()).asSubclass(Annotation.class);
+            val get = classLoader.loadClass(Verb.class.getName()).getField(Verb.GET.name()).get(null);
+            val results = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withMethodQuery(annotatedWith(route, "verb", get))
+                .withBuildIndexes(true)
+                .scan();
+            Assert.assertEquals(new HashSet<>(asList("list", "count", "internal")), methodNames(results));
+        }
+    }
+
+    @Test
+    public void testTypeQuery() {
+        val results = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeQuery(named(".*\\.Endpoints").and(withModifiers(Modifier.PUBLIC)))
+            .withClassFileFiltering(true)
+            .scan();
+
+        Assert.assertEquals(1, results.size());
+        val result = results.iterator().next();
+        Assert.assertEquals(Endpoints.class, result.getClazz());
+        Assert.assertNull(result.getAnnotation());
+        Assert.assertTrue(result.isMatch());
+    }
+
+    @Test
+    public void testRejectsClassesBeforeLoading() {
+        val statistics = AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodQuery(annotated(Route.class).and(named("list")))
+            .withClassFileFiltering(true)
+            .scanReport()
+            .getStatistics();
+
+        // PlainClass also declares a method named list, but it is not annotated
+        Assert.assertEquals(1, statistics.getTotals().getClassesLoaded());
+        Assert.assertEquals(1, statistics.getTotals().getMatches());
+    }
+
+    @Test
+    public void testQueriesFilterClassFilesByDefault() {
+        val statistics = AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodQuery(annotated(Route.class).and(named("list")))
+            .scanReport()
+            .getStatistics();
+
+        Assert.assertEquals(1, statistics.getTotals().getClassesLoaded());
+        Assert.assertEquals(1, statistics.getTotals().getMatches());
+    }
+
+    @Test
+    public void testScanDescriptors() {
+        val results = AnnotationScanner.of(TEST_PACKAGE)
+            .withMethodQuery(annotated(Route.class).and(returning(Integer.class)))
+            .scanDescriptors();
+
+        Assert.assertEquals(1, results.size());
+        val result = results.iterator().next();
+        Assert.assertEquals(Endpoints.class.getName(), result.getClassName());
+        Assert.assertEquals("count", result.getMemberName());
+        Assert.assertEquals(Route.class.getName(), result.getAnnotationTypeName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAnnotationElement() {
+        annotatedWith(Route.class, "path", "/list");
+    }
+}
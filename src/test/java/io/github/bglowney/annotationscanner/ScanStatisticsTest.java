@@ -0,0 +1,175 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE;
+
+public class ScanStatisticsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testScanReport() {
+        val report = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withMethodAnnotations(TestAnnotation.class)
+            .scanReport();
+
+        Assert.assertEquals(2, report.getResults().size());
+
+        val statistics = report.getStatistics();
+        val totals = statistics.getTotals();
+        Assert.assertEquals(Collections.singleton(TEST_PACKAGE), statistics.getPackages());
+        Assert.assertTrue(statistics.getRootCount() >= 1);
+        Assert.assertEquals(3, totals.getClassesListed());
+        Assert.assertEquals(3, totals.getClassesLoaded());
+        Assert.assertEquals(2, totals.getMatches());
+        Assert.assertTrue(totals.getMembersReflected() > 0);
+        Assert.assertTrue(statistics.getPhaseNanos(ScanPhase.LOAD_CLASSES) > 0);
+        Assert.assertEquals(2, statistics.getPackageCounts().get(TEST_PACKAGE).getMatches());
+    }
+
+    @Test
+    public void testNonMatchingPackageContentsAreNotCountedAsMatches() {
+        val completed = Collections.synchronizedList(new ArrayList<ScanStatistics>());
+        val scanner = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .includePackageContentByDefault(true)
+            .withListener(new ScanListener() {
+                @Override
+                public void scanCompleted(ScanStatistics statistics) {
+                    completed.add(statistics);
+                }
+            });
+
+        val report = scanner.scanReport();
+        Assert.assertEquals(3, report.getResults().size());
+        Assert.assertEquals(3, scanner.scanStream().count());
+        new ScanBatch().add("contents", scanner).scan();
+
+        Assert.assertEquals(3, completed.size());
+        for (val statistics : completed)
+            Assert.assertEquals(1, statistics.getTotals().getMatches());
+    }
+
+    @Test
+    public void testClassFileFilteringCountsBytesRead() {
+        val statistics = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withClassFileFiltering(true)
+            .scanReport()
+            .getStatistics();
+
+        // the annotation itself and the class without annotations are never loaded
+        Assert.assertEquals(1, statistics.getTotals().getClassesLoaded());
+        Assert.assertTrue(statistics.getTotals().getClassFilesRead() >= 3);
+        Assert.assertTrue(statistics.getTotals().getBytesRead() > 0);
+    }
+
+    @Test
+    public void testListener() {
+        val started = new AtomicReference<Set<String>>();
+        val loaded = Collections.synchronizedList(new ArrayList<String>());
+        val matched = Collections.synchronizedList(new ArrayList<Class<?>>());
+        val completed = new AtomicReference<ScanStatistics>();
+
+        val statistics = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withListener(new ScanListener() {
+                @Override
+                public void scanStarted(Set<String> packages) {
+                    started.set(packages);
+                }
+
+                @Override
+                public void classLoaded(String className, long nanos) {
+                    loaded.add(className);
+                }
+
+                @Override
+                public void classMatched(Class<?> clazz, int membersReflected, int matches, long nanos) {
+                    if (matches > 0)
+                        matched.add(clazz);
+                }
+
+                @Override
+                public void scanCompleted(ScanStatistics statistics) {
+                    completed.set(statistics);
+                }
+            })
+            .scan(result -> {});
+
+        Assert.assertEquals(Collections.singleton(TEST_PACKAGE), started.get());
+        Assert.assertEquals(3, loaded.size());
+        Assert.assertEquals(Collections.singletonList(TestClass.class), matched);
+        Assert.assertSame(statistics, completed.get());
+    }
+
+    @Test
+    public void testOverlappingScansKeepTheirOwnStatistics() {
+        val completed = Collections.synchronizedList(new ArrayList<ScanStatistics>());
+        val scanner = AnnotationScanner.of(TEST_PACKAGE)
+            .withTypeAnnotations(TestAnnotation.class)
+            .withListener(new ScanListener() {
+                @Override
+                public void scanCompleted(ScanStatistics statistics) {
+                    completed.add(statistics);
+                }
+            });
+
+        // a second scan runs to completion while the stream is part way through its scan
+        val stream = scanner.scanStream().iterator();
+        Assert.assertEquals(TestClass.class, stream.next().getClazz());
+        val report = scanner.scanReport();
+        Assert.assertFalse(stream.hasNext());
+
+        Assert.assertEquals(2, completed.size());
+        Assert.assertSame(report.getStatistics(), completed.get(0));
+        for (val statistics : completed) {
+            Assert.assertEquals(3, statistics.getTotals().getClassesLoaded());
+            Assert.assertEquals(1, statistics.getTotals().getMatches());
+        }
+    }
+
+    @Test
+    public void testJfrEvents() throws Exception {
+        val file = temporaryFolder.getRoot().toPath().resolve("scan.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrScanListener.ScanEvent.class);
+            recording.enable(JfrScanListener.RootListedEvent.class);
+            recording.start();
+
+            AnnotationScanner.of(TEST_PACKAGE)
+                .withTypeAnnotations(TestAnnotation.class)
+                .withListener(new JfrScanListener())
+                .scan();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        val names = new ArrayList<String>();
+        List<jdk.jfr.consumer.RecordedEvent> events = RecordingFile.readAllEvents(file);
+        for (val event : events)
+            names.add(event.getEventType().getName());
+
+        Assert.assertTrue(names.contains("io.github.bglowney.annotationscanner.Scan"));
+        Assert.assertTrue(names.contains("io.github.bglowney.annotationscanner.RootListed"));
+        Assert.assertFalse(names.contains("io.github.bglowney.annotationscanner.ClassLoaded"));
+    }
+}
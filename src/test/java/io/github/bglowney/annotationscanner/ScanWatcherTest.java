@@ -0,0 +1,81 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+import io.github.bglowney.annotationscanner.test.TestClass;
+import io.github.bglowney.annotationscanner.test.TestClass2;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.bglowney.annotationscanner.AnnotationScannerTest.TEST_PACKAGE;
+
+public class ScanWatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<URLClassLoader> classLoaders = new ArrayList<>();
+
+    @After
+    public void closeClassLoaders() throws IOException {
+        for (val classLoader : classLoaders)
+            classLoader.close();
+    }
+
+    private URLClassLoader newClassLoader(Path root) {
+        try {
+            val classLoader = TestClasspath.isolatedClassLoader(root);
+            classLoaders.add(classLoader);
+            return classLoader;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testClassFileChangesAreReported() throws Exception {
+        val root = TestClasspath.directory(temporaryFolder.newFolder("classes").toPath(), TestAnnotation.class, TestClass2.class);
+        val classLoader = newClassLoader(root);
+        val annotation = classLoader.loadClass(TestAnnotation.class.getName()).asSubclass(Annotation.class);
+        BlockingQueue<ScanDelta> deltas = new LinkedBlockingQueue<>();
+
+        try (ScanWatcher watcher = AnnotationScanner.of(TEST_PACKAGE)
+                .withClassLoader(classLoader)
+                .withTypeAnnotations(annotation)
+                .withMethodAnnotations(annotation)
+                .watch(Duration.ofMillis(50), () -> newClassLoader(root), deltas::add)) {
+            Assert.assertTrue(watcher.getResults().isEmpty());
+
+            TestClasspath.directory(root, TestClass.class);
+            val added = deltas.poll(30, TimeUnit.SECONDS);
+            Assert.assertNotNull(added);
+            Assert.assertEquals(2, added.getAdded().size());
+            Assert.assertTrue(added.getRemoved().isEmpty());
+            for (val result : added.getAdded())
+                Assert.assertEquals(TestClass.class.getName(), result.getClazz().getName());
+            Assert.assertEquals(added.getAdded(), watcher.getResults());
+
+            Files.delete(root.resolve(ClassFileHierarchy.resourceName(TestClass.class.getName())));
+            val removed = deltas.poll(30, TimeUnit.SECONDS);
+            Assert.assertNotNull(removed);
+            Assert.assertTrue(removed.getAdded().isEmpty());
+            Assert.assertEquals(added.getAdded(), removed.getRemoved());
+            Assert.assertTrue(watcher.getResults().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.bglowney.annotationscanner;
+
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Builds isolated jars and class directories from the compiled test classes
+ */
+class TestClasspath {
+
+    static Path jar(Path jar, Class<?>... classes) throws IOException {
+        return jar(jar, true, classes);
+    }
+
+    static Path jar(Path jar, boolean directoryEntries, Class<?>... classes) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            val directories = new HashSet<String>();
+            for (val clazz : classes) {
+                val resourceName = ClassFileHierarchy.resourceName(clazz.getName());
+                for (int i = resourceName.indexOf('/'); directoryEntries && i >= 0; i = resourceName.indexOf('/', i + 1)) {
+                    val directory = resourceName.substring(0, i + 1);
+                    if (directories.add(directory)) {
+                        out.putNextEntry(new ZipEntry(directory));
+                        out.closeEntry();
+                    }
+                }
+                out.putNextEntry(new ZipEntry(ClassFileHierarchy.resourceName(clazz.getName())));
+                copyClassFile(clazz, out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    static Path directory(Path directory, Class<?>... classes) throws IOException {
+        for (val clazz : classes) {
+            val file = directory.resolve(ClassFileHierarchy.resourceName(clazz.getName()));
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                copyClassFile(clazz, out);
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Write the class file of a class under another name of the same length, by replacing every occurrence of its
+     * internal name
+     */
+    static Path renamed(Path directory, Class<?> clazz, String className) throws IOException {
+        val bytes = new ByteArrayOutputStream();
+        copyClassFile(clazz, bytes);
+        val from = clazz.getName().replace('.', '/');
+        val to = className.replace('.', '/');
+        if (from.length() != to.length())
+            throw new IllegalArgumentException("Class names must have the same length");
+        val renamed = new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1).replace(from, to);
+
+        val file = directory.resolve(ClassFileHierarchy.resourceName(className));
+        Files.createDirectories(file.getParent());
+        Files.write(file, renamed.getBytes(StandardCharsets.ISO_8859_1));
+        return directory;
+    }
+
+    /**
+     * @return a class loader over the given roots which does not delegate to the application class path
+     */
+    static URLClassLoader isolatedClassLoader(Path... roots) throws IOException {
+        val urls = new URL[roots.length];
+        for (int i = 0; i < roots.length; i++)
+            urls[i] = roots[i].toUri().toURL();
+        return new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    static void copyClassFile(Class<?> clazz, OutputStream out) throws IOException {
+        try (InputStream in = clazz.getClassLoader().getResourceAsStream(ClassFileHierarchy.resourceName(clazz.getName()))) {
+            val buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+        }
+    }
+}
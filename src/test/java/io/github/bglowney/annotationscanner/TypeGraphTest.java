@@ -0,0 +1,46 @@
+package io.github.bglowney.annotationscanner;
+
+import io.github.bglowney.annotationscanner.test7.AbstractPlugin;
+import io.github.bglowney.annotationscanner.test7.FirstPlugin;
+import io.github.bglowney.annotationscanner.test7.NamedPlugin;
+import io.github.bglowney.annotationscanner.test7.Plugin;
+import io.github.bglowney.annotationscanner.test7.SecondPlugin;
+import io.github.bglowney.annotationscanner.test7.UnrelatedClass;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static java.util.Arrays.asList;
+
+public class TypeGraphTest {
+
+    private static final String TEST_PACKAGE = "io.github.bglowney.annotationscanner.test7";
+
+    @Test
+    public void testFindSubtypeNames() {
+        val graph = AnnotationScanner.of(TEST_PACKAGE).scanTypes();
+
+        Assert.assertEquals(6, graph.getClassNames().size());
+        Assert.assertEquals(AbstractPlugin.class.getName(), graph.getSuperClassName(FirstPlugin.class.getName()));
+        Assert.assertEquals(asList(NamedPlugin.class.getName()), graph.getInterfaceNames(SecondPlugin.class.getName()));
+        Assert.assertEquals(
+            new HashSet<>(asList(NamedPlugin.class.getName(), AbstractPlugin.class.getName(), FirstPlugin.class.getName(), SecondPlugin.class.getName())),
+            graph.findSubtypeNames(Plugin.class.getName()));
+        Assert.assertEquals(new HashSet<>(asList(FirstPlugin.class.getName(), SecondPlugin.class.getName())),
+            graph.findImplementationNames(Plugin.class.getName()));
+        Assert.assertTrue(graph.findSubtypeNames(UnrelatedClass.class.getName()).isEmpty());
+        Assert.assertTrue(graph.findSubtypeNames(Object.class.getName()).contains(UnrelatedClass.class.getName()));
+    }
+
+    @Test
+    public void testFindImplementationsLoadsOnlyTheHits() {
+        // initializing UnrelatedClass would fail, so it must not be loaded
+        val implementations = AnnotationScanner.of(TEST_PACKAGE).findImplementations(Plugin.class);
+        Assert.assertEquals(new HashSet<>(asList(FirstPlugin.class, SecondPlugin.class)), implementations);
+
+        val subtypes = AnnotationScanner.of(TEST_PACKAGE).findSubtypes(AbstractPlugin.class);
+        Assert.assertEquals(new HashSet<>(asList(FirstPlugin.class)), subtypes);
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.bglowney.annotationscanner.test10;
+
+/**
+ * An unannotated copy of {@link io.github.bglowney.annotationscanner.test4.AnnotatedMethodClass}, whose name has the
+ * same length so that its class file can be renamed to shadow it
+ */
+public class ShadowedMethodClass {
+
+    public String test(int a, String[] b) {
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.bglowney.annotationscanner.test4;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+
+public class AnnotatedMethodClass {
+
+    @TestAnnotation
+    public String test(int a, String[] b) {
+        return null;
+    }
+}
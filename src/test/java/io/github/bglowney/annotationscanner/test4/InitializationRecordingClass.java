@@ -0,0 +1,10 @@
+package io.github.bglowney.annotationscanner.test4;
+
+public class InitializationRecordingClass {
+
+    public static final String INITIALIZED_PROPERTY = "annotationscanner.test4.initialized";
+
+    static {
+        System.setProperty(INITIALIZED_PROPERTY, "true");
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.bglowney.annotationscanner.test5;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+
+@TestAnnotation
+public class FailingInitializerClass {
+
+    static final int VALUE;
+
+    static {
+        VALUE = Integer.parseInt("not a number");
+    }
+}
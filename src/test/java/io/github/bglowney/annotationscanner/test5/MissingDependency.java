@@ -0,0 +1,7 @@
+package io.github.bglowney.annotationscanner.test5;
+
+/**
+ * Left out of the classpath built for tests, so that its subclass can not be loaded
+ */
+public class MissingDependency {
+}
@@ -0,0 +1,7 @@
+package io.github.bglowney.annotationscanner.test5;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+
+@TestAnnotation
+public class MissingDependencyClass extends MissingDependency {
+}
@@ -0,0 +1,7 @@
+package io.github.bglowney.annotationscanner.test6;
+
+public interface Handler {
+
+    @Component("handler")
+    void handle();
+}
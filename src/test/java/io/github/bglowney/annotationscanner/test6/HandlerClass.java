@@ -0,0 +1,8 @@
+package io.github.bglowney.annotationscanner.test6;
+
+public class HandlerClass implements Handler {
+
+    @Override
+    public void handle() {
+    }
+}
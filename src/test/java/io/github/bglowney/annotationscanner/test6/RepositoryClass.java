@@ -0,0 +1,5 @@
+package io.github.bglowney.annotationscanner.test6;
+
+@Repository
+public class RepositoryClass {
+}
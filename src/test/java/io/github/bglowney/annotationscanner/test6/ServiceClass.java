@@ -0,0 +1,5 @@
+package io.github.bglowney.annotationscanner.test6;
+
+@Service
+public class ServiceClass {
+}
@@ -0,0 +1,9 @@
+package io.github.bglowney.annotationscanner.test7;
+
+public abstract class AbstractPlugin implements Plugin {
+
+    @Override
+    public String name() {
+        return getClass().getSimpleName();
+    }
+}
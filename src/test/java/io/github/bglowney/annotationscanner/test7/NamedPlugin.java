@@ -0,0 +1,4 @@
+package io.github.bglowney.annotationscanner.test7;
+
+public interface NamedPlugin extends Plugin {
+}
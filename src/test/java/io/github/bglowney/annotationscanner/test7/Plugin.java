@@ -0,0 +1,6 @@
+package io.github.bglowney.annotationscanner.test7;
+
+public interface Plugin {
+
+    String name();
+}
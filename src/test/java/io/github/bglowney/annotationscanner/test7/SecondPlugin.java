@@ -0,0 +1,9 @@
+package io.github.bglowney.annotationscanner.test7;
+
+public class SecondPlugin implements NamedPlugin {
+
+    @Override
+    public String name() {
+        return "second";
+    }
+}
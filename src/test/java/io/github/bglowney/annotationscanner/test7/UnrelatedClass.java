@@ -0,0 +1,10 @@
+package io.github.bglowney.annotationscanner.test7;
+
+public class UnrelatedClass {
+
+    static final int VALUE;
+
+    static {
+        VALUE = Integer.parseInt("not a number");
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.bglowney.annotationscanner.test8;
+
+public class Endpoints {
+
+    @Route("/list")
+    public String list() {
+        return "";
+    }
+
+    @Route(value = "/create", verb = Verb.POST)
+    public String create() {
+        return "";
+    }
+
+    @Route("/count")
+    public Integer count() {
+        return 0;
+    }
+
+    @Route("/internal")
+    private String internal() {
+        return "";
+    }
+
+    public String unrouted() {
+        return "";
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.bglowney.annotationscanner.test8;
+
+public class PlainClass {
+
+    public String list() {
+        return "";
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.bglowney.annotationscanner.test8;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Route {
+
+    String value();
+
+    Verb verb() default Verb.GET;
+}
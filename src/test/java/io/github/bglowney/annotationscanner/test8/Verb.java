@@ -0,0 +1,5 @@
+package io.github.bglowney.annotationscanner.test8;
+
+public enum Verb {
+    GET, POST
+}
@@ -0,0 +1,10 @@
+package io.github.bglowney.annotationscanner.test9;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+
+public class BaseService {
+
+    @TestAnnotation
+    public void find() {
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.bglowney.annotationscanner.test9;
+
+public class PlainService {
+
+    public void first() {
+    }
+
+    public void second(String value) {
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.bglowney.annotationscanner.test9;
+
+import io.github.bglowney.annotationscanner.test.TestAnnotation;
+
+import java.util.List;
+import java.util.Map;
+
+public class WideService extends BaseService {
+
+    @TestAnnotation
+    private String name;
+    private int size;
+
+    @TestAnnotation
+    public WideService() {
+    }
+
+    public WideService(String name) {
+        this.name = name;
+    }
+
+    @TestAnnotation
+    public int count(String key, int[] values) {
+        return values.length;
+    }
+
+    public void first(List<String> values) {
+    }
+
+    public void second(Map<String, Object> values) {
+    }
+
+    public long third(long a, double b) {
+        return a;
+    }
+
+    public String fourth(char[] chars) {
+        return new String(chars);
+    }
+
+    public Object fifth(Object[][] values) {
+        return values;
+    }
+
+    private void sixth() {
+    }
+
+    protected void seventh(byte b, short s) {
+    }
+
+    static void eighth() {
+    }
+}